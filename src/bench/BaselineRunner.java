@@ -0,0 +1,192 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The bench.BaselineRunner class runs the whole benchmark suite with fixed settings and writes
+ * the results as a JMH CSV file, so that runs on the same machine can be compared. Fixed heap,
+ * two forks and the GC profiler make the numbers (and the allocation per operation) repeatable.
+ * Iterations last one second, which keeps a run of the whole suite to about half an hour.
+ * The committed reference run is bench/baseline.csv (see README.md for the command).
+ *
+ * Usage: java bench.BaselineRunner result.csv [baseline.csv]
+ *
+ * When a previous result file is given, every score is printed next to its baseline with the
+ * change in percent. Changes smaller than the combined score errors are marked as noise.
+ */
+public class BaselineRunner {
+    private static final String KEY_SEPARATOR = " ";
+
+    /**
+     * One row of a JMH CSV result file.
+     */
+    private static final class Score {
+        final double value;
+        final double error;
+        final String unit;
+
+        Score(double value, double error, String unit) {
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+        }
+    }
+
+    /**
+     * Runs the suite and compares the result with a baseline if one is given.
+     *
+     * @param args The result file and, optionally, the baseline file
+     * @throws RunnerException if JMH fails to run a benchmark
+     * @throws IOException if a result file cannot be read
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java bench.BaselineRunner result.csv [baseline.csv]");
+            return;
+        }
+        Path result = Paths.get(args[0]);
+        if (result.getParent() != null) {
+            Files.createDirectories(result.getParent());
+        }
+
+        Options options = new OptionsBuilder()
+                .include("bench\\..*Benchmark")
+                .forks(2)
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementTime(TimeValue.seconds(1))
+                .jvmArgs("-Xms2g", "-Xmx2g", "-XX:+AlwaysPreTouch")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.CSV)
+                .result(result.toString())
+                .build();
+        System.out.println("Java " + System.getProperty("java.vm.version") + " on "
+                + System.getProperty("os.name") + " " + System.getProperty("os.arch") + ", "
+                + Runtime.getRuntime().availableProcessors() + " processors");
+        new Runner(options).run();
+
+        if (args.length == 2) {
+            compare(readScores(Paths.get(args[1])), readScores(result));
+        }
+    }
+
+    /**
+     * Prints every current score next to its baseline score.
+     *
+     * @param baseline Scores of the baseline run
+     * @param current Scores of this run
+     */
+    private static void compare(Map<String, Score> baseline, Map<String, Score> current) {
+        System.out.println("\n=== Comparison with baseline ===");
+        for (Map.Entry<String, Score> row : current.entrySet()) {
+            Score now = row.getValue();
+            Score before = baseline.get(row.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14.3f %-12s (new)%n", row.getKey(), now.value, now.unit);
+                continue;
+            }
+            double change = before.value == 0 ? 0 : (now.value - before.value) * 100 / before.value;
+            boolean noise = Math.abs(now.value - before.value) <= now.error + before.error;
+            System.out.printf("%-90s %14.3f -> %14.3f %-12s %+7.1f%%%s%n", row.getKey(), before.value,
+                    now.value, now.unit, change, noise ? " (noise)" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-90s (removed)%n", key);
+            }
+        }
+    }
+
+    /**
+     * Reads a JMH CSV result file. Rows are keyed by benchmark name and parameter values.
+     *
+     * @param file The CSV file
+     * @return Map<String, Score> of scores in file order
+     * @throws IOException if the file cannot be read
+     */
+    private static Map<String, Score> readScores(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Map<String, Score> scores = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return scores;
+        }
+        List<String> header = splitCsv(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        int error = -1;
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).startsWith("Score Error")) {
+                error = i;
+            }
+        }
+        if (benchmark < 0 || score < 0 || unit < 0) {
+            throw new IllegalArgumentException("Not a JMH CSV result file: " + file);
+        }
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> columns = splitCsv(line);
+            if (columns.size() < header.size()) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(columns.get(benchmark));
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && !columns.get(i).isEmpty()) {
+                    key.append(KEY_SEPARATOR).append(header.get(i).substring(7)).append('=').append(columns.get(i));
+                }
+            }
+            double scoreError = error >= 0 ? parseNumber(columns.get(error)) : 0;
+            scores.put(key.toString(), new Score(parseNumber(columns.get(score)),
+                    Double.isNaN(scoreError) ? 0 : scoreError, columns.get(unit)));
+        }
+        return scores;
+    }
+
+    private static double parseNumber(String value) {
+        try {
+            return Double.parseDouble(value.replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString());
+        return columns;
+    }
+}
\ No newline at end of file
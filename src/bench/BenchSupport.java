@@ -0,0 +1,66 @@
+package bench;
+
+import services.HistoryJournal;
+import services.ParkingHistory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The bench.BenchSupport class holds the set-up steps shared by the benchmarks: silencing the
+ * console (the gates print a line per vehicle, and a terminal would dominate the measurement)
+ * and emptying the global parking history between iterations so it does not grow without bound.
+ */
+final class BenchSupport {
+    private static final PrintStream CONSOLE = System.out;
+
+    private BenchSupport() {
+    }
+
+    /**
+     * Sends System.out to a stream that discards everything. Printing still formats every
+     * line, so its CPU cost stays part of the measurement.
+     */
+    static void silenceConsole() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Restores the original System.out.
+     */
+    static void restoreConsole() {
+        System.setOut(CONSOLE);
+    }
+
+    /**
+     * Empties services.ParkingHistory by opening (and closing again) an empty journal,
+     * which replaces the in-memory history with the journal contents.
+     */
+    static void resetHistory() {
+        try {
+            Path empty = Files.createTempFile("bench-history", ".journal");
+            try {
+                ParkingHistory.openJournal(empty, HistoryJournal.Durability.ASYNC);
+                ParkingHistory.closeJournal();
+            } finally {
+                Files.deleteIfExists(empty);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not reset the parking history", e);
+        }
+    }
+
+    /**
+     * Returns a distinct valid license plate for every number below 100,000,000.
+     *
+     * @param number The plate number
+     * @return String plate such as "BN012345"
+     */
+    static String plate(int number) {
+        return "B" + (char) ('A' + number % 26) + String.format("%06d", number / 26 % 1_000_000);
+    }
+}
\ No newline at end of file
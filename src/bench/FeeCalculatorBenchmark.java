@@ -0,0 +1,85 @@
+package bench;
+
+import core.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import services.FeeCalculator;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bench.FeeCalculatorBenchmark class measures the cost of one fee calculation with JMH.
+ * It compares the original BigDecimal/double calculation with the integer agorot path of
+ * services.FeeCalculator.
+ *
+ * Run it with the GC profiler (-prof gc): feeCents must report a gc.alloc.rate.norm of
+ * 0 B/op, while legacyFee and calculateFee show the cost of the objects they create.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeeCalculatorBenchmark {
+    private Vehicle[] vehicles;
+    private int next;
+
+    /**
+     * Creates vehicles with stays from a few minutes to a few days.
+     */
+    @Setup
+    public void setUp() {
+        LocalDateTime entry = LocalDateTime.of(2024, 1, 1, 8, 0);
+        vehicles = new Vehicle[1024];
+        for (int i = 0; i < vehicles.length; i++) {
+            Vehicle v = new Vehicle("BEN" + (10000 + i), "Bench Owner");
+            v.setEntryTime(entry.plusSeconds(i * 37L));
+            v.setExitTime(entry.plusMinutes(7L + i * 13L));
+            vehicles[i] = v;
+        }
+    }
+
+    private Vehicle nextVehicle() {
+        next = (next + 1) & (vehicles.length - 1);
+        return vehicles[next];
+    }
+
+    /**
+     * The calculation as it was before the agorot path: Duration and a double rate.
+     */
+    @Benchmark
+    public BigDecimal legacyFee() {
+        Vehicle v = nextVehicle();
+        long minutes = Duration.between(v.getEntryTime(), v.getExitTime()).toMinutes();
+        long hours = (minutes + 59) / 60;
+        return BigDecimal.valueOf(hours * 5.0);
+    }
+
+    /**
+     * The public BigDecimal API, which now converts only the final amount.
+     */
+    @Benchmark
+    public BigDecimal calculateFee() {
+        return FeeCalculator.calculateFee(nextVehicle());
+    }
+
+    /**
+     * The allocation-free hot path used by check-out and statistics.
+     */
+    @Benchmark
+    public long feeCents() {
+        return FeeCalculator.calculateFeeCents(nextVehicle());
+    }
+}
\ No newline at end of file
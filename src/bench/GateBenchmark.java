@@ -0,0 +1,137 @@
+package bench;
+
+import core.ParkingLotManager;
+import core.ParkingSlot;
+import core.SlotAttributes;
+import core.SlotRequest;
+import core.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bench.GateBenchmark class measures the gate operations of core.ParkingLotManager with
+ * JMH, for lots of different sizes filled to different levels. Every measured check-in is
+ * followed by the check-out of the same vehicle, so the fill level stays constant. Check-ins
+ * with a core.SlotRequest are measured on a second lot with typed slots (8 zones, large, EV
+ * and disabled-access slots) and two gates.
+ *
+ * The lot, the history and the archive are rebuilt before every iteration. Console output
+ * is discarded but still formatted (see bench.BenchSupport).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GateBenchmark {
+    private static final int POOL = 1024; // Plates that come and go during the measurement
+    private static final SlotRequest CAR = new SlotRequest(SlotAttributes.Size.STANDARD, false, false);
+
+    @Param({"100", "10000", "100000"})
+    private int lotSize;
+
+    @Param({"0", "50", "95"})
+    private int fillPercent;
+
+    private ParkingLotManager lot;
+    private ParkingLotManager typedLot;
+    private String[] arriving;
+    private String[] parked;
+    private int next;
+
+    /**
+     * Creates the lot and parks vehicles until it reaches the fill level.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BenchSupport.silenceConsole();
+        BenchSupport.resetHistory();
+        lot = ParkingLotManager.createLot(lotSize);
+        typedLot = ParkingLotManager.createLot(lotSize);
+        List<SlotAttributes> attributes = new ArrayList<>(lotSize);
+        for (int i = 0; i < lotSize; i++) {
+            attributes.add(new SlotAttributes(i / 1000, i / 125 % 8, i % 1000,
+                    i % 10 == 0 ? SlotAttributes.Size.LARGE : SlotAttributes.Size.STANDARD, i % 20 == 0, i % 50 == 0));
+        }
+        typedLot.configureSlots(attributes, 0, 500);
+        int filled = lotSize * fillPercent / 100;
+        parked = new String[Math.max(1, filled)];
+        for (int i = 0; i < filled; i++) {
+            parked[i] = BenchSupport.plate(POOL + i);
+            lot.checkInVehicle(new Vehicle(parked[i], "Bench Owner"));
+            typedLot.checkInVehicle(new Vehicle(parked[i], "Bench Owner"));
+        }
+        if (filled == 0) {
+            parked[0] = BenchSupport.plate(0); // Not parked: lookups measure a miss
+        }
+        arriving = new String[POOL];
+        for (int i = 0; i < POOL; i++) {
+            arriving[i] = BenchSupport.plate(i);
+        }
+    }
+
+    /**
+     * Restores the console after the iteration.
+     */
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        BenchSupport.restoreConsole();
+    }
+
+    /**
+     * One vehicle arriving and leaving: construction, check-in and check-out with history,
+     * statistics, fee and archive updates.
+     */
+    @Benchmark
+    public boolean checkInAndOut() {
+        next = (next + 1) & (POOL - 1);
+        String plate = arriving[next];
+        lot.checkInVehicle(new Vehicle(plate, "Bench Owner"));
+        return lot.checkOutVehicle(plate);
+    }
+
+    /**
+     * One vehicle with a slot request arriving at one of two gates and leaving, in a lot with
+     * typed slots.
+     */
+    @Benchmark
+    public boolean typedCheckInAndOut() {
+        next = (next + 1) & (POOL - 1);
+        String plate = arriving[next];
+        typedLot.checkInVehicle(new Vehicle(plate, "Bench Owner"), CAR, next & 1);
+        return typedLot.checkOutVehicle(plate);
+    }
+
+    /**
+     * Looking up where a parked vehicle is.
+     */
+    @Benchmark
+    public ParkingSlot findSlotByPlate() {
+        next = next + 1 < parked.length ? next + 1 : 0;
+        return lot.findSlotByPlate(parked[next]);
+    }
+
+    /**
+     * Listing all parked vehicles, as legacy observers do after every change.
+     */
+    @Benchmark
+    public List<Vehicle> getVehicles() {
+        return lot.getVehicles();
+    }
+}
\ No newline at end of file
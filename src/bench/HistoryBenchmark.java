@@ -0,0 +1,96 @@
+package bench;
+
+import core.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import services.ParkingHistory;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bench.HistoryBenchmark class measures queries of the global services.ParkingHistory by
+ * date with JMH, over histories of different sizes spread evenly over one year. The history
+ * is built once per fork; console output is discarded but still formatted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+    private static final int DAYS = 365;
+
+    @Param({"10000", "1000000"})
+    private int historySize;
+
+    private LocalDate[] days;
+    private String[] dates;
+    private int next;
+
+    /**
+     * Fills the history with entry and exit records, two per vehicle.
+     */
+    @Setup
+    public void setUp() {
+        BenchSupport.silenceConsole();
+        BenchSupport.resetHistory();
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        long minutesPerVehicle = Math.max(1, DAYS * 24L * 60 * 2 / historySize);
+        for (int i = 0; i < historySize / 2; i++) {
+            Vehicle v = new Vehicle(BenchSupport.plate(i), "Bench Owner");
+            v.setEntryTime(start.plusMinutes(i * minutesPerVehicle));
+            v.setExitTime(v.getEntryTime().plusMinutes(45));
+            ParkingHistory.addEntryRecord(v, 1 + i % 500);
+            ParkingHistory.addExitRecord(v, "5.0", 1 + i % 500);
+        }
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        days = new LocalDate[DAYS];
+        dates = new String[DAYS];
+        for (int d = 0; d < DAYS; d++) {
+            days[d] = start.toLocalDate().plusDays(d);
+            dates[d] = days[d].format(format);
+        }
+    }
+
+    /**
+     * Empties the history and restores the console.
+     */
+    @TearDown
+    public void tearDown() {
+        BenchSupport.resetHistory();
+        BenchSupport.restoreConsole();
+    }
+
+    /**
+     * Printing one day of history, as the "history by date" menu option does.
+     */
+    @Benchmark
+    public void displayHistoryByDate() {
+        next = (next + 1) % DAYS;
+        ParkingHistory.displayHistoryByDate(dates[next]);
+    }
+
+    /**
+     * Reading one day of history without printing it.
+     */
+    @Benchmark
+    public List<ParkingHistory.HistoryEntry> getHistoryByDate() {
+        next = (next + 1) % DAYS;
+        return ParkingHistory.getHistoryByDate(days[next]);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package bench;
+
+import core.ParkingLotManager;
+import core.Vehicle;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bench.MetricsBenchmark class measures the cost of the metrics instrumentation with JMH:
+ * a check-in/check-out pair (as in bench.GateBenchmark, half-full lot of 10,000 slots) with
+ * the global registry disabled and enabled, and a single histogram timing on its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+    private static final int POOL = 1024;
+    private static final int LOT_SIZE = 10_000;
+
+    @Param({"false", "true"})
+    private boolean metricsEnabled;
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final LatencyHistogram histogram = registry.histogram("bench.latency");
+    private ParkingLotManager lot;
+    private String[] arriving;
+    private int next;
+
+    /**
+     * Creates a half-full lot and switches the global registry on or off.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BenchSupport.silenceConsole();
+        BenchSupport.resetHistory();
+        MetricsRegistry.global().setEnabled(metricsEnabled);
+        registry.setEnabled(metricsEnabled);
+        lot = ParkingLotManager.createLot(LOT_SIZE);
+        for (int i = 0; i < LOT_SIZE / 2; i++) {
+            lot.checkInVehicle(new Vehicle(BenchSupport.plate(POOL + i), "Bench Owner"));
+        }
+        arriving = new String[POOL];
+        for (int i = 0; i < POOL; i++) {
+            arriving[i] = BenchSupport.plate(i);
+        }
+    }
+
+    /**
+     * Switches the global registry off and restores the console.
+     */
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        MetricsRegistry.global().setEnabled(false);
+        BenchSupport.restoreConsole();
+    }
+
+    /**
+     * One vehicle arriving and leaving, with all gate, observer, fee and history timings.
+     */
+    @Benchmark
+    public boolean checkInAndOut() {
+        next = (next + 1) & (POOL - 1);
+        String plate = arriving[next];
+        lot.checkInVehicle(new Vehicle(plate, "Bench Owner"));
+        return lot.checkOutVehicle(plate);
+    }
+
+    /**
+     * Timing an empty operation: two clock reads and one histogram update when enabled.
+     */
+    @Benchmark
+    public void histogramTiming() {
+        histogram.stop(histogram.start());
+    }
+}
\ No newline at end of file
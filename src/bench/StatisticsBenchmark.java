@@ -0,0 +1,87 @@
+package bench;
+
+import core.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import services.LiveStatistics;
+import services.ParkingStatistics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bench.StatisticsBenchmark class measures the figures shown by
+ * services.ParkingStatistics.displayStatistics with JMH: once computed by scanning the
+ * complete vehicle list, and once read from the incrementally maintained
+ * services.LiveStatistics. The vehicles arrived and left over the last two weeks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsBenchmark {
+    @Param({"1000", "100000"})
+    private int vehicleCount;
+
+    private List<Vehicle> vehicles;
+    private LiveStatistics live;
+
+    /**
+     * Creates the vehicle history and feeds it to the live statistics.
+     */
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        vehicles = new ArrayList<>(vehicleCount);
+        live = new LiveStatistics();
+        for (int i = 0; i < vehicleCount; i++) {
+            Vehicle v = new Vehicle(BenchSupport.plate(i), "Bench Owner");
+            LocalDateTime entry = now.minusMinutes(20_160L * i / vehicleCount + 30);
+            v.setEntryTime(entry);
+            if (i % 10 != 0) { // Every tenth vehicle is still parked
+                v.setExitTime(entry.plusMinutes(15 + i % 300));
+            }
+            vehicles.add(v);
+            live.recordVehicle(v);
+        }
+    }
+
+    /**
+     * The five list scans displayStatistics(List) performs.
+     */
+    @Benchmark
+    public void fromVehicleList(Blackhole blackhole) {
+        blackhole.consume(ParkingStatistics.getVehiclesInLastHour(vehicles));
+        blackhole.consume(ParkingStatistics.getVehiclesToday(vehicles));
+        blackhole.consume(ParkingStatistics.getAverageStayTime(vehicles));
+        blackhole.consume(ParkingStatistics.getDailyRevenue(vehicles));
+        blackhole.consume(ParkingStatistics.getWeeklyRevenue(vehicles));
+    }
+
+    /**
+     * The same figures read from the live statistics, as displayStatistics(LiveStatistics) does.
+     */
+    @Benchmark
+    public void fromLiveStatistics(Blackhole blackhole) {
+        LocalDateTime now = LocalDateTime.now();
+        blackhole.consume(live.getVehiclesInLastHour(now));
+        blackhole.consume(live.getVehiclesToday(now));
+        blackhole.consume(live.getAverageStayTime());
+        blackhole.consume(live.getDailyRevenue(now));
+        blackhole.consume(live.getWeeklyRevenue(now));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package bench;
+
+import core.PlateFormat;
+import core.PlateFormats;
+import core.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bench.VehicleBenchmark class measures core.Vehicle construction with JMH. It compares
+ * the original validation (String.matches, which compiles both regular expressions on every
+ * call), a precompiled pattern format and the character-scan formats the constructor uses.
+ *
+ * Run it with the GC profiler (-prof gc) to see the allocation per vehicle of each variant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VehicleBenchmark {
+    private static final PlateFormat PATTERN_FORMAT =
+            PlateFormat.pattern("[A-Za-z0-9]{5,8}", "License plate must contain only letters and numbers (5-8 characters)");
+
+    private final String plate = "AB12345";
+    private final String owner = "Israel Israeli";
+
+    /**
+     * The validation as it was before: two regular expressions compiled per vehicle.
+     */
+    @Benchmark
+    public boolean legacyValidation() {
+        return plate.matches("^[A-Za-z0-9]{5,8}$") && owner.matches("^[A-Za-z\\s]+$");
+    }
+
+    /**
+     * Constructor with a plate format backed by a precompiled pattern.
+     */
+    @Benchmark
+    public Vehicle precompiledPattern() {
+        return new Vehicle(plate, owner, PATTERN_FORMAT);
+    }
+
+    /**
+     * Constructor with the default character-scan format.
+     */
+    @Benchmark
+    public Vehicle characterScan() {
+        return new Vehicle(plate, owner);
+    }
+
+    /**
+     * Constructor with a country format looked up in the registry.
+     */
+    @Benchmark
+    public Vehicle countryFormat() {
+        return new Vehicle("12345678", owner, PlateFormats.forCountry("IL"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,168 @@
+package core;
+
+import services.TariffTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The core.LotRegistry class manages many independent parking lots (sites, levels) by name.
+ * Every lot is its own core.ParkingLotManager shard with its own slots, zones, plate index,
+ * tariffs, statistics and observers, so gates of different lots never share a lock.
+ *
+ * Questions about all lots (where is a plate parked, how full is the company) are answered by
+ * fanning out to the lots in parallel and merging the answers. No registry-wide lock is taken:
+ * lots can be added and removed while queries run, and a query sees every lot that was
+ * registered for its whole duration.
+ */
+public class LotRegistry {
+    // Lots are fanned out to the common fork/join pool once there is more than this many
+    private static final long PARALLELISM_THRESHOLD = 4;
+
+    private final ConcurrentHashMap<String, ParkingLotManager> lots = new ConcurrentHashMap<>();
+
+    /**
+     * The lot and slot in which a vehicle is parked.
+     */
+    public static final class Location {
+        private final String lotId;
+        private final ParkingSlot slot;
+
+        private Location(String lotId, ParkingSlot slot) {
+            this.lotId = lotId;
+            this.slot = slot;
+        }
+
+        /** @return String id of the lot */
+        public String getLotId() { return lotId; }
+
+        /** @return core.ParkingSlot the vehicle is parked in */
+        public ParkingSlot getSlot() { return slot; }
+
+        @Override
+        public String toString() {
+            return lotId + " / slot " + slot.getId();
+        }
+    }
+
+    /**
+     * Creates and registers a new lot.
+     *
+     * @param lotId Unique id of the lot, e.g. "north-level-2"
+     * @param totalSlots Number of slots of the lot
+     * @param zoneCount Number of independently locked zones of the lot
+     * @param tariffs Tariffs of the lot, or null for the tariffs of services.FeeCalculator
+     * @return core.ParkingLotManager of the new lot
+     * @throws IllegalArgumentException if a lot with that id is already registered
+     */
+    public ParkingLotManager createLot(String lotId, int totalSlots, int zoneCount, TariffTable tariffs) {
+        ParkingLotManager lot = ParkingLotManager.createLot(totalSlots, zoneCount);
+        lot.setTariffs(tariffs);
+        register(lotId, lot);
+        return lot;
+    }
+
+    /**
+     * Registers an existing lot.
+     *
+     * @param lotId Unique id of the lot
+     * @param lot The lot manager
+     * @throws IllegalArgumentException if the id is empty or a lot with that id is already registered
+     */
+    public void register(String lotId, ParkingLotManager lot) {
+        if (lotId == null || lotId.isBlank() || lot == null) {
+            throw new IllegalArgumentException("Lot id and lot are required");
+        }
+        if (lots.putIfAbsent(lotId, lot) != null) {
+            throw new IllegalArgumentException("Lot already registered: " + lotId);
+        }
+    }
+
+    /**
+     * Removes a lot from the registry. The lot itself keeps working.
+     *
+     * @param lotId Id of the lot
+     * @return core.ParkingLotManager that was removed, or null if there was none
+     */
+    public ParkingLotManager remove(String lotId) {
+        return lots.remove(lotId);
+    }
+
+    /**
+     * Returns a lot by id.
+     *
+     * @param lotId Id of the lot
+     * @return core.ParkingLotManager of the lot, or null if there is none
+     */
+    public ParkingLotManager getLot(String lotId) {
+        return lots.get(lotId);
+    }
+
+    /**
+     * Returns the ids of all registered lots.
+     *
+     * @return Set<String> of lot ids (a live, unmodifiable view)
+     */
+    public Set<String> getLotIds() {
+        return Collections.unmodifiableSet(lots.keySet());
+    }
+
+    /**
+     * Finds the lot and slot in which a vehicle is parked, asking all lots in parallel.
+     *
+     * @param licensePlate The license plate to look up
+     * @return core.LotRegistry.Location of the vehicle, or null if it is in no lot
+     */
+    public Location findPlate(String licensePlate) {
+        return lots.search(PARALLELISM_THRESHOLD, (lotId, lot) -> {
+            ParkingSlot slot = lot.findSlotByPlate(licensePlate);
+            return slot != null ? new Location(lotId, slot) : null;
+        });
+    }
+
+    /**
+     * Returns the number of occupied slots over all lots.
+     *
+     * @return long total occupancy
+     */
+    public long getTotalOccupiedSlots() {
+        return lots.reduceValuesToLong(PARALLELISM_THRESHOLD, lot -> lot.getOccupiedSlots(), 0L, Long::sum);
+    }
+
+    /**
+     * Returns the number of slots over all lots.
+     *
+     * @return long total capacity
+     */
+    public long getTotalSlots() {
+        return lots.reduceValuesToLong(PARALLELISM_THRESHOLD, lot -> lot.getTotalSlots(), 0L, Long::sum);
+    }
+
+    /**
+     * Returns the number of free slots over all lots.
+     *
+     * @return long total of available slots
+     */
+    public long getTotalAvailableSlots() {
+        return lots.reduceValuesToLong(PARALLELISM_THRESHOLD, lot -> lot.getAvailableSlots(), 0L, Long::sum);
+    }
+
+    /**
+     * Returns the vehicles currently parked in all lots.
+     *
+     * @return List<core.Vehicle> of parked vehicles, grouped by lot
+     */
+    public List<Vehicle> getParkedVehicles() {
+        List<Vehicle> vehicles = lots.reduceValues(PARALLELISM_THRESHOLD, ParkingLotManager::getVehicles,
+                (first, second) -> {
+                    List<Vehicle> merged = new ArrayList<>(first.size() + second.size());
+                    merged.addAll(first);
+                    merged.addAll(second);
+                    return merged;
+                });
+        return vehicles != null ? vehicles : new ArrayList<>();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+package core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The core.LotSnapshot class writes the state of a lot to a compact, versioned binary file
+ * and loads it again on restart. A snapshot holds, in this order (all numbers big-endian):
+ *
+ * - header: magic "PKSN", format version, slot count, zone count, last event sequence, creation time
+ * - parked vehicles: count, then slot id, plate, owner, vehicle class and entry time of each
+ * - live statistics counters (services.LiveStatistics.writeTo)
+ * - time series buckets (services.ParkingTimeSeries.writeTo), since version 2
+ * - archived sessions: plate and owner dictionaries and the column blocks of every segment
+ *   (core.SessionArchive.Capture.writeTo); before version 3 their times were in milliseconds
+ * - CRC-32 of everything before it (long)
+ *
+ * All parts are taken in one epoch: while the lot's snapshot lock is held, no check-in,
+ * check-out or move is half done, so a vehicle is either parked or archived (with its fee in
+ * the statistics), never both. The lock is held only to copy the parked vehicles, serialize
+ * the statistics and time series into memory and capture the append-only session archive;
+ * the file is written after the gates have continued. The snapshot is written to a temporary
+ * file that replaces the target atomically, so a crash never leaves a half-written snapshot behind.
+ *
+ * Loading maps the file into memory and bulk-copies the archive columns out of the mapping,
+ * so restoring a lot with a large history is bound by memory bandwidth, not by parsing.
+ * Configuration (tariffs, slot attributes, listeners) is not part of a snapshot.
+ */
+final class LotSnapshot {
+    private static final int MAGIC = 0x504B534E; // "PKSN"
+    private static final int VERSION = 3;
+
+    private LotSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of a lot.
+     *
+     * @param lot The lot to save
+     * @param file The snapshot file (replaced if it exists)
+     * @throws IOException if the snapshot cannot be written
+     */
+    static void write(ParkingLotManager lot, Path file) throws IOException {
+        long sequence;
+        List<Integer> slotIds = new ArrayList<>();
+        List<Vehicle> parked = new ArrayList<>();
+        ByteArrayOutputStream counters = new ByteArrayOutputStream();
+        SessionArchive.Capture sessions;
+        StampedLock epoch = lot.getSnapshotEpoch();
+        long stamp = epoch.writeLock(); // Waits for the gate operations in progress
+        try {
+            sequence = lot.getEventSequence(); // Every change up to here is in the slots already
+            for (ParkingSlot slot : lot.getSlots()) {
+                Vehicle vehicle = slot.getCurrentVehicle();
+                if (vehicle != null) {
+                    slotIds.add(slot.getId());
+                    parked.add(vehicle);
+                }
+            }
+            DataOutputStream out = new DataOutputStream(counters);
+            lot.getStatistics().writeTo(out);
+            lot.getTimeSeries().writeTo(out);
+            sessions = lot.getSessionArchive().capture();
+        } finally {
+            epoch.unlockWrite(stamp);
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16), crc);
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(lot.getTotalSlots());
+            out.writeInt(lot.getZoneCount());
+            out.writeLong(sequence);
+            out.writeLong(System.currentTimeMillis());
+
+            out.writeInt(parked.size());
+            for (int i = 0; i < parked.size(); i++) {
+                Vehicle vehicle = parked.get(i);
+                out.writeInt(slotIds.get(i));
+                writeString(out, vehicle.getLicensePlate());
+                writeString(out, vehicle.getOwner());
+                writeString(out, vehicle.getVehicleClass());
+                LocalDateTime entry = vehicle.getEntryTime();
+                out.writeLong(entry != null ? entry.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+                out.writeInt(entry != null ? entry.getNano() : 0);
+            }
+
+            counters.writeTo(out);
+            sessions.writeTo(out);
+            out.flush();
+            out.writeLong(crc.getValue());
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a snapshot into a new lot.
+     *
+     * @param file The snapshot file
+     * @return core.ParkingLotManager with the saved slots, parked vehicles, statistics and sessions
+     * @throws IOException if the file cannot be read, is corrupt or has an unknown format version
+     */
+    static ParkingLotManager read(Path file) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < 40 || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a parking lot snapshot: " + file);
+            }
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a parking lot snapshot: " + file);
+        }
+        int version = in.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(in.duplicate().position(0).limit(in.limit() - 8));
+        if (crc.getValue() != in.getLong(in.limit() - 8)) {
+            throw new IOException("Corrupt parking lot snapshot (checksum mismatch): " + file);
+        }
+
+        try {
+            ParkingLotManager lot = ParkingLotManager.createLot(in.getInt(), in.getInt());
+            long sequence = in.getLong();
+            in.getLong(); // Creation time
+
+            int parkedCount = in.getInt();
+            for (int i = 0; i < parkedCount; i++) {
+                int slotId = in.getInt();
+                Vehicle vehicle = new Vehicle(readString(in), readString(in), PlateFormats.ANY);
+                vehicle.setVehicleClass(readString(in));
+                long second = in.getLong();
+                int nano = in.getInt();
+                if (second != Long.MIN_VALUE) {
+                    vehicle.setEntryTime(LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC));
+                }
+                lot.restoreVehicle(slotId, vehicle);
+            }
+
+            lot.getStatistics().readFrom(in);
+            if (version >= 2) { // Version 1 snapshots have no time series
+                lot.getTimeSeries().readFrom(in);
+            }
+            lot.getSessionArchive().readFrom(in, version < 3);
+            lot.restoreEventSequence(sequence);
+            return lot;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt parking lot snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Writes a string as its UTF-8 length (int) and bytes.
+     *
+     * @param out The snapshot stream
+     * @param value The string
+     * @throws IOException if writing fails
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by writeString.
+     *
+     * @param in The snapshot buffer
+     * @return String read
+     */
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
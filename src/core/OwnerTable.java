@@ -0,0 +1,72 @@
+package core;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The core.OwnerTable class interns owner names. Every distinct name is stored once and
+ * gets a small int id, so vehicles and history records share a single String per owner and
+ * can keep and compare the id instead of the name.
+ *
+ * Lookups of known names take no lock; only the first occurrence of a name is synchronized.
+ * Names are never removed, so the table grows with the number of distinct owners.
+ */
+public final class OwnerTable {
+    private static final int PAGE_SIZE = 4096;
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static final Object lock = new Object();
+    private static volatile String[][] pages = new String[0][]; // Names by id, in pages of PAGE_SIZE
+    private static int count;
+
+    private OwnerTable() {
+    }
+
+    /**
+     * Returns the id of an owner name, adding the name to the table if it is new.
+     *
+     * @param name The owner name
+     * @return int id of the name
+     */
+    public static int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (lock) {
+            id = ids.get(name);
+            if (id == null) {
+                id = count++;
+                if (id / PAGE_SIZE == pages.length) {
+                    String[][] grown = Arrays.copyOf(pages, pages.length + 1);
+                    grown[pages.length] = new String[PAGE_SIZE];
+                    pages = grown;
+                }
+                pages[id / PAGE_SIZE][id % PAGE_SIZE] = name;
+                ids.put(name, id); // Publishes the name to readers that look the id up
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the owner name with the given id.
+     *
+     * @param id An id returned by idOf
+     * @return String the shared instance of the name
+     */
+    public static String nameOf(int id) {
+        return pages[id / PAGE_SIZE][id % PAGE_SIZE];
+    }
+
+    /**
+     * Returns the shared instance of an owner name.
+     *
+     * @param name The owner name
+     * @return String equal to name, shared by every user of the table
+     */
+    public static String intern(String name) {
+        return nameOf(idOf(name));
+    }
+}
\ No newline at end of file
@@ -1,11 +1,42 @@
 package core;
+import metrics.CheckInEvent;
+import metrics.CheckOutEvent;
+import metrics.Counter;
+import metrics.FeeEvent;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import observer.AsyncObserverDispatcher;
+import observer.BackpressurePolicy;
+import observer.ObserverAdapter;
+import observer.ObserverMetrics;
+import observer.ParkingEvent;
+import observer.ParkingEventListener;
 import observer.ParkingObserver;
 import observer.ParkingLog;
 import services.FeeCalculator;
+import services.LiveStatistics;
 import services.ParkingHistory;
+import services.ParkingTimeSeries;
+import services.ReportWriter;
+import services.TariffTable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The core.ParkingLotManager class implements the Singleton pattern to ensure only one
@@ -13,41 +44,161 @@ import java.util.List;
  * for all parking operations and implements the Observer pattern to notify
  * registered observers of parking state changes. Additionally, it provides
  * Facade pattern functionality by offering simplified interfaces for complex operations.
+ *
+ * The manager is safe to use from many entry and exit gates at once: slots are claimed
+ * atomically from a lock-striped allocator (one lock per zone of the lot), parked vehicles
+ * are indexed in a concurrent map, and check-out of a slot is serialized on that slot only.
  */
 public class ParkingLotManager {
-    private static ParkingLotManager instance;
-    private List<ParkingSlot> slots;
+    private static final int SLOTS_PER_ZONE = 64; // Default zone (lock stripe) size
 
-    // List of observers (watchers) for parking state changes
-    private List<ParkingObserver> observers = new ArrayList<>();
+    // Gate instrumentation of all lots, recorded while the global metrics registry is enabled
+    private static final LatencyHistogram CHECK_IN_LATENCY = MetricsRegistry.global().histogram("lot.checkin.latency");
+    private static final LatencyHistogram CHECK_OUT_LATENCY = MetricsRegistry.global().histogram("lot.checkout.latency");
+    private static final Counter REJECTED_CHECK_INS = MetricsRegistry.global().counter("lot.checkin.rejected");
+    private static final Counter UNKNOWN_CHECK_OUTS = MetricsRegistry.global().counter("lot.checkout.notfound");
 
-    // Complete list of all vehicles that have ever entered the parking lot (including those that exited)
-    private List<Vehicle> allVehicles = new ArrayList<>();
+    private final List<ParkingSlot> slots;
+
+    // Occupancy bitset and parked vehicles of all slots in flat arrays, used for whole-lot scans
+    private final SlotStore store;
+
+    // Tracks free slots per zone so that parking neither scans the slot list nor takes a global lock
+    private final StripedSlotAllocator allocator;
+
+    // Picks slots by size, features and distance from the gate (null until configureSlots is called)
+    private volatile TypedSlotAllocator typedAllocator;
+
+    // License plate code -> slot index of every currently parked vehicle
+    private final PlateIndex plateIndex;
+
+    // List of listeners (watchers) for parking state changes; legacy observers are wrapped in adapters
+    private final List<ParkingEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Numbers events and queues them in that order; held only for that, never while listeners run
+    private final Object eventLock = new Object();
+    private long eventSequence;
+
+    // Gates hold the read side while they change slots, statistics, time series and archive
+    // together; a snapshot holds the write side while it copies them (see core.LotSnapshot)
+    private final StampedLock snapshotEpoch = new StampedLock();
+
+    // Events for synchronous listeners, delivered in sequence order by one gate at a time
+    private final ConcurrentLinkedQueue<ParkingEvent> undelivered = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock deliveryLock = new ReentrantLock();
+
+    // Delivers notifications on observer threads when asynchronous dispatch is enabled (null = synchronous)
+    private volatile AsyncObserverDispatcher dispatcher;
+
+    // Vehicles that have left the lot, stored column by column (parked vehicles live in their slots)
+    private final SessionArchive archive = new SessionArchive();
+
+    // Statistics updated on every check-in/check-out, readable in constant time
+    private final LiveStatistics statistics = new LiveStatistics();
+
+    // Per-minute occupancy, arrivals, departures and revenue for dashboards (fixed memory)
+    private final ParkingTimeSeries timeSeries = new ParkingTimeSeries();
+
+    // Tariffs of this lot (null = the tariffs of services.FeeCalculator)
+    private volatile TariffTable tariffs;
+
+    /**
+     * Lazy holder of the singleton instance. The JVM initializes it on first use,
+     * which guarantees a single, safely published instance without locking (Singleton pattern).
+     */
+    private static final class InstanceHolder {
+        private static final ParkingLotManager INSTANCE = new ParkingLotManager(10, 1); // Default: 10 parking slots
+    }
 
     /**
      * Private constructor to prevent external instantiation (Singleton pattern).
      * Initializes the parking lot with the specified number of slots.
      *
      * @param totalSlots The total number of parking slots to create
+     * @param zoneCount The number of zones the slots are split into, each with its own lock
      */
-    private ParkingLotManager(int totalSlots) {
-        slots = new ArrayList<>();
+    private ParkingLotManager(int totalSlots, int zoneCount) {
+        slots = new ArrayList<>(totalSlots);
+        store = new SlotStore(totalSlots);
+        allocator = new StripedSlotAllocator(totalSlots, zoneCount);
+        plateIndex = new PlateIndex();
+        SlotListener listener = new SlotIndexUpdater();
         for (int i = 1; i <= totalSlots; i++) {
-            slots.add(new ParkingSlot(i));
+            ParkingSlot slot = new ParkingSlot(i, store);
+            slot.attachListener(listener);
+            slots.add(slot);
+        }
+    }
+
+    /**
+     * Keeps the free-slot allocator and the license plate index in sync with the slots.
+     * Every core.ParkingSlot owned by this manager reports its changes here.
+     */
+    private class SlotIndexUpdater implements SlotListener {
+        @Override
+        public void vehicleAssigned(ParkingSlot slot, Vehicle previous) {
+            if (previous != null) {
+                plateIndex.remove(previous.getLicensePlate(), slot.getId() - 1);
+            }
+            allocator.markOccupied(slot.getId() - 1);
+            plateIndex.put(slot.getCurrentVehicle().getLicensePlate(), slot.getId() - 1);
+        }
+
+        @Override
+        public void vehicleRemoved(ParkingSlot slot, Vehicle previous) {
+            if (previous != null) {
+                plateIndex.remove(previous.getLicensePlate(), slot.getId() - 1);
+            }
+            releaseSlot(slot.getId() - 1);
+        }
+    }
+
+    /**
+     * Marks a slot as free in the allocators.
+     */
+    private void releaseSlot(int index) {
+        allocator.markFree(index);
+        TypedSlotAllocator typed = typedAllocator;
+        if (typed != null) {
+            typed.release(index);
         }
     }
 
     /**
      * Returns the single instance of core.ParkingLotManager (Singleton pattern).
-     * Creates a new instance with 10 slots if none exists.
+     * Creates a new instance with 10 slots on first use; safe to call from any thread.
      *
      * @return The singleton instance of core.ParkingLotManager
      */
     public static ParkingLotManager getInstance() {
-        if (instance == null) {
-            instance = new ParkingLotManager(10); // Default: 10 parking slots
-        }
-        return instance;
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Creates an independent parking lot that is not the shared singleton instance.
+     * Intended for large lots served by many concurrent gates, and for tests and tools
+     * that need a lot of a specific size. Sites with several lots register them in a
+     * core.LotRegistry.
+     *
+     * @param totalSlots The total number of parking slots to create
+     * @return A new core.ParkingLotManager with one zone per 64 slots
+     * @throws IllegalArgumentException if totalSlots is negative
+     */
+    public static ParkingLotManager createLot(int totalSlots) {
+        return createLot(totalSlots, (totalSlots + SLOTS_PER_ZONE - 1) / SLOTS_PER_ZONE);
+    }
+
+    /**
+     * Creates an independent parking lot split into the given number of zones.
+     * Each zone is a range of consecutive slots with its own allocation lock.
+     *
+     * @param totalSlots The total number of parking slots to create
+     * @param zoneCount The number of zones (lock stripes)
+     * @return A new core.ParkingLotManager
+     * @throws IllegalArgumentException if totalSlots is negative
+     */
+    public static ParkingLotManager createLot(int totalSlots, int zoneCount) {
+        return new ParkingLotManager(totalSlots, Math.max(1, zoneCount));
     }
 
     /**
@@ -62,27 +213,87 @@ public class ParkingLotManager {
     /**
      * Returns a list of vehicles currently parked in the lot.
      * Only includes vehicles that are physically present (not exited).
+     * The vehicles are read from the slot store, visiting only occupied slots.
      *
      * @return List<core.Vehicle> containing currently parked vehicles
      */
     public List<Vehicle> getVehicles() {
-        List<Vehicle> vehicles = new ArrayList<>();
-        for (ParkingSlot slot : slots) {
-            if (slot.isOccupied()) {
-                vehicles.add(slot.getCurrentVehicle());
-            }
-        }
-        return vehicles;
+        return store.getVehicles();
+    }
+
+    /**
+     * Returns the number of slots that currently hold a vehicle, counted over the
+     * occupancy bitset of the slot store.
+     *
+     * @return int count of occupied slots
+     */
+    public int getOccupiedSlots() {
+        return store.getOccupiedCount();
     }
 
     /**
      * Returns the complete list of all vehicles that have ever entered the parking lot.
-     * This includes both currently parked and previously exited vehicles.
+     * This includes both previously exited vehicles (read from the session archive, oldest
+     * first) and currently parked vehicles (in slot order).
+     * The returned list is a snapshot, so it can be read while gates keep working.
      *
      * @return List<core.Vehicle> containing all vehicles in the system history
      */
     public List<Vehicle> getAllVehicles() {
-        return allVehicles;
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (Vehicle vehicle : vehicleHistory()) {
+            vehicles.add(vehicle);
+        }
+        return vehicles;
+    }
+
+    /**
+     * Returns the archive of vehicles that have left this lot, for example to enable
+     * spilling of old sessions to disk.
+     *
+     * @return core.SessionArchive of completed parking sessions
+     */
+    public SessionArchive getSessionArchive() {
+        return archive;
+    }
+
+    /**
+     * Returns the live statistics of this lot, which are updated on every check-in
+     * and check-out and can be read in constant time.
+     *
+     * @return services.LiveStatistics of this lot
+     */
+    public LiveStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the occupancy and revenue time series of this lot, fed by every
+     * check-in and check-out.
+     *
+     * @return services.ParkingTimeSeries of this lot
+     */
+    public ParkingTimeSeries getTimeSeries() {
+        return timeSeries;
+    }
+
+    /**
+     * Gives this lot its own tariffs. Vehicles leaving after the call are charged with them.
+     *
+     * @param table The tariffs of this lot, or null to use the tariffs of services.FeeCalculator
+     */
+    public void setTariffs(TariffTable table) {
+        this.tariffs = table;
+    }
+
+    /**
+     * Returns the tariffs this lot charges with.
+     *
+     * @return services.TariffTable of this lot, or the tariffs of services.FeeCalculator if it has none
+     */
+    public TariffTable getTariffs() {
+        TariffTable table = tariffs;
+        return table != null ? table : FeeCalculator.getTariffs();
     }
 
     /**
@@ -94,6 +305,73 @@ public class ParkingLotManager {
         return slots.size();
     }
 
+    /**
+     * Returns the number of parking slots that are currently free.
+     *
+     * @return int representing the number of available slots
+     */
+    public int getAvailableSlots() {
+        return allocator.getFreeCount();
+    }
+
+    /**
+     * Returns the number of zones the lot is split into. Gates can pass a zone number
+     * to checkInVehicle to allocate from their own zone first.
+     *
+     * @return int representing the number of zones
+     */
+    public int getZoneCount() {
+        return allocator.getZoneCount();
+    }
+
+    /**
+     * Assigns physical attributes (level, zone, position, size, EV charger, disabled access) to
+     * the slots of the lot and defines where its entry gates are. Afterwards
+     * checkInVehicle(vehicle, request, gate) places vehicles in the best matching free slot
+     * nearest to their gate. Plain check-ins are not affected. Call this while setting the lot up,
+     * before gates start checking in vehicles with requests.
+     *
+     * @param attributes The attributes of every slot, in slot order
+     * @param gatePositions The position of every entry gate along the route on level 0;
+     *                      gates are numbered from 0 in this order
+     * @throws IllegalArgumentException if the number of attributes does not match the number of
+     *                                  slots, an attribute is null, or no gate is given
+     */
+    public void configureSlots(List<SlotAttributes> attributes, int... gatePositions) {
+        if (attributes == null || attributes.size() != slots.size()) {
+            throw new IllegalArgumentException("Exactly one set of attributes per slot is required");
+        }
+        SlotAttributes[] bySlot = attributes.toArray(new SlotAttributes[0]);
+        for (SlotAttributes slotAttributes : bySlot) {
+            if (slotAttributes == null) {
+                throw new IllegalArgumentException("Exactly one set of attributes per slot is required");
+            }
+        }
+        typedAllocator = new TypedSlotAllocator(allocator, store, bySlot, gatePositions);
+        for (int i = 0; i < bySlot.length; i++) {
+            slots.get(i).setAttributes(bySlot[i]);
+        }
+    }
+
+    /**
+     * Returns the slot in which the vehicle with the given license plate is currently parked.
+     *
+     * @param licensePlate The license plate to look up
+     * @return core.ParkingSlot holding the vehicle, or null if the vehicle is not in the lot
+     */
+    public ParkingSlot findSlotByPlate(String licensePlate) {
+        int index = plateIndex.get(licensePlate);
+        return index < 0 ? null : slots.get(index);
+    }
+
+    /**
+     * Checks whether a vehicle has the given plate, comparing plate codes when the plate has one.
+     */
+    private static boolean hasPlate(Vehicle vehicle, long plateCode, String licensePlate) {
+        return plateCode != PlateCode.NONE ? vehicle.getPlateCode() == plateCode
+                : vehicle.getLicensePlate().equals(licensePlate);
+    }
+
     /**
      * Attempts to park a vehicle in the first available slot.
      * Validates that the vehicle is not already parked before attempting to park.
@@ -102,52 +380,206 @@ public class ParkingLotManager {
      * @return boolean true if parking was successful, false otherwise
      *
      * Validation:
-     * - Checks if vehicle is already parked (prevents duplicate parking)
-     * - Finds first available slot
+     * - Checks if vehicle is already parked (prevents duplicate parking, license plate index lookup)
+     * - Finds first available slot (lowest slot number, via the free-slot allocator)
      * - Assigns vehicle to slot or reports lot full
      */
     public boolean parkVehicle(Vehicle vehicle) {
+        ParkingSlot slot = claimSlot(vehicle, 0, null, 0);
+        if (slot == null) {
+            return false;
+        }
+        slot.assignVehicle(vehicle); // Allocator and index are updated by the slot
+        return true; // Successfully parked the vehicle
+    }
+
+    /**
+     * Claims a slot for a vehicle, searching for a free slot starting at the given zone, or for
+     * the best slot matching a request when one is given. The caller assigns the vehicle to it.
+     * Both the slot and the license plate are claimed atomically, so concurrent gates
+     * can never put two vehicles in one slot or park the same plate twice.
+     *
+     * @param vehicle The vehicle to park
+     * @param zone The zone to search first (zone 0 gives the lowest numbered free slot)
+     * @param request The needs of the vehicle, or null for any slot
+     * @param gate The gate the vehicle arrives at (only used with a request)
+     * @return core.ParkingSlot claimed for the vehicle, or null if parking failed
+     */
+    private ParkingSlot claimSlot(Vehicle vehicle, int zone, SlotRequest request, int gate) {
+        String plate = vehicle.getLicensePlate();
+
         // Check if vehicle is already parked
-        for (ParkingSlot slot : slots) {
-            if (slot.isOccupied() &&
-                    slot.getCurrentVehicle().getLicensePlate().equals(vehicle.getLicensePlate())) {
-                System.out.println("Error: core.Vehicle with this license plate is already parked in the lot.");
-                return false; // Do not proceed with parking
-            }
+        if (plateIndex.get(plate) >= 0) {
+            System.out.println("Error: core.Vehicle with this license plate is already parked in the lot.");
+            return null; // Do not proceed with parking
         }
 
         // Park only if not already parked
-        for (ParkingSlot slot : slots) {
-            if (!slot.isOccupied()) {
-                slot.assignVehicle(vehicle);
-                return true; // Successfully parked the vehicle
+        int freeIndex;
+        if (request == null) {
+            freeIndex = allocator.claimFrom(zone);
+        } else {
+            TypedSlotAllocator typed = typedAllocator;
+            if (typed != null) {
+                freeIndex = typed.claim(request, gate);
+            } else { // Unconfigured lot: every slot is a standard slot
+                freeIndex = SlotAttributes.STANDARD.satisfies(request) ? allocator.claimFrom(0) : -1;
             }
         }
+        if (freeIndex < 0) {
+            System.out.println(request == null ? "Parking lot is full! Cannot park the vehicle."
+                    : "No free slot matches the vehicle's requirements! Cannot park the vehicle.");
+            return null;
+        }
 
-        // If no available slot found
-        System.out.println("Parking lot is full! Cannot park the vehicle.");
-        return false;
+        ParkingSlot slot = slots.get(freeIndex);
+        if (!plateIndex.putIfAbsent(plate, freeIndex)) {
+            // Another gate parked the same plate in the meantime - give the slot back
+            releaseSlot(freeIndex);
+            System.out.println("Error: core.Vehicle with this license plate is already parked in the lot.");
+            return null;
+        }
+        return slot;
     }
 
     // === Observer Pattern Implementation ===
 
     /**
      * Registers a new observer to receive parking state change notifications.
+     * The observer receives the full list of parked vehicles after every change.
      *
      * @param observer The observer to add to the notification list
      */
     public void addObserver(ParkingObserver observer) {
-        observers.add(observer);
+        addEventListener(new ObserverAdapter(observer, this::getVehicles));
     }
 
     /**
-     * Notifies all registered observers of parking state changes.
-     * Sends the current list of parked vehicles to each observer.
+     * Registers a listener that receives one observer.ParkingEvent per change,
+     * describing only the vehicle that entered, left or moved.
+     *
+     * @param listener The listener to add to the notification list
      */
-    private void notifyObservers() {
-        List<Vehicle> currentVehicles = getVehicles();
-        for (ParkingObserver observer : observers) {
-            observer.update(currentVehicles);
+    public synchronized void addEventListener(ParkingEventListener listener) {
+        listeners.add(listener);
+        if (dispatcher != null) {
+            dispatcher.register(listener);
+        }
+    }
+
+    /**
+     * Switches observer notification to asynchronous mode. Each observer gets its own
+     * bounded queue and worker thread; gates only enqueue an event, and bursts of events
+     * are delivered to the observer as a single update with the latest parking state.
+     *
+     * @param queueCapacity Maximum number of undelivered events per observer
+     * @param policy What to do when an observer falls behind and its queue is full
+     * @throws IllegalArgumentException if queueCapacity is not positive or policy is null
+     */
+    public synchronized void enableAsyncNotifications(int queueCapacity, BackpressurePolicy policy) {
+        AsyncObserverDispatcher next = new AsyncObserverDispatcher(queueCapacity, policy);
+        for (ParkingEventListener listener : listeners) {
+            next.register(listener);
+        }
+        AsyncObserverDispatcher previous = dispatcher;
+        dispatcher = next;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Switches observer notification back to synchronous mode and stops the observer threads.
+     * Events that were still queued are discarded.
+     */
+    public synchronized void disableAsyncNotifications() {
+        AsyncObserverDispatcher previous = dispatcher;
+        dispatcher = null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Returns the asynchronous dispatcher, for monitoring queue depth and dropped events.
+     *
+     * @return observer.AsyncObserverDispatcher in use, or null if notifications are synchronous
+     */
+    public AsyncObserverDispatcher getNotificationDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Registers gauges for this lot: occupied and available slots and the number of events
+     * waiting for asynchronous observers, named name + ".occupied", ".available" and
+     * ".observer.queue". Gate latencies are recorded for all lots together (see "lot.*").
+     *
+     * @param registry The registry to register the gauges in
+     * @param name Prefix of the gauge names, e.g. "lot" or the id of the lot
+     */
+    public void exposeMetrics(MetricsRegistry registry, String name) {
+        registry.gauge(name + ".occupied", this::getOccupiedSlots);
+        registry.gauge(name + ".available", this::getAvailableSlots);
+        registry.gauge(name + ".observer.queue", () -> {
+            AsyncObserverDispatcher async = dispatcher;
+            return async != null ? async.getQueueDepth() : 0;
+        });
+    }
+
+    /**
+     * Numbers a parking state change and hands it to the listeners: queued for the synchronous
+     * listeners, which deliverQueuedEvents calls once the gate has released its locks, or, in
+     * asynchronous mode, queued for each listener's worker.
+     *
+     * Must be called inside the critical section that changes the slot: while holding the
+     * slot's monitor and, for an exit, before the slot and the plate are released. A later
+     * change of the same slot or plate can only be made after that, so it always gets a
+     * higher sequence number and listeners see the changes in the order they were applied.
+     *
+     * @param type The kind of change
+     * @param slot The slot the change refers to
+     * @param previousSlotId The slot a moved vehicle came from, otherwise 0
+     * @param vehicle The vehicle that changed
+     * @param fee The fee charged on exit, or null
+     * @param occupiedSlots Number of occupied slots after the change
+     */
+    private void publishEvent(ParkingEvent.Type type, ParkingSlot slot, int previousSlotId,
+                              Vehicle vehicle, BigDecimal fee, int occupiedSlots) {
+        synchronized (eventLock) {
+            ParkingEvent event = new ParkingEvent(++eventSequence, type, slot.getId(), previousSlotId,
+                    vehicle.getLicensePlate(), vehicle.getOwner(), vehicle.getEntryTime(),
+                    vehicle.getExitTime(), fee, occupiedSlots);
+            AsyncObserverDispatcher async = dispatcher;
+            if (async == null) {
+                undelivered.add(event);
+            } else {
+                async.publish(event); // Blocks only under BLOCK with a full queue, keeping the order
+            }
+        }
+    }
+
+    /**
+     * Delivers the queued events to the synchronous listeners, unless another gate is already
+     * delivering them. Checks again after releasing the delivery lock, so an event queued
+     * while the previous deliverer was finishing is not left behind.
+     *
+     * Only numbering and queueing an event is serialized. Synchronous listeners are called
+     * outside that lock by whichever gate finds no other gate delivering: it delivers every
+     * queued event in sequence order, and gates arriving meanwhile return at once, so a slow
+     * listener delays at most the delivering gate instead of every gate of the lot.
+     */
+    private void deliverQueuedEvents() {
+        while (!undelivered.isEmpty() && deliveryLock.tryLock()) {
+            try {
+                ParkingEvent event;
+                while ((event = undelivered.poll()) != null) {
+                    for (ParkingEventListener listener : listeners) {
+                        ObserverMetrics.deliver(listener, event); // Times each listener
+                    }
+                }
+            } finally {
+                deliveryLock.unlock();
+            }
         }
     }
 
@@ -165,18 +597,107 @@ public class ParkingLotManager {
      * - Adds vehicle to historical records
      * - Logs entry in parking history
      * - Notifies all observers of the state change
+     *
+     * @return boolean true if the vehicle was parked, false if it was rejected
+     */
+    public boolean checkInVehicle(Vehicle vehicle) {
+        return checkInVehicle(vehicle, 0);
+    }
+
+    /**
+     * Checks a vehicle in through a gate that prefers the given zone of the lot.
+     * The slot is taken from that zone if it has room, otherwise from the next zones,
+     * so gates serving different zones do not contend on the same allocation lock.
+     *
+     * @param vehicle The vehicle to check into the parking lot
+     * @param zone The preferred zone (see getZoneCount)
+     * @return boolean true if the vehicle was parked, false if it was rejected
+     */
+    public boolean checkInVehicle(Vehicle vehicle, int zone) {
+        return checkIn(vehicle, zone, null, 0) != null;
+    }
+
+    /**
+     * Checks a vehicle in like checkInVehicle and returns the slot it was parked in, for gate
+     * controllers that direct the driver to the slot. Unlike a check-in followed by
+     * findSlotByPlate, the answer cannot be lost to a check-out of the same plate in between.
+     *
+     * @param vehicle The vehicle to check into the parking lot
+     * @return int ID of the slot the vehicle was parked in, or -1 if it was rejected
+     */
+    public int checkInVehicleForSlot(Vehicle vehicle) {
+        ParkingSlot slot = checkIn(vehicle, 0, null, 0);
+        return slot != null ? slot.getId() : -1;
+    }
+
+    /**
+     * Checks a vehicle with special needs in through a gate. The vehicle is parked in the free
+     * slot that satisfies the request with the least waste (no larger slot than needed, no
+     * charger or disabled-access slot unless needed), and among those the one nearest to the
+     * gate. See configureSlots; in a lot without configured slots every slot is a standard slot.
+     *
+     * @param vehicle The vehicle to check into the parking lot
+     * @param request The needs of the vehicle (size, EV charger, disabled access)
+     * @param gate The gate the vehicle arrives at, numbered as in configureSlots
+     * @return boolean true if the vehicle was parked, false if it was rejected
+     * @throws IllegalArgumentException if the gate does not exist in a lot with configured slots
      */
-    public void checkInVehicle(Vehicle vehicle) {
+    public boolean checkInVehicle(Vehicle vehicle, SlotRequest request, int gate) {
+        if (request == null) {
+            throw new IllegalArgumentException("Slot request is required");
+        }
+        return checkIn(vehicle, 0, request, gate) != null;
+    }
+
+    private ParkingSlot checkIn(Vehicle vehicle, int zone, SlotRequest request, int gate) {
+        long start = CHECK_IN_LATENCY.start();
+        CheckInEvent event = new CheckInEvent();
+        event.begin();
+        ParkingSlot slot = null;
+        try {
+            slot = enter(vehicle, zone, request, gate);
+            return slot;
+        } finally {
+            CHECK_IN_LATENCY.stop(start);
+            if (event.shouldCommit()) { // Only while a flight recording is running
+                event.slotId = slot != null ? slot.getId() : 0;
+                event.plateHash = PlateCode.hash(vehicle.getLicensePlate());
+                event.occupiedSlots = getTotalSlots() - getAvailableSlots();
+                event.parked = slot != null;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Parks a vehicle and records its entry.
+     *
+     * @return core.ParkingSlot the vehicle was parked in, or null if it was rejected
+     */
+    private ParkingSlot enter(Vehicle vehicle, int zone, SlotRequest request, int gate) {
         vehicle.setEntryTime(LocalDateTime.now());
-        boolean success = parkVehicle(vehicle);
-        if (success) {
-            // Add vehicle to the complete list
-            allVehicles.add(vehicle);
+        ParkingSlot slot = claimSlot(vehicle, zone, request, gate);
+        if (slot == null) {
+            REJECTED_CHECK_INS.increment();
+            return null;
+        }
+        synchronized (slot) { // An exit from this slot waits until the entry is recorded and numbered
+            long stamp = snapshotEpoch.readLock();
+            try {
+                slot.assignVehicle(vehicle); // Allocator and index are updated by the slot
+                statistics.recordEntry(vehicle.getEntryTime());
+                int occupied = getTotalSlots() - getAvailableSlots();
+                timeSeries.recordArrival(vehicle.getEntryTime(), occupied);
+                publishEvent(ParkingEvent.Type.ENTERED, slot, 0, vehicle, null, occupied);
+            } finally {
+                snapshotEpoch.unlockRead(stamp);
+            }
             // Record entry in history
-            ParkingHistory.addEntryRecord(vehicle);
-            System.out.println("core.Vehicle entered parking lot: " + vehicle.getLicensePlate());
-            notifyObservers(); // Update observers
+            ParkingHistory.addEntryRecord(vehicle, slot.getId());
         }
+        System.out.println("core.Vehicle entered parking lot: " + vehicle.getLicensePlate());
+        deliverQueuedEvents(); // Update observers
+        return slot;
     }
 
     /**
@@ -186,34 +707,320 @@ public class ParkingLotManager {
      * @param licensePlate The license plate of the vehicle to check out
      *
      * Operations performed:
-     * - Locates the vehicle in the parking lot
+     * - Locates the vehicle in the parking lot (license plate index lookup)
      * - Sets exit time to current timestamp
      * - Calculates parking fee
      * - Records exit in parking history
      * - Removes vehicle from parking slot
      * - Notifies all observers of the state change
+     *
+     * @return boolean true if the vehicle was checked out, false if it was not found
      */
-    public void checkOutVehicle(String licensePlate) {
-        for (ParkingSlot slot : slots) {
-            if (slot.isOccupied()) {
+    public boolean checkOutVehicle(String licensePlate) {
+        return checkOutVehicleForFee(licensePlate) >= 0;
+    }
+
+    /**
+     * Checks a vehicle out like checkOutVehicle and returns the fee it was charged, for gate
+     * controllers that show the amount to pay.
+     *
+     * @param licensePlate The license plate of the vehicle to check out
+     * @return long fee in agorot, or -1 if the vehicle was not found
+     */
+    public long checkOutVehicleForFee(String licensePlate) {
+        long start = CHECK_OUT_LATENCY.start();
+        CheckOutEvent event = new CheckOutEvent();
+        event.begin();
+        ParkingSlot slot = null;
+        long feeCents = -1;
+        try {
+            slot = findSlotByPlate(licensePlate);
+            feeCents = exit(slot, licensePlate);
+            return feeCents;
+        } finally {
+            CHECK_OUT_LATENCY.stop(start);
+            if (event.shouldCommit()) { // Only while a flight recording is running
+                event.slotId = feeCents >= 0 ? slot.getId() : 0;
+                event.plateHash = PlateCode.hash(licensePlate);
+                event.occupiedSlots = getTotalSlots() - getAvailableSlots();
+                event.found = feeCents >= 0;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Releases the slot of a vehicle and records its exit.
+     *
+     * @param slot The slot the plate index points to, or null
+     * @param licensePlate The license plate of the vehicle
+     * @return long fee in agorot, or -1 if the vehicle was not found
+     */
+    private long exit(ParkingSlot slot, String licensePlate) {
+        if (slot != null) {
+            long plateCode = PlateCode.encode(licensePlate);
+            Vehicle released = null;
+            BigDecimal fee = null;
+            long charged = -1;
+            synchronized (slot) { // Only one gate may release a given slot
                 Vehicle v = slot.getCurrentVehicle();
-                if (v.getLicensePlate().equals(licensePlate) && v.getExitTime() == null) {
+                if (v != null && hasPlate(v, plateCode, licensePlate) && v.getExitTime() == null) {
                     v.setExitTime(LocalDateTime.now());
-                    var fee = FeeCalculator.calculateFee(v);
+                    FeeEvent feeEvent = new FeeEvent();
+                    feeEvent.begin();
+                    long feeCents = FeeCalculator.calculateFeeCents(v, getTariffs());
+                    if (feeEvent.shouldCommit()) { // Only while a flight recording is running
+                        feeEvent.slotId = slot.getId();
+                        feeEvent.plateHash = PlateCode.hash(licensePlate);
+                        feeEvent.vehicleClass = v.getVehicleClass();
+                        feeEvent.feeCents = feeCents;
+                        feeEvent.commit();
+                    }
+                    fee = FeeCalculator.toAmount(feeCents);
 
-                    // Record exit in history
-                    ParkingHistory.addExitRecord(v, fee.toString());
+                    // Record exit in history, before the slot and the plate can be taken again
+                    ParkingHistory.addExitRecord(v, fee.toString(), slot.getId());
                     System.out.println("core.Vehicle exited parking lot. Amount to pay: " + fee + " NIS");
 
-                    // Remove vehicle from slot
-                    slot.removeVehicle();
-
-                    notifyObservers(); // Update observers
-                    return;
+                    // Remove vehicle from slot and keep it in the session archive
+                    long stamp = snapshotEpoch.readLock();
+                    try {
+                        statistics.recordExit(v.getEntryTime(), v.getExitTime(), feeCents);
+                        // Numbered while the plate is still claimed, so a re-entry is numbered after it
+                        publishEvent(ParkingEvent.Type.EXITED, slot, 0, v, fee,
+                                getTotalSlots() - getAvailableSlots() - 1);
+                        slot.removeVehicle();
+                        timeSeries.recordDeparture(v.getExitTime(), getTotalSlots() - getAvailableSlots(), feeCents);
+                        archive.add(v, feeCents);
+                    } finally {
+                        snapshotEpoch.unlockRead(stamp);
+                    }
+                    released = v;
+                    charged = feeCents;
                 }
             }
+            if (released != null) {
+                deliverQueuedEvents(); // Update observers
+                return charged;
+            }
         }
         System.out.println("core.Vehicle not found in parking lot.");
+        UNKNOWN_CHECK_OUTS.increment();
+        return -1;
+    }
+
+    /**
+     * Moves a parked vehicle to another free slot, for example when a slot has to be
+     * cleared for maintenance. The target slot is claimed atomically before the vehicle
+     * leaves its current slot, so the vehicle is never without a slot.
+     *
+     * @param licensePlate The license plate of the vehicle to move
+     * @param targetSlotId The id of the free slot to move the vehicle to
+     * @return boolean true if the vehicle was moved, false if it is not parked or the target is not free
+     */
+    public boolean moveVehicle(String licensePlate, int targetSlotId) {
+        if (targetSlotId < 1 || targetSlotId > getTotalSlots()) {
+            System.out.println("Error: Slot " + targetSlotId + " does not exist.");
+            return false;
+        }
+        ParkingSlot source = findSlotByPlate(licensePlate);
+        if (source == null) {
+            System.out.println("core.Vehicle not found in parking lot.");
+            return false;
+        }
+
+        Vehicle moved = null;
+        ParkingSlot target = slots.get(targetSlotId - 1);
+        synchronized (source) {
+            Vehicle v = source.getCurrentVehicle();
+            if (v != null && hasPlate(v, PlateCode.encode(licensePlate), licensePlate) && source != target
+                    && allocator.tryClaim(targetSlotId - 1)) {
+                synchronized (target) { // An exit from the target slot waits until the move is numbered
+                    long stamp = snapshotEpoch.readLock(); // A snapshot must not see the vehicle twice
+                    try {
+                        target.assignVehicle(v);  // Index now points at the target slot
+                        source.removeVehicle();   // Frees the source slot
+                        publishEvent(ParkingEvent.Type.SLOT_CHANGED, target, source.getId(), v, null,
+                                getTotalSlots() - getAvailableSlots());
+                    } finally {
+                        snapshotEpoch.unlockRead(stamp);
+                    }
+                }
+                moved = v;
+            }
+        }
+        if (moved == null) {
+            System.out.println("Error: Slot " + targetSlotId + " is not available.");
+            return false;
+        }
+        deliverQueuedEvents(); // Update observers
+        return true;
+    }
+
+    /**
+     * Rebuilds the lot state from recovered history records, typically the records returned by
+     * services.ParkingHistory.openJournal on startup. Vehicles with an ENTRY and a later EXIT record
+     * are added to the session archive with the fee recorded on exit (the tariffs may have changed
+     * since); vehicles without a later EXIT record are parked again, in their recorded slot if it
+     * is free, otherwise in the lowest free slot.
+     * The live statistics are updated with the restored vehicles and the recorded fees.
+     * No history records are written and no observers are notified.
+     *
+     * @param records History records, oldest first
+     * @return int number of vehicles parked again
+     */
+    public int restoreFromHistory(List<ParkingHistory.HistoryEntry> records) {
+        Map<String, Vehicle> open = new LinkedHashMap<>();
+        Map<String, Integer> openSlots = new HashMap<>();
+        List<Vehicle> restoredVehicles = new ArrayList<>();
+        Map<Vehicle, Long> charged = new IdentityHashMap<>();
+        for (ParkingHistory.HistoryEntry record : records) {
+            if ("ENTRY".equals(record.getAction())) {
+                Vehicle vehicle;
+                try {
+                    vehicle = new Vehicle(record.getLicensePlate(), record.getOwner(), PlateFormats.ANY);
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Skipping invalid history record: " + e.getMessage());
+                    continue;
+                }
+                vehicle.setEntryTime(record.getTimestamp());
+                restoredVehicles.add(vehicle);
+                open.put(vehicle.getLicensePlate(), vehicle);
+                openSlots.put(vehicle.getLicensePlate(), record.getSlotId());
+            } else {
+                Vehicle vehicle = open.remove(record.getLicensePlate());
+                if (vehicle != null) {
+                    vehicle.setExitTime(record.getTimestamp());
+                    long feeCents = record.getFeeCents();
+                    if (feeCents < 0) { // Record without a readable fee: price it as at check-out
+                        feeCents = FeeCalculator.calculateFeeCents(vehicle, getTariffs());
+                    }
+                    archive.add(vehicle, feeCents);
+                    charged.put(vehicle, feeCents);
+                }
+            }
+        }
+
+        for (Vehicle vehicle : restoredVehicles) {
+            statistics.recordEntry(vehicle.getEntryTime());
+            Long feeCents = charged.get(vehicle);
+            if (feeCents != null) {
+                statistics.recordExit(vehicle.getEntryTime(), vehicle.getExitTime(), feeCents);
+            }
+        }
+
+        int restored = 0;
+        for (Vehicle vehicle : open.values()) {
+            if (plateIndex.get(vehicle.getLicensePlate()) >= 0) {
+                continue; // Already parked in this lot
+            }
+            if (restoreVehicle(openSlots.get(vehicle.getLicensePlate()), vehicle)) {
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Parks a recovered vehicle in its recorded slot if it is free, otherwise in the lowest
+     * free slot. No history records are written and no observers are notified.
+     *
+     * @param slotId The slot the vehicle was parked in
+     * @param vehicle The recovered vehicle
+     * @return boolean true if the vehicle was parked, false if the lot is full
+     */
+    boolean restoreVehicle(int slotId, Vehicle vehicle) {
+        int index = slotId >= 1 && slotId <= getTotalSlots() && allocator.tryClaim(slotId - 1)
+                ? slotId - 1 : allocator.claimLowestFree();
+        if (index < 0) {
+            System.out.println("Parking lot is full! Cannot restore " + vehicle.getLicensePlate());
+            return false;
+        }
+        ParkingSlot slot = slots.get(index);
+        plateIndex.put(vehicle.getLicensePlate(), index);
+        slot.assignVehicle(vehicle);
+        return true;
+    }
+
+    // === Snapshots ===
+
+    /**
+     * Saves the state of the lot (parked vehicles, live statistics, time series and archived
+     * sessions) to a snapshot file. Gates pause only while the state is copied in memory, so
+     * every gate operation is either completely in the snapshot or not at all. See core.LotSnapshot.
+     *
+     * @param file The snapshot file; it is replaced atomically
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void saveSnapshot(Path file) throws IOException {
+        LotSnapshot.write(this, file);
+    }
+
+    /**
+     * Saves a snapshot on a background thread, so the caller does not wait for the disk.
+     *
+     * @param file The snapshot file; it is replaced atomically
+     * @return CompletableFuture<Path> completed with the file, or exceptionally with an
+     *         UncheckedIOException if the snapshot could not be written
+     */
+    public CompletableFuture<Path> saveSnapshotInBackground(Path file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                LotSnapshot.write(this, file);
+                return file;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write snapshot " + file, e);
+            }
+        }, task -> {
+            Thread thread = new Thread(task, "lot-snapshot");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Restarts a lot from a snapshot written by saveSnapshot. The file is memory-mapped and
+     * the archived sessions are bulk-copied out of it. Tariffs, slot attributes and listeners
+     * are configuration and have to be set up again.
+     *
+     * @param file The snapshot file
+     * @return core.ParkingLotManager with the saved state, as a new independent lot
+     * @throws IOException if the file cannot be read, is corrupt or has an unknown format version
+     */
+    public static ParkingLotManager loadSnapshot(Path file) throws IOException {
+        return LotSnapshot.read(file);
+    }
+
+    /**
+     * Returns the sequence number of the last event published by this lot.
+     *
+     * @return long event sequence (0 before the first event)
+     */
+    long getEventSequence() {
+        synchronized (eventLock) {
+            return eventSequence;
+        }
+    }
+
+    /**
+     * Returns the lock that a snapshot holds while it copies the lot state. Gate operations
+     * hold its read side, so while it is held no check-in, check-out or move is half done.
+     *
+     * @return StampedLock of the lot's snapshot epochs
+     */
+    StampedLock getSnapshotEpoch() {
+        return snapshotEpoch;
+    }
+
+    /**
+     * Continues the event numbering of a restored lot after the given sequence.
+     *
+     * @param sequence Sequence of the last event before the snapshot
+     */
+    void restoreEventSequence(long sequence) {
+        synchronized (eventLock) {
+            eventSequence = sequence;
+        }
     }
 
     /**
@@ -221,6 +1028,24 @@ public class ParkingLotManager {
      * Shows detailed information about all vehicles that have ever used the parking lot.
      */
     public void printFullReport() {
-        ParkingLog.displayFullReport(allVehicles, getTotalSlots()); // Use complete vehicle history
+        ParkingLog.displayFullReport(vehicleHistory(), getTotalSlots()); // Streams the complete vehicle history
+    }
+
+    /**
+     * Streams the full parking report to a report writer, e.g. a CSV or JSON file.
+     *
+     * @param out The report writer; it is flushed but not closed
+     */
+    public void printFullReport(ReportWriter out) {
+        ParkingLog.displayFullReport(vehicleHistory(), getTotalSlots(), out);
+    }
+
+    /**
+     * Returns all vehicles that have ever used the lot: archived sessions first, then the
+     * vehicles currently parked. Archived sessions are read lazily, across memory and disk.
+     */
+    private Iterable<Vehicle> vehicleHistory() {
+        List<Vehicle> parked = getVehicles();
+        return () -> Stream.concat(StreamSupport.stream(archive.spliterator(), false), parked.stream()).iterator();
     }
 }
\ No newline at end of file
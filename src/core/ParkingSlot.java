@@ -6,10 +6,16 @@ package core;
  * unique identifier and the vehicle currently occupying it (if any). This class
  * provides essential functionality for slot management, vehicle assignment, and
  * occupancy tracking within the parking management system.
+ *
+ * A standalone slot keeps its vehicle itself. The slots of a core.ParkingLotManager keep
+ * their state in the lot's core.SlotStore, which holds all slots in flat arrays.
  */
 public class ParkingSlot {
     private int id; // Unique identifier of the slot (sequential number)
-    private Vehicle currentVehicle; // The vehicle currently occupying the slot (if any)
+    private volatile Vehicle currentVehicle; // The vehicle currently occupying the slot (if any, standalone slots)
+    private final SlotStore store; // Array storage of the owning lot (null for standalone slots)
+    private SlotListener listener; // Keeps the owning lot's indexes in sync (null for standalone slots)
+    private volatile SlotAttributes attributes = SlotAttributes.STANDARD; // Level, zone, size and features
 
     /**
      * Constructor - Creates a parking slot with a unique identifier, initially empty.
@@ -20,6 +26,18 @@ public class ParkingSlot {
     public ParkingSlot(int id) {
         this.id = id;
         this.currentVehicle = null;
+        this.store = null;
+    }
+
+    /**
+     * Constructor - Creates a slot whose state is kept in the given slot store.
+     *
+     * @param id The unique identifier for this parking slot (index in the store + 1)
+     * @param store The array storage of the lot that owns the slot
+     */
+    ParkingSlot(int id, SlotStore store) {
+        this.id = id;
+        this.store = store;
     }
 
     /**
@@ -31,13 +49,31 @@ public class ParkingSlot {
         return id;
     }
 
+    /**
+     * Returns the physical attributes of this slot (level, zone, size, EV charger, disabled access).
+     *
+     * @return core.SlotAttributes of the slot, SlotAttributes.STANDARD unless configured
+     */
+    public SlotAttributes getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Sets the physical attributes of this slot.
+     *
+     * @param attributes The slot attributes
+     */
+    void setAttributes(SlotAttributes attributes) {
+        this.attributes = attributes;
+    }
+
     /**
      * Checks if the parking slot is currently occupied by a vehicle.
      *
      * @return boolean true if the slot is occupied (has a vehicle), false if empty
      */
     public boolean isOccupied() {
-        return currentVehicle != null;
+        return store != null ? store.isOccupied(id - 1) : currentVehicle != null;
     }
 
     /**
@@ -48,7 +84,14 @@ public class ParkingSlot {
      * @param vehicle The vehicle object to assign to this slot
      */
     public void assignVehicle(Vehicle vehicle) {
-        this.currentVehicle = vehicle;
+        if (vehicle == null) {
+            removeVehicle();
+            return;
+        }
+        Vehicle previous = exchange(vehicle);
+        if (listener != null) {
+            listener.vehicleAssigned(this, previous);
+        }
     }
 
     /**
@@ -57,7 +100,29 @@ public class ParkingSlot {
      * by setting the current vehicle reference to null.
      */
     public void removeVehicle() {
-        this.currentVehicle = null;
+        Vehicle previous = exchange(null);
+        if (listener != null) {
+            listener.vehicleRemoved(this, previous);
+        }
+    }
+
+    private Vehicle exchange(Vehicle vehicle) {
+        if (store != null) {
+            return store.set(id - 1, vehicle);
+        }
+        Vehicle previous = this.currentVehicle;
+        this.currentVehicle = vehicle;
+        return previous;
+    }
+
+    /**
+     * Connects this slot to the lot that owns it, so that every assignment and removal
+     * keeps the lot's free-slot allocator and license plate index in sync with the slot state.
+     *
+     * @param listener The listener notified after every change of the slot's occupant
+     */
+    void attachListener(SlotListener listener) {
+        this.listener = listener;
     }
 
     /**
@@ -66,6 +131,6 @@ public class ParkingSlot {
      * @return core.Vehicle object currently assigned to this slot, or null if the slot is empty
      */
     public Vehicle getCurrentVehicle() {
-        return currentVehicle;
+        return store != null ? store.get(id - 1) : currentVehicle;
     }
 }
\ No newline at end of file
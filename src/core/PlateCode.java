@@ -0,0 +1,96 @@
+package core;
+
+/**
+ * The core.PlateCode class packs a license plate into a single long so that plates can be
+ * stored, hashed and compared as primitives instead of Strings. Every character of a plate
+ * of up to 8 ASCII letters and digits takes 6 bits (digits 1-10, upper case 11-36, lower case
+ * 37-62; 0 means "no character"), so different plates always get different codes and the
+ * plate can be decoded again.
+ *
+ * Plates that do not fit (longer, or with other characters, e.g. from a custom country
+ * format) have no code; encode returns NONE for them and callers keep using the String.
+ */
+public final class PlateCode {
+    /** Code of plates that cannot be packed into a long. */
+    public static final long NONE = -1;
+
+    private static final int MAX_LENGTH = 8;
+    private static final char[] CHARACTERS =
+            "_0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private PlateCode() {
+    }
+
+    /**
+     * Packs a license plate into a long without allocating.
+     *
+     * @param plate The license plate
+     * @return long code of the plate, or NONE if it cannot be packed
+     */
+    public static long encode(String plate) {
+        if (plate == null || plate.isEmpty() || plate.length() > MAX_LENGTH) {
+            return NONE;
+        }
+        long code = 0;
+        for (int i = 0; i < plate.length(); i++) {
+            int value = valueOf(plate.charAt(i));
+            if (value == 0) {
+                return NONE;
+            }
+            code = (code << 6) | value;
+        }
+        return code;
+    }
+
+    /**
+     * Restores the license plate of a code.
+     *
+     * @param code A code returned by encode (not NONE)
+     * @return String license plate
+     */
+    public static String decode(long code) {
+        char[] plate = new char[MAX_LENGTH];
+        int start = MAX_LENGTH;
+        while (code != 0) {
+            plate[--start] = CHARACTERS[(int) (code & 63)];
+            code >>>= 6;
+        }
+        return new String(plate, start, MAX_LENGTH - start);
+    }
+
+    /**
+     * Returns a well-spread hash of a code, for hash tables keyed by plate codes.
+     *
+     * @param code A plate code
+     * @return int hash of the code
+     */
+    public static int hash(long code) {
+        long h = code * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns a hash of a license plate that identifies the plate in diagnostics (e.g. flight
+     * recordings) without recording the plate itself. Equal plates get equal hashes.
+     *
+     * @param plate The license plate
+     * @return int hash of the plate, 0 for null
+     */
+    public static int hash(String plate) {
+        long code = encode(plate);
+        return code != NONE ? hash(code) : plate == null ? 0 : plate.hashCode();
+    }
+
+    private static int valueOf(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 11;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 37;
+        }
+        return 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package core;
+
+import java.util.regex.Pattern;
+
+/**
+ * The core.PlateFormat interface describes which license plates are valid in a country.
+ * core.Vehicle checks every new plate against a format, so formats are built once and must
+ * be cheap to apply: the character-class formats scan the plate by hand without creating
+ * any objects, and pattern formats compile their regular expression only once.
+ *
+ * Formats are registered per country in core.PlateFormats (Strategy pattern).
+ */
+public interface PlateFormat {
+
+    /**
+     * Checks whether a license plate has this format.
+     *
+     * @param plate The license plate to check, may be null
+     * @return boolean true if the plate is valid, false otherwise
+     */
+    boolean isValid(String plate);
+
+    /**
+     * Returns the message shown when a license plate does not have this format.
+     *
+     * @return String describing the valid plates
+     */
+    String getErrorMessage();
+
+    /**
+     * Creates a format for plates of letters (A-Z, a-z) and digits only.
+     *
+     * @param minLength Minimum number of characters
+     * @param maxLength Maximum number of characters
+     * @return core.PlateFormat checked by a character scan
+     */
+    static PlateFormat alphanumeric(int minLength, int maxLength) {
+        return new CharacterClassFormat(minLength, maxLength, true,
+                "License plate must contain only letters and numbers (" + minLength + "-" + maxLength + " characters)");
+    }
+
+    /**
+     * Creates a format for plates of digits only.
+     *
+     * @param minLength Minimum number of digits
+     * @param maxLength Maximum number of digits
+     * @return core.PlateFormat checked by a character scan
+     */
+    static PlateFormat digits(int minLength, int maxLength) {
+        return new CharacterClassFormat(minLength, maxLength, false,
+                "License plate must contain only numbers (" + minLength + "-" + maxLength + " digits)");
+    }
+
+    /**
+     * Creates a format from a regular expression, which is compiled once.
+     *
+     * @param regex The regular expression the whole plate must match
+     * @param errorMessage The message shown for plates that do not match
+     * @return core.PlateFormat checked with the precompiled pattern
+     * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+     */
+    static PlateFormat pattern(String regex, String errorMessage) {
+        Pattern pattern = Pattern.compile(regex);
+        return new PlateFormat() {
+            @Override
+            public boolean isValid(String plate) {
+                return plate != null && pattern.matcher(plate).matches();
+            }
+
+            @Override
+            public String getErrorMessage() {
+                return errorMessage;
+            }
+        };
+    }
+
+    /**
+     * Plate format that accepts a length range of ASCII digits and, optionally, ASCII letters.
+     */
+    final class CharacterClassFormat implements PlateFormat {
+        private final int minLength;
+        private final int maxLength;
+        private final boolean letters;
+        private final String errorMessage;
+
+        private CharacterClassFormat(int minLength, int maxLength, boolean letters, String errorMessage) {
+            if (minLength < 1 || maxLength < minLength) {
+                throw new IllegalArgumentException("Invalid plate length range " + minLength + "-" + maxLength);
+            }
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            this.letters = letters;
+            this.errorMessage = errorMessage;
+        }
+
+        @Override
+        public boolean isValid(String plate) {
+            if (plate == null || plate.length() < minLength || plate.length() > maxLength) {
+                return false;
+            }
+            for (int i = 0; i < plate.length(); i++) {
+                char c = plate.charAt(i);
+                boolean valid = (c >= '0' && c <= '9')
+                        || (letters && ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')));
+                if (!valid) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package core;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The core.PlateFormats class is the registry of license plate formats by country code.
+ * New countries can be added at runtime with register; core.Vehicle looks formats up here.
+ *
+ * The default format (used when no country is given) is the original rule of the system:
+ * 5-8 letters and digits.
+ */
+public final class PlateFormats {
+    /** Format used for vehicles created without a country: 5-8 letters and digits. */
+    public static final PlateFormat DEFAULT = PlateFormat.alphanumeric(5, 8);
+
+    /**
+     * Format that accepts every non-empty plate. Used to rebuild vehicles from history,
+     * archives, snapshots and replication, whose plates were validated at check-in, possibly
+     * against another country's format.
+     */
+    public static final PlateFormat ANY = new PlateFormat() {
+        @Override
+        public boolean isValid(String plate) {
+            return plate != null && !plate.isEmpty();
+        }
+
+        @Override
+        public String getErrorMessage() {
+            return "License plate cannot be empty";
+        }
+    };
+
+    private static final Map<String, PlateFormat> formats = new ConcurrentHashMap<>();
+
+    static {
+        formats.put("IL", PlateFormat.digits(7, 8));
+        formats.put("GB", PlateFormat.pattern("[A-Z]{2}[0-9]{2}[A-Z]{3}",
+                "License plate must have the form AB12CDE"));
+    }
+
+    private PlateFormats() {
+    }
+
+    /**
+     * Registers or replaces the plate format of a country.
+     *
+     * @param country The country code, e.g. "IL" (case-insensitive)
+     * @param format The plate format of that country
+     */
+    public static void register(String country, PlateFormat format) {
+        if (country == null || country.isBlank() || format == null) {
+            throw new IllegalArgumentException("Country and plate format are required");
+        }
+        formats.put(country.toUpperCase(Locale.ROOT), format);
+    }
+
+    /**
+     * Returns the plate format of a country.
+     *
+     * @param country The country code, e.g. "IL" (case-insensitive)
+     * @return core.PlateFormat of that country
+     * @throws IllegalArgumentException if no format is registered for the country
+     */
+    public static PlateFormat forCountry(String country) {
+        PlateFormat format = country == null ? null : formats.get(country.toUpperCase(Locale.ROOT));
+        if (format == null) {
+            throw new IllegalArgumentException("No license plate format for country: " + country);
+        }
+        return format;
+    }
+}
\ No newline at end of file
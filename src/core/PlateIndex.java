@@ -0,0 +1,172 @@
+package core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The core.PlateIndex class maps the license plate of every parked vehicle to its slot index.
+ * Plates are looked up by their core.PlateCode, so a lookup encodes the plate once and then
+ * only hashes and compares longs; keys and values are kept in primitive arrays (open
+ * addressing with linear probing) instead of boxed map entries.
+ *
+ * The table is split into independently locked stripes so that gates working on different
+ * plates rarely contend. Plates that have no code fall back to a ConcurrentHashMap.
+ */
+final class PlateIndex {
+    private static final int STRIPES = 16;
+    private static final int EMPTY = 0; // No plate has code 0
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<String, Integer> uncoded = new ConcurrentHashMap<>();
+
+    /**
+     * One lock-protected open addressing table from plate code to slot index.
+     */
+    private static final class Stripe {
+        long[] codes = new long[16];
+        int[] slots = new int[16];
+        int size;
+
+        int find(long code) {
+            int mask = codes.length - 1;
+            for (int i = PlateCode.hash(code) & mask; ; i = (i + 1) & mask) {
+                if (codes[i] == code || codes[i] == EMPTY) {
+                    return i;
+                }
+            }
+        }
+
+        void insert(long code, int slot) {
+            int i = find(code);
+            if (codes[i] == EMPTY) {
+                codes[i] = code;
+                size++;
+            }
+            slots[i] = slot;
+            if (size * 2 > codes.length) {
+                grow();
+            }
+        }
+
+        void delete(int i) {
+            // Backward shift deletion keeps probe sequences intact without tombstones
+            int mask = codes.length - 1;
+            int hole = i;
+            for (int j = (i + 1) & mask; codes[j] != EMPTY; j = (j + 1) & mask) {
+                int home = PlateCode.hash(codes[j]) & mask;
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    codes[hole] = codes[j];
+                    slots[hole] = slots[j];
+                    hole = j;
+                }
+            }
+            codes[hole] = EMPTY;
+            size--;
+        }
+
+        void grow() {
+            long[] oldCodes = codes;
+            int[] oldSlots = slots;
+            codes = new long[oldCodes.length * 2];
+            slots = new int[oldCodes.length * 2];
+            size = 0;
+            for (int i = 0; i < oldCodes.length; i++) {
+                if (oldCodes[i] != EMPTY) {
+                    insert(oldCodes[i], oldSlots[i]);
+                }
+            }
+        }
+    }
+
+    PlateIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private Stripe stripeOf(long code) {
+        return stripes[(PlateCode.hash(code) >>> 28) & (STRIPES - 1)];
+    }
+
+    /**
+     * Returns the slot index of a parked plate.
+     *
+     * @param plate The license plate
+     * @return int zero-based slot index, or -1 if the plate is not parked
+     */
+    int get(String plate) {
+        long code = PlateCode.encode(plate);
+        if (code == PlateCode.NONE) {
+            Integer slot = plate == null ? null : uncoded.get(plate);
+            return slot != null ? slot : -1;
+        }
+        Stripe stripe = stripeOf(code);
+        synchronized (stripe) {
+            int i = stripe.find(code);
+            return stripe.codes[i] == code ? stripe.slots[i] : -1;
+        }
+    }
+
+    /**
+     * Maps a plate to a slot index unless the plate is already mapped.
+     *
+     * @param plate The license plate
+     * @param slot Zero-based slot index
+     * @return boolean true if the mapping was added, false if the plate was already present
+     */
+    boolean putIfAbsent(String plate, int slot) {
+        long code = PlateCode.encode(plate);
+        if (code == PlateCode.NONE) {
+            return uncoded.putIfAbsent(plate, slot) == null;
+        }
+        Stripe stripe = stripeOf(code);
+        synchronized (stripe) {
+            if (stripe.codes[stripe.find(code)] == code) {
+                return false;
+            }
+            stripe.insert(code, slot);
+            return true;
+        }
+    }
+
+    /**
+     * Maps a plate to a slot index, replacing any previous mapping.
+     *
+     * @param plate The license plate
+     * @param slot Zero-based slot index
+     */
+    void put(String plate, int slot) {
+        long code = PlateCode.encode(plate);
+        if (code == PlateCode.NONE) {
+            uncoded.put(plate, slot);
+            return;
+        }
+        Stripe stripe = stripeOf(code);
+        synchronized (stripe) {
+            stripe.insert(code, slot);
+        }
+    }
+
+    /**
+     * Removes the mapping of a plate if it still points at the given slot index.
+     *
+     * @param plate The license plate
+     * @param slot Zero-based slot index
+     * @return boolean true if the mapping was removed
+     */
+    boolean remove(String plate, int slot) {
+        long code = PlateCode.encode(plate);
+        if (code == PlateCode.NONE) {
+            return uncoded.remove(plate, slot);
+        }
+        Stripe stripe = stripeOf(code);
+        synchronized (stripe) {
+            int i = stripe.find(code);
+            if (stripe.codes[i] != code || stripe.slots[i] != slot) {
+                return false;
+            }
+            stripe.delete(i);
+            return true;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,503 @@
+package core;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The core.SessionArchive class stores completed parking sessions (vehicles that have left
+ * the lot) in a compact columnar form instead of keeping every core.Vehicle object forever.
+ * Sessions are appended to fixed-size segments that hold one primitive array per column
+ * (plate id, owner id, entry time, exit time, fee in agorot); plates and owners are stored
+ * once in dictionaries and referenced by id. Times are kept to the nanosecond, as an epoch
+ * second and a nano column each, so a session read back has exactly the stay it was charged for.
+ *
+ * Full segments are sealed. When a spill directory is configured, sealed segments beyond the
+ * configured number of resident segments are written to disk and only read back while the
+ * archive is iterated, so heap usage stays bounded however many vehicles the lot has served.
+ * Spill files carry the lot's prefix, so several lots can share one spill directory.
+ *
+ * Iteration turns sessions back into core.Vehicle objects one at a time, across the in-memory
+ * and on-disk tiers, so reports can read the archive without materializing it.
+ * All methods are thread-safe; iteration works on a snapshot and never blocks the gates.
+ */
+public class SessionArchive implements Iterable<Vehicle> {
+    private static final int DEFAULT_SEGMENT_SIZE = 4096;
+    private static final int BYTES_PER_SESSION = 4 + 4 + 4 + 4 + 8 + 8 + 8;
+
+    private final int segmentSize;
+    private final List<String> plates = new ArrayList<>();
+    private final Map<String, Integer> plateIds = new HashMap<>();
+    private final List<String> owners = new ArrayList<>();
+    private final Map<String, Integer> ownerIds = new HashMap<>();
+    private final List<Segment> sealed = new ArrayList<>();
+    private Segment open;
+    private long sessionCount;
+
+    private Path spillDirectory;   // null = keep every segment in memory
+    private String spillPrefix;
+    private int maxResidentSegments = Integer.MAX_VALUE;
+    private int spilledSegments;
+
+    /**
+     * A block of sessions stored column by column. Once sealed it is never modified,
+     * except that its columns may be moved to a spill file.
+     */
+    private static final class Segment {
+        int[] plateIds;
+        int[] ownerIds;
+        int[] entryNanos;
+        int[] exitNanos;
+        long[] entrySeconds;
+        long[] exitSeconds;
+        long[] feeCents;
+        int size;
+        Path file; // Set when the columns were spilled to disk
+
+        Segment(int capacity) {
+            plateIds = new int[capacity];
+            ownerIds = new int[capacity];
+            entryNanos = new int[capacity];
+            exitNanos = new int[capacity];
+            entrySeconds = new long[capacity];
+            exitSeconds = new long[capacity];
+            feeCents = new long[capacity];
+        }
+
+        Segment copy() {
+            Segment copy = new Segment(0);
+            copy.plateIds = plateIds.clone();
+            copy.ownerIds = ownerIds.clone();
+            copy.entryNanos = entryNanos.clone();
+            copy.exitNanos = exitNanos.clone();
+            copy.entrySeconds = entrySeconds.clone();
+            copy.exitSeconds = exitSeconds.clone();
+            copy.feeCents = feeCents.clone();
+            copy.size = size;
+            return copy;
+        }
+    }
+
+    /**
+     * Creates an archive with the default segment size that keeps all segments in memory.
+     */
+    public SessionArchive() {
+        this(DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates an archive with the given segment size that keeps all segments in memory.
+     *
+     * @param segmentSize Number of sessions per segment (at least 1)
+     * @throws IllegalArgumentException if segmentSize is not positive
+     */
+    public SessionArchive(int segmentSize) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("Segment size must be at least 1");
+        }
+        this.segmentSize = segmentSize;
+        this.open = new Segment(segmentSize);
+    }
+
+    /**
+     * Enables spilling of sealed segments to disk. At most maxResidentSegments sealed segments
+     * are kept in memory; older ones are written to files named "<prefix>-sessions-<n>.seg"
+     * in the given directory.
+     *
+     * @param directory Directory for spill files (created if missing)
+     * @param prefix Prefix of this archive's spill files, e.g. the lot id; it must differ for
+     *               every archive spilling into the same directory
+     * @param maxResidentSegments Number of sealed segments kept in memory (0 or more)
+     * @throws IOException if the directory cannot be created or a segment cannot be written
+     */
+    public synchronized void enableSpill(Path directory, String prefix, int maxResidentSegments)
+            throws IOException {
+        if (maxResidentSegments < 0) {
+            throw new IllegalArgumentException("Resident segment count cannot be negative");
+        }
+        if (prefix == null || prefix.isEmpty()) {
+            throw new IllegalArgumentException("Spill file prefix cannot be empty");
+        }
+        Files.createDirectories(directory);
+        this.spillDirectory = directory;
+        this.spillPrefix = prefix;
+        this.maxResidentSegments = maxResidentSegments;
+        spillExcess();
+    }
+
+    /**
+     * Archives a vehicle that has left the lot.
+     *
+     * @param vehicle The vehicle, with entry and exit times set
+     * @param feeCents The fee it paid, in agorot (cents)
+     * @throws UncheckedIOException if a segment had to be spilled and could not be written
+     */
+    public synchronized void add(Vehicle vehicle, long feeCents) {
+        int index = open.size;
+        open.plateIds[index] = intern(vehicle.getLicensePlate(), plates, plateIds);
+        open.ownerIds[index] = intern(vehicle.getOwner(), owners, ownerIds);
+        setTime(open.entrySeconds, open.entryNanos, index, vehicle.getEntryTime());
+        setTime(open.exitSeconds, open.exitNanos, index, vehicle.getExitTime());
+        open.feeCents[index] = feeCents;
+        open.size++;
+        sessionCount++;
+
+        if (open.size == segmentSize) {
+            sealed.add(open);
+            open = new Segment(segmentSize);
+            try {
+                spillExcess();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not spill parking sessions to disk", e);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of archived sessions.
+     *
+     * @return long session count across all tiers
+     */
+    public synchronized long size() {
+        return sessionCount;
+    }
+
+    /**
+     * Returns the number of sealed segments currently stored on disk.
+     *
+     * @return int spilled segment count
+     */
+    public synchronized int getSpilledSegments() {
+        return spilledSegments;
+    }
+
+    /**
+     * Returns an iterator over all archived sessions, oldest first, as core.Vehicle objects.
+     * The iterator works on a snapshot taken now; spilled segments are read one at a time.
+     *
+     * @return Iterator<core.Vehicle> over the archived vehicles
+     * @throws UncheckedIOException during iteration if a spill file cannot be read
+     */
+    @Override
+    public Iterator<Vehicle> iterator() {
+        List<Segment> snapshot;
+        String[] plateNames;
+        String[] ownerNames;
+        synchronized (this) {
+            snapshot = new ArrayList<>(sealed);
+            if (open.size > 0) {
+                snapshot.add(open.copy());
+            }
+            plateNames = plates.toArray(new String[0]);
+            ownerNames = owners.toArray(new String[0]);
+        }
+
+        return new Iterator<>() {
+            private int segmentIndex;
+            private Segment current;
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || row >= current.size) {
+                    if (segmentIndex >= snapshot.size()) {
+                        return false;
+                    }
+                    current = resident(snapshot.get(segmentIndex++));
+                    row = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Vehicle next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Vehicle vehicle = new Vehicle(plateNames[current.plateIds[row]], ownerNames[current.ownerIds[row]],
+                        PlateFormats.ANY);
+                vehicle.setEntryTime(toTime(current.entrySeconds[row], current.entryNanos[row]));
+                vehicle.setExitTime(toTime(current.exitSeconds[row], current.exitNanos[row]));
+                row++;
+                return vehicle;
+            }
+        };
+    }
+
+    /**
+     * Returns the fee of every archived session, in agorot, oldest first.
+     *
+     * @return long[] fees across all tiers
+     * @throws UncheckedIOException if a spill file cannot be read
+     */
+    public long[] getFeesCents() {
+        List<Segment> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(sealed);
+            snapshot.add(open.copy());
+        }
+        long total = 0;
+        for (Segment segment : snapshot) {
+            total += segment.size;
+        }
+        long[] fees = new long[(int) total];
+        int position = 0;
+        for (Segment segment : snapshot) {
+            Segment data = resident(segment);
+            System.arraycopy(data.feeCents, 0, fees, position, data.size);
+            position += data.size;
+        }
+        return fees;
+    }
+
+    // === Snapshots ===
+
+    /**
+     * The archived sessions at one moment, ready to be written to a lot snapshot.
+     */
+    final class Capture {
+        private final List<Segment> segments;
+        private final String[] plateNames;
+        private final String[] ownerNames;
+
+        private Capture(List<Segment> segments, String[] plateNames, String[] ownerNames) {
+            this.segments = segments;
+            this.plateNames = plateNames;
+            this.ownerNames = ownerNames;
+        }
+
+        /**
+         * Writes the captured sessions (see core.LotSnapshot): the plate and owner dictionaries,
+         * then every segment in the spill file layout.
+         *
+         * @param out The snapshot stream
+         * @throws IOException if writing fails
+         * @throws UncheckedIOException if a spill file cannot be read
+         */
+        void writeTo(DataOutputStream out) throws IOException {
+            for (String[] names : new String[][] {plateNames, ownerNames}) {
+                out.writeInt(names.length);
+                for (String name : names) {
+                    LotSnapshot.writeString(out, name);
+                }
+            }
+            out.writeInt(segments.size());
+            for (Segment segment : segments) {
+                ByteBuffer columns = encode(resident(segment));
+                out.write(columns.array(), 0, columns.limit());
+            }
+        }
+    }
+
+    /**
+     * Captures the archived sessions for a lot snapshot. Sessions are append-only, so only the
+     * list of segments and a copy of the open segment are taken; archiving continues while the
+     * capture is written.
+     *
+     * @return core.SessionArchive.Capture of the sessions archived so far
+     */
+    synchronized Capture capture() {
+        List<Segment> segments = new ArrayList<>(sealed);
+        if (open.size > 0) {
+            segments.add(open.copy());
+        }
+        return new Capture(segments, plates.toArray(new String[0]), owners.toArray(new String[0]));
+    }
+
+    /**
+     * Restores the sessions written by Capture.writeTo into this archive, which must be empty.
+     * Full segments are taken over as they are; their columns are bulk-copied out of the buffer.
+     *
+     * @param in The snapshot buffer (usually memory-mapped), positioned at the archive section
+     * @param millis Whether the segments store times in milliseconds (snapshots before version 3)
+     * @throws UncheckedIOException if a restored segment had to be spilled and could not be written
+     */
+    synchronized void readFrom(ByteBuffer in, boolean millis) {
+        for (List<String> names : List.of(plates, owners)) {
+            Map<String, Integer> ids = names == plates ? plateIds : ownerIds;
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                intern(LotSnapshot.readString(in), names, ids);
+            }
+        }
+        int segments = in.getInt();
+        for (int s = 0; s < segments; s++) {
+            Segment segment = millis ? decodeMillis(in) : decode(in);
+            sessionCount += segment.size;
+            if (segment.size == segmentSize && open.size == 0) {
+                sealed.add(segment);
+                continue;
+            }
+            for (int row = 0; row < segment.size; row++) {
+                int index = open.size++;
+                open.plateIds[index] = segment.plateIds[row];
+                open.ownerIds[index] = segment.ownerIds[row];
+                open.entryNanos[index] = segment.entryNanos[row];
+                open.exitNanos[index] = segment.exitNanos[row];
+                open.entrySeconds[index] = segment.entrySeconds[row];
+                open.exitSeconds[index] = segment.exitSeconds[row];
+                open.feeCents[index] = segment.feeCents[row];
+                if (open.size == segmentSize) {
+                    sealed.add(open);
+                    open = new Segment(segmentSize);
+                }
+            }
+        }
+        try {
+            spillExcess();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill parking sessions to disk", e);
+        }
+    }
+
+    // === Tier management ===
+
+    private void spillExcess() throws IOException {
+        if (spillDirectory == null) {
+            return;
+        }
+        int resident = sealed.size() - spilledSegments;
+        for (int i = spilledSegments; i < sealed.size() && resident > maxResidentSegments; i++) {
+            Segment segment = sealed.get(i);
+            if (segment.file == null) {
+                Segment spilled = spill(segment, spillDirectory.resolve(spillPrefix + "-sessions-" + i + ".seg"));
+                sealed.set(i, spilled);
+                spilledSegments++;
+                resident--;
+            }
+        }
+    }
+
+    /**
+     * Writes the columns of a segment to a file and returns a segment that only refers to the file.
+     */
+    private static Segment spill(Segment segment, Path file) throws IOException {
+        ByteBuffer buffer = encode(segment);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Segment reference = new Segment(0);
+        reference.size = segment.size;
+        reference.file = file;
+        return reference;
+    }
+
+    /**
+     * Returns a segment with its columns in memory, reading them from the spill file if needed.
+     */
+    private static Segment resident(Segment segment) {
+        if (segment.file == null) {
+            return segment;
+        }
+        try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the whole segment is loaded
+            }
+            buffer.flip();
+            return decode(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read spilled parking sessions", e);
+        }
+    }
+
+    /**
+     * Encodes the columns of a segment: its size, then every column as a block.
+     */
+    private static ByteBuffer encode(Segment segment) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + segment.size * BYTES_PER_SESSION);
+        buffer.putInt(segment.size);
+        for (int[] column : new int[][] {segment.plateIds, segment.ownerIds, segment.entryNanos, segment.exitNanos}) {
+            buffer.asIntBuffer().put(column, 0, segment.size);
+            buffer.position(buffer.position() + segment.size * 4);
+        }
+        for (long[] column : new long[][] {segment.entrySeconds, segment.exitSeconds, segment.feeCents}) {
+            buffer.asLongBuffer().put(column, 0, segment.size);
+            buffer.position(buffer.position() + segment.size * 8);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decodes a segment written by encode, leaving the buffer positioned after it.
+     */
+    private static Segment decode(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        Segment loaded = new Segment(size);
+        loaded.size = size;
+        for (int[] column : new int[][] {loaded.plateIds, loaded.ownerIds, loaded.entryNanos, loaded.exitNanos}) {
+            buffer.asIntBuffer().get(column);
+            buffer.position(buffer.position() + size * 4);
+        }
+        for (long[] column : new long[][] {loaded.entrySeconds, loaded.exitSeconds, loaded.feeCents}) {
+            buffer.asLongBuffer().get(column);
+            buffer.position(buffer.position() + size * 8);
+        }
+        return loaded;
+    }
+
+    /**
+     * Decodes a segment in the old layout (plate and owner ids, then entry and exit times in
+     * epoch milliseconds and the fees), leaving the buffer positioned after it.
+     */
+    private static Segment decodeMillis(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        Segment loaded = new Segment(size);
+        loaded.size = size;
+        for (int[] column : new int[][] {loaded.plateIds, loaded.ownerIds}) {
+            buffer.asIntBuffer().get(column);
+            buffer.position(buffer.position() + size * 4);
+        }
+        long[][] times = {loaded.entrySeconds, loaded.exitSeconds};
+        int[][] nanos = {loaded.entryNanos, loaded.exitNanos};
+        for (int c = 0; c < times.length; c++) {
+            for (int row = 0; row < size; row++) {
+                long millis = buffer.getLong();
+                times[c][row] = millis == Long.MIN_VALUE ? Long.MIN_VALUE : Math.floorDiv(millis, 1000);
+                nanos[c][row] = millis == Long.MIN_VALUE ? 0 : Math.floorMod(millis, 1000) * 1_000_000;
+            }
+        }
+        buffer.asLongBuffer().get(loaded.feeCents);
+        buffer.position(buffer.position() + size * 8);
+        return loaded;
+    }
+
+    private static int intern(String value, List<String> values, Map<String, Integer> ids) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            values.add(value);
+            ids.put(value, id);
+        }
+        return id;
+    }
+
+    private static void setTime(long[] seconds, int[] nanos, int index, LocalDateTime time) {
+        seconds[index] = time == null ? Long.MIN_VALUE : time.toEpochSecond(ZoneOffset.UTC);
+        nanos[index] = time == null ? 0 : time.getNano();
+    }
+
+    private static LocalDateTime toTime(long second, int nano) {
+        if (second == Long.MIN_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC);
+    }
+}
\ No newline at end of file
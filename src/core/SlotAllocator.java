@@ -0,0 +1,128 @@
+package core;
+
+/**
+ * The core.SlotAllocator class keeps track of which parking slots are free so that
+ * core.ParkingLotManager can find a slot for an arriving vehicle without walking the
+ * whole slot list. Free slots are stored as a two-level bitset: one bit per slot,
+ * plus a summary bit per 64-slot word that is set while that word still has a free slot.
+ *
+ * Finding the lowest numbered free slot scans only the summary words (one word covers
+ * 4096 slots), so the cost stays practically constant even for very large lots, and the
+ * result is the same "first empty slot in list order" that a linear scan would produce.
+ *
+ * Slot indexes are zero-based (index = slot id - 1).
+ */
+public class SlotAllocator {
+    private final int capacity;
+    private final long[] freeWords;   // bit i of word w set = slot (w * 64 + i) is free
+    private final long[] summary;     // bit j of word s set = freeWords[s * 64 + j] != 0
+    private int freeCount;
+
+    /**
+     * Creates an allocator in which all slots are initially free.
+     *
+     * @param capacity The total number of slots managed by this allocator
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public SlotAllocator(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        this.capacity = capacity;
+        this.freeWords = new long[(capacity + 63) >>> 6];
+        this.summary = new long[(freeWords.length + 63) >>> 6];
+
+        for (int i = 0; i < capacity; i++) {
+            markFree(i);
+        }
+    }
+
+    /**
+     * Returns the lowest index of a free slot without claiming it.
+     *
+     * @return int index of the lowest free slot, or -1 if the lot is full
+     */
+    public int lowestFree() {
+        for (int s = 0; s < summary.length; s++) {
+            long sw = summary[s];
+            if (sw != 0) {
+                int w = (s << 6) + Long.numberOfTrailingZeros(sw);
+                return (w << 6) + Long.numberOfTrailingZeros(freeWords[w]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Marks the slot at the given index as occupied.
+     *
+     * @param index Zero-based slot index
+     */
+    public void markOccupied(int index) {
+        checkIndex(index);
+        int w = index >>> 6;
+        long before = freeWords[w];
+        long after = before & ~(1L << index);
+        if (before == after) {
+            return; // Already occupied
+        }
+        freeWords[w] = after;
+        freeCount--;
+        if (after == 0) {
+            summary[w >>> 6] &= ~(1L << w);
+        }
+    }
+
+    /**
+     * Marks the slot at the given index as free.
+     *
+     * @param index Zero-based slot index
+     */
+    public void markFree(int index) {
+        checkIndex(index);
+        int w = index >>> 6;
+        long before = freeWords[w];
+        long after = before | (1L << index);
+        if (before == after) {
+            return; // Already free
+        }
+        freeWords[w] = after;
+        freeCount++;
+        summary[w >>> 6] |= 1L << w;
+    }
+
+    /**
+     * Checks whether the slot at the given index is free.
+     *
+     * @param index Zero-based slot index
+     * @return boolean true if the slot is free, false if occupied
+     */
+    public boolean isFree(int index) {
+        checkIndex(index);
+        return (freeWords[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the number of free slots.
+     *
+     * @return int count of free slots
+     */
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    /**
+     * Returns the total number of slots managed by this allocator.
+     *
+     * @return int slot capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= capacity) {
+            throw new IndexOutOfBoundsException("Slot index " + index + " out of range 0.." + (capacity - 1));
+        }
+    }
+}
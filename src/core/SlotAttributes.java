@@ -0,0 +1,114 @@
+package core;
+
+/**
+ * The core.SlotAttributes class describes the physical properties of a parking slot: where it
+ * is (level, zone and position along the driving route), how big it is and what it offers
+ * (EV charger, disabled access). Slot attributes are immutable and are assigned to the slots
+ * of a lot with core.ParkingLotManager.configureSlots.
+ */
+public final class SlotAttributes {
+    /** Attributes of a slot that was not configured: a standard slot at the entrance. */
+    public static final SlotAttributes STANDARD = new SlotAttributes(0, 0, 0, Size.STANDARD, false, false);
+
+    /**
+     * Size class of a slot. A vehicle fits every slot of its own size or larger.
+     */
+    public enum Size {
+        /** Small slot, e.g. for motorcycles and city cars. */
+        COMPACT,
+        /** Regular car slot. */
+        STANDARD,
+        /** Slot for vans and other large vehicles. */
+        LARGE
+    }
+
+    private final int level;
+    private final int zone;
+    private final int position;
+    private final Size size;
+    private final boolean evCharger;
+    private final boolean disabledAccess;
+
+    /**
+     * Creates slot attributes.
+     *
+     * @param level The level of the slot (0 = entrance level)
+     * @param zone The zone of the slot within the lot
+     * @param position Distance of the slot along the driving route on its level, e.g. in meters
+     * @param size The size class of the slot
+     * @param evCharger Whether the slot has an EV charger
+     * @param disabledAccess Whether the slot is reserved for disabled access
+     * @throws IllegalArgumentException if size is null or level or position is negative
+     */
+    public SlotAttributes(int level, int zone, int position, Size size, boolean evCharger, boolean disabledAccess) {
+        if (size == null || level < 0 || position < 0) {
+            throw new IllegalArgumentException("Slot size is required and level and position cannot be negative");
+        }
+        this.level = level;
+        this.zone = zone;
+        this.position = position;
+        this.size = size;
+        this.evCharger = evCharger;
+        this.disabledAccess = disabledAccess;
+    }
+
+    /** @return int level of the slot */
+    public int getLevel() { return level; }
+
+    /** @return int zone of the slot */
+    public int getZone() { return zone; }
+
+    /** @return int position of the slot along the driving route */
+    public int getPosition() { return position; }
+
+    /** @return core.SlotAttributes.Size of the slot */
+    public Size getSize() { return size; }
+
+    /** @return boolean true if the slot has an EV charger */
+    public boolean hasEvCharger() { return evCharger; }
+
+    /** @return boolean true if the slot is reserved for disabled access */
+    public boolean hasDisabledAccess() { return disabledAccess; }
+
+    /**
+     * Checks whether a vehicle with the given needs may park in this slot.
+     *
+     * @param request The needs of the vehicle
+     * @return boolean true if the slot is large enough and has every required feature
+     */
+    public boolean satisfies(SlotRequest request) {
+        return size.compareTo(request.getMinSize()) >= 0
+                && (evCharger || !request.needsEvCharger())
+                && (disabledAccess || !request.needsDisabledAccess());
+    }
+
+    /**
+     * Rates how much of this slot would be wasted by a vehicle with the given needs: a larger
+     * slot than needed, or a charger or disabled-access slot the vehicle does not need.
+     * Lower is better; 0 is a perfect fit.
+     *
+     * @param request The needs of the vehicle
+     * @return int waste score of the slot for that vehicle
+     */
+    public int wasteFor(SlotRequest request) {
+        int waste = size.ordinal() - request.getMinSize().ordinal();
+        if (evCharger && !request.needsEvCharger()) {
+            waste += 3;
+        }
+        if (disabledAccess && !request.needsDisabledAccess()) {
+            waste += 6;
+        }
+        return waste;
+    }
+
+    /**
+     * Checks whether two slots are interchangeable for allocation (same zone, size and features).
+     *
+     * @param other The attributes to compare with
+     * @return boolean true if both slots belong in the same allocation pool
+     */
+    boolean samePoolAs(SlotAttributes other) {
+        return zone == other.zone && size == other.size
+                && evCharger == other.evCharger && disabledAccess == other.disabledAccess;
+    }
+}
\ No newline at end of file
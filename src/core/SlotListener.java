@@ -0,0 +1,26 @@
+package core;
+
+/**
+ * The core.SlotListener interface lets the lot that owns a core.ParkingSlot keep its
+ * lookup structures (free-slot allocator, license plate index) in sync with the slot.
+ * The slot calls the listener after every change of its occupant, so the structures
+ * can never drift from the actual slot state.
+ */
+interface SlotListener {
+
+    /**
+     * Called after a vehicle has been assigned to the slot.
+     *
+     * @param slot The slot that became occupied
+     * @param previous The vehicle that was replaced by the assignment, or null if the slot was empty
+     */
+    void vehicleAssigned(ParkingSlot slot, Vehicle previous);
+
+    /**
+     * Called after the vehicle has been removed from the slot.
+     *
+     * @param slot The slot that became empty
+     * @param previous The vehicle that occupied the slot, or null if it was already empty
+     */
+    void vehicleRemoved(ParkingSlot slot, Vehicle previous);
+}
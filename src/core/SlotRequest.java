@@ -0,0 +1,41 @@
+package core;
+
+/**
+ * The core.SlotRequest class describes what an arriving vehicle needs from a slot: a minimum
+ * slot size, and optionally an EV charger or disabled access. It is passed to
+ * core.ParkingLotManager.checkInVehicle together with the gate the vehicle arrives at.
+ */
+public final class SlotRequest {
+    /** A vehicle that fits any slot and needs no special features. */
+    public static final SlotRequest ANY = new SlotRequest(SlotAttributes.Size.COMPACT, false, false);
+
+    private final SlotAttributes.Size minSize;
+    private final boolean evCharger;
+    private final boolean disabledAccess;
+
+    /**
+     * Creates a slot request.
+     *
+     * @param minSize The smallest slot size the vehicle fits in
+     * @param evCharger Whether the vehicle needs an EV charger
+     * @param disabledAccess Whether the vehicle needs a disabled-access slot
+     * @throws IllegalArgumentException if minSize is null
+     */
+    public SlotRequest(SlotAttributes.Size minSize, boolean evCharger, boolean disabledAccess) {
+        if (minSize == null) {
+            throw new IllegalArgumentException("Minimum slot size is required");
+        }
+        this.minSize = minSize;
+        this.evCharger = evCharger;
+        this.disabledAccess = disabledAccess;
+    }
+
+    /** @return core.SlotAttributes.Size the smallest slot size the vehicle fits in */
+    public SlotAttributes.Size getMinSize() { return minSize; }
+
+    /** @return boolean true if the vehicle needs an EV charger */
+    public boolean needsEvCharger() { return evCharger; }
+
+    /** @return boolean true if the vehicle needs a disabled-access slot */
+    public boolean needsDisabledAccess() { return disabledAccess; }
+}
\ No newline at end of file
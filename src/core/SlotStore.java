@@ -0,0 +1,118 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The core.SlotStore class keeps the occupancy of all slots of a lot in flat arrays instead of
+ * in the individual core.ParkingSlot objects: an occupancy bitset (one bit per slot) and an
+ * array with the vehicle parked in each slot. The core.ParkingSlot objects of a lot only hold
+ * their id and read and write their state here.
+ *
+ * Counting occupied slots is a popcount over the bitset, and listing the parked vehicles
+ * walks the set bits, so whole-lot scans touch a few contiguous arrays instead of following
+ * a pointer per slot. Both arrays are atomic, so any number of gates may update different
+ * slots concurrently. Slot indexes are zero-based (index = slot id - 1).
+ */
+final class SlotStore {
+    private final int capacity;
+    private final AtomicLongArray occupied;              // bit i of word w set = slot (w * 64 + i) is occupied
+    private final AtomicReferenceArray<Vehicle> vehicles; // Vehicle parked in each slot, or null
+
+    /**
+     * Creates a store in which all slots are empty.
+     *
+     * @param capacity The number of slots
+     */
+    SlotStore(int capacity) {
+        this.capacity = capacity;
+        this.occupied = new AtomicLongArray((capacity + 63) >>> 6);
+        this.vehicles = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Returns the vehicle parked in a slot.
+     *
+     * @param index Zero-based slot index
+     * @return core.Vehicle in the slot, or null if the slot is empty
+     */
+    Vehicle get(int index) {
+        return vehicles.get(index);
+    }
+
+    /**
+     * Checks whether a slot is occupied, reading only the bitset.
+     *
+     * @param index Zero-based slot index
+     * @return boolean true if a vehicle is parked in the slot
+     */
+    boolean isOccupied(int index) {
+        return (occupied.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Puts a vehicle into a slot, or empties the slot when vehicle is null.
+     * Updates of different slots may run concurrently; updates of the same slot must not
+     * (the lot serializes them by claiming the slot first).
+     *
+     * @param index Zero-based slot index
+     * @param vehicle The vehicle to park, or null
+     * @return core.Vehicle that was in the slot before, or null
+     */
+    Vehicle set(int index, Vehicle vehicle) {
+        Vehicle previous = vehicles.getAndSet(index, vehicle);
+        int w = index >>> 6;
+        long bit = 1L << index;
+        long word;
+        do {
+            word = occupied.get(w);
+        } while (!occupied.compareAndSet(w, word, vehicle != null ? word | bit : word & ~bit));
+        return previous;
+    }
+
+    /**
+     * Returns the number of occupied slots, counted with popcounts over the bitset.
+     *
+     * @return int count of occupied slots
+     */
+    int getOccupiedCount() {
+        int count = 0;
+        for (int w = 0; w < occupied.length(); w++) {
+            count += Long.bitCount(occupied.get(w));
+        }
+        return count;
+    }
+
+    /**
+     * Returns the vehicles of all occupied slots, in slot order. Only the slots whose
+     * occupancy bit is set are read.
+     *
+     * @return List<core.Vehicle> of parked vehicles
+     */
+    List<Vehicle> getVehicles() {
+        List<Vehicle> result = new ArrayList<>();
+        for (int w = 0; w < occupied.length(); w++) {
+            long word = occupied.get(w);
+            while (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                Vehicle vehicle = vehicles.get(index);
+                if (vehicle != null) { // The slot may have been emptied since the word was read
+                    result.add(vehicle);
+                }
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of slots in the store.
+     *
+     * @return int slot capacity
+     */
+    int getCapacity() {
+        return capacity;
+    }
+}
\ No newline at end of file
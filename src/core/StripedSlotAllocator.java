@@ -0,0 +1,184 @@
+package core;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The core.StripedSlotAllocator class makes slot allocation safe for many concurrent gates.
+ * The lot is split into zones of consecutive slots; every zone owns its own
+ * core.SlotAllocator and its own lock, so gates that allocate or release slots in
+ * different zones never contend on a single lock.
+ *
+ * Claiming a slot is atomic: the lowest free slot of a zone is found and marked occupied
+ * while the zone lock is held, so two vehicles can never be given the same slot.
+ * Slot indexes are zero-based (index = slot id - 1).
+ */
+class StripedSlotAllocator {
+    private final Zone[] zones;
+    private final int zoneSize;
+
+    /**
+     * A contiguous range of slots guarded by its own lock.
+     */
+    private static final class Zone {
+        final ReentrantLock lock = new ReentrantLock();
+        final SlotAllocator allocator;
+        final int offset;
+        volatile int freeCount; // Readable without the lock to skip full zones
+
+        Zone(int offset, int size) {
+            this.offset = offset;
+            this.allocator = new SlotAllocator(size);
+            this.freeCount = size;
+        }
+    }
+
+    /**
+     * Creates a striped allocator in which all slots are initially free.
+     *
+     * @param capacity The total number of slots in the lot
+     * @param zoneCount The number of independently locked zones (at least 1)
+     * @throws IllegalArgumentException if capacity is negative or zoneCount is not positive
+     */
+    StripedSlotAllocator(int capacity, int zoneCount) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        if (zoneCount < 1) {
+            throw new IllegalArgumentException("Zone count must be at least 1");
+        }
+        zoneCount = Math.max(1, Math.min(zoneCount, capacity));
+        this.zoneSize = Math.max(1, (capacity + zoneCount - 1) / zoneCount);
+        int count = capacity == 0 ? 1 : (capacity + zoneSize - 1) / zoneSize;
+        this.zones = new Zone[count];
+        for (int z = 0; z < count; z++) {
+            int offset = z * zoneSize;
+            zones[z] = new Zone(offset, Math.max(0, Math.min(zoneSize, capacity - offset)));
+        }
+    }
+
+    /**
+     * Atomically claims the lowest numbered free slot of the lot.
+     *
+     * @return int index of the claimed slot, or -1 if the lot is full
+     */
+    int claimLowestFree() {
+        return claimFrom(0);
+    }
+
+    /**
+     * Atomically claims a free slot, searching zones starting at the given zone and wrapping
+     * around. Gates that prefer different zones therefore start on different locks.
+     *
+     * @param startZone The zone to search first
+     * @return int index of the claimed slot, or -1 if the lot is full
+     */
+    int claimFrom(int startZone) {
+        int n = zones.length;
+        int start = Math.floorMod(startZone, n);
+        for (int i = 0; i < n; i++) {
+            Zone zone = zones[(start + i) % n];
+            if (zone.freeCount == 0) {
+                continue;
+            }
+            zone.lock.lock();
+            try {
+                int local = zone.allocator.lowestFree();
+                if (local >= 0) {
+                    zone.allocator.markOccupied(local);
+                    zone.freeCount = zone.allocator.getFreeCount();
+                    return zone.offset + local;
+                }
+            } finally {
+                zone.lock.unlock();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Atomically claims the slot at the given index if it is free.
+     *
+     * @param index Zero-based slot index
+     * @return boolean true if the slot was free and is now claimed, false otherwise
+     */
+    boolean tryClaim(int index) {
+        Zone zone = zones[zoneOf(index)];
+        zone.lock.lock();
+        try {
+            int local = index - zone.offset;
+            if (!zone.allocator.isFree(local)) {
+                return false;
+            }
+            zone.allocator.markOccupied(local);
+            zone.freeCount = zone.allocator.getFreeCount();
+            return true;
+        } finally {
+            zone.lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the slot at the given index as occupied.
+     *
+     * @param index Zero-based slot index
+     */
+    void markOccupied(int index) {
+        Zone zone = zones[zoneOf(index)];
+        zone.lock.lock();
+        try {
+            zone.allocator.markOccupied(index - zone.offset);
+            zone.freeCount = zone.allocator.getFreeCount();
+        } finally {
+            zone.lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the slot at the given index as free.
+     *
+     * @param index Zero-based slot index
+     */
+    void markFree(int index) {
+        Zone zone = zones[zoneOf(index)];
+        zone.lock.lock();
+        try {
+            zone.allocator.markFree(index - zone.offset);
+            zone.freeCount = zone.allocator.getFreeCount();
+        } finally {
+            zone.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the zone that contains the slot at the given index.
+     *
+     * @param index Zero-based slot index
+     * @return int zone number
+     */
+    int zoneOf(int index) {
+        return index / zoneSize;
+    }
+
+    /**
+     * Returns the number of independently locked zones.
+     *
+     * @return int zone count
+     */
+    int getZoneCount() {
+        return zones.length;
+    }
+
+    /**
+     * Returns the number of free slots in the whole lot. The value is a sum of per-zone
+     * counts and may be momentarily stale while other gates are allocating.
+     *
+     * @return int count of free slots
+     */
+    int getFreeCount() {
+        int free = 0;
+        for (Zone zone : zones) {
+            free += zone.freeCount;
+        }
+        return free;
+    }
+}
@@ -0,0 +1,283 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The core.TypedSlotAllocator class picks the best free slot for a vehicle with special needs
+ * (size, EV charger, disabled access) arriving at a given gate. It works on top of the lot's
+ * core.StripedSlotAllocator, which stays the single authority on which slots are free.
+ *
+ * Slots with the same zone, size and features form a pool. Every pool keeps one priority
+ * queue of its free slots per gate, ordered by the distance from that gate, so the nearest
+ * free slot of a pool is always at the head. A request only looks at the head of each
+ * matching pool and takes the one with the least waste (see core.SlotAttributes.wasteFor),
+ * then the shortest distance, then the lowest slot number. Claiming and releasing a slot
+ * therefore cost O(pools + gates * log slots), however many slots the lot has.
+ *
+ * Queue entries are not removed when a slot is taken through another path (simple check-in,
+ * moving a vehicle); such stale entries are skipped and dropped when they reach the head.
+ * Slot indexes are zero-based (index = slot id - 1).
+ *
+ * Every queue is guarded by its own monitor, like the zones of core.StripedSlotAllocator, and
+ * no queue lock is held while another is taken. Check-ins at different gates never share a
+ * lock; a check-in or check-out locks one queue at a time, each for a few heap operations.
+ * Which gate gets a contended slot is decided by the StripedSlotAllocator claim alone.
+ */
+final class TypedSlotAllocator {
+    /** Distance added per level between a slot and the gates, which are on level 0. */
+    static final int LEVEL_DISTANCE = 100;
+
+    private final StripedSlotAllocator allocator;
+    private final SlotStore store;
+    private final SlotAttributes[] attributes; // Attributes of every slot
+    private final int[] gatePositions;
+    private final Pool[] pools;
+    private final int[] poolOf;                // Pool of every slot
+
+    /**
+     * Slots that are interchangeable for allocation, with one queue of free slots per gate.
+     */
+    private static final class Pool {
+        final SlotAttributes profile;
+        final int[] members;
+        final SlotHeap[] byGate;
+
+        Pool(SlotAttributes profile, int[] members, int gateCount) {
+            this.profile = profile;
+            this.members = members;
+            this.byGate = new SlotHeap[gateCount];
+            for (int g = 0; g < gateCount; g++) {
+                byGate[g] = new SlotHeap(members.length);
+            }
+        }
+    }
+
+    /**
+     * A binary min-heap of slots keyed by distance, packed as (distance << 32 | index) longs.
+     * Guarded by its own monitor.
+     */
+    private static final class SlotHeap {
+        long[] keys;
+        int size;
+
+        SlotHeap(int capacity) {
+            keys = new long[Math.max(1, capacity)];
+        }
+
+        void add(long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            keys[i] = key;
+        }
+
+        void removeHead() {
+            long last = keys[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (last <= keys[child]) {
+                    break;
+                }
+                keys[i] = keys[child];
+                i = child;
+            }
+            keys[i] = last;
+        }
+    }
+
+    /**
+     * Creates an allocator for the given slot attributes and gates. Slots that are occupied
+     * in the store are left out of the queues until they are released.
+     *
+     * @param allocator The lot's free-slot allocator
+     * @param store The lot's slot store
+     * @param attributes The attributes of every slot, by slot index
+     * @param gatePositions The position of every entry gate along the route on level 0
+     * @throws IllegalArgumentException if there is no gate
+     */
+    TypedSlotAllocator(StripedSlotAllocator allocator, SlotStore store, SlotAttributes[] attributes,
+                       int[] gatePositions) {
+        if (gatePositions.length == 0) {
+            throw new IllegalArgumentException("At least one gate is required");
+        }
+        this.allocator = allocator;
+        this.store = store;
+        this.attributes = attributes;
+        this.gatePositions = gatePositions.clone();
+        this.poolOf = new int[attributes.length];
+
+        List<SlotAttributes> profiles = new ArrayList<>();
+        List<List<Integer>> members = new ArrayList<>();
+        for (int index = 0; index < attributes.length; index++) {
+            int p = 0;
+            while (p < profiles.size() && !profiles.get(p).samePoolAs(attributes[index])) {
+                p++;
+            }
+            if (p == profiles.size()) {
+                profiles.add(attributes[index]);
+                members.add(new ArrayList<>());
+            }
+            members.get(p).add(index);
+            poolOf[index] = p;
+        }
+        this.pools = new Pool[profiles.size()];
+        for (int p = 0; p < pools.length; p++) {
+            pools[p] = new Pool(profiles.get(p),
+                    members.get(p).stream().mapToInt(Integer::intValue).toArray(), gatePositions.length);
+            refill(pools[p]);
+        }
+    }
+
+    /**
+     * Atomically claims the best free slot for a request arriving at a gate.
+     *
+     * @param request The needs of the vehicle
+     * @param gate The gate the vehicle arrives at (index into the gate positions)
+     * @return int index of the claimed slot, or -1 if no free slot satisfies the request
+     * @throws IllegalArgumentException if the gate does not exist
+     */
+    int claim(SlotRequest request, int gate) {
+        if (gate < 0 || gate >= gatePositions.length) {
+            throw new IllegalArgumentException("Unknown gate: " + gate);
+        }
+        while (true) {
+            SlotHeap best = null;
+            int bestWaste = 0;
+            long bestKey = 0;
+            for (Pool pool : pools) {
+                if (!pool.profile.satisfies(request)) {
+                    continue;
+                }
+                SlotHeap heap = pool.byGate[gate];
+                long key;
+                synchronized (heap) {
+                    while (heap.size > 0 && store.isOccupied((int) heap.keys[0])) {
+                        heap.removeHead(); // Taken through another path since it was queued
+                    }
+                    if (heap.size == 0) {
+                        continue;
+                    }
+                    key = heap.keys[0];
+                }
+                int waste = pool.profile.wasteFor(request);
+                if (best == null || waste < bestWaste || (waste == bestWaste && key < bestKey)) {
+                    best = heap;
+                    bestWaste = waste;
+                    bestKey = key;
+                }
+            }
+            if (best == null) {
+                return -1;
+            }
+            synchronized (best) {
+                if (best.size == 0 || best.keys[0] != bestKey) {
+                    continue; // The queue changed since it was looked at: choose again
+                }
+                best.removeHead();
+            }
+            int index = (int) bestKey;
+            if (allocator.tryClaim(index)) {
+                return index;
+            }
+            // Claimed by another gate but not parked yet; it is queued again when released
+        }
+    }
+
+    /**
+     * Puts a freed slot back into the queues of its pool.
+     *
+     * @param index Zero-based slot index
+     */
+    void release(int index) {
+        Pool pool = pools[poolOf[index]];
+        for (int g = 0; g < gatePositions.length; g++) {
+            SlotHeap heap = pool.byGate[g];
+            synchronized (heap) {
+                // Gates that rarely claim collect stale entries, so every queue is checked on its own
+                if (heap.size >= 2 * pool.members.length) {
+                    refill(pool, g); // Too many stale entries: rebuild from the free slots
+                } else {
+                    heap.add(key(index, g));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the distance between a slot and a gate.
+     *
+     * @param index Zero-based slot index
+     * @param gate Gate index
+     * @return int distance along the route, plus LEVEL_DISTANCE per level
+     */
+    int distance(int index, int gate) {
+        SlotAttributes slot = attributes[index];
+        return slot.getLevel() * LEVEL_DISTANCE + Math.abs(slot.getPosition() - gatePositions[gate]);
+    }
+
+    /**
+     * Returns the number of gates.
+     *
+     * @return int gate count
+     */
+    int getGateCount() {
+        return gatePositions.length;
+    }
+
+    /**
+     * Returns the number of entries in the queues of a gate, stale ones included.
+     *
+     * @param gate Gate index
+     * @return int queued entries over all pools
+     */
+    int getQueuedEntries(int gate) {
+        int entries = 0;
+        for (Pool pool : pools) {
+            SlotHeap heap = pool.byGate[gate];
+            synchronized (heap) {
+                entries += heap.size;
+            }
+        }
+        return entries;
+    }
+
+    private long key(int index, int gate) {
+        return ((long) distance(index, gate) << 32) | index;
+    }
+
+    private void refill(Pool pool) {
+        for (int g = 0; g < gatePositions.length; g++) {
+            refill(pool, g);
+        }
+    }
+
+    /**
+     * Rebuilds a gate's queue of a pool from the free slots. Must be called while holding the
+     * queue's monitor, or before the allocator is shared.
+     */
+    private void refill(Pool pool, int gate) {
+        SlotHeap heap = pool.byGate[gate];
+        heap.size = 0;
+        for (int index : pool.members) {
+            if (!store.isOccupied(index)) {
+                heap.add(key(index, gate));
+            }
+        }
+    }
+}
\ No newline at end of file
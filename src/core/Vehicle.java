@@ -10,8 +10,13 @@ import java.time.LocalDateTime;
  * for managing vehicle state throughout the parking process.
  */
 public class Vehicle {
+    /** Vehicle class of vehicles that were not given one; it is charged the standard tariff. */
+    public static final String DEFAULT_CLASS = "standard";
+
     private String licensePlate;       // License plate number of the vehicle
+    private long plateCode;            // The plate packed into a long (core.PlateCode), for fast comparison
     private String owner;              // Name of the vehicle owner
+    private String vehicleClass = DEFAULT_CLASS; // Pricing class, e.g. "motorcycle" (see services.TariffTable)
     private LocalDateTime entryTime;   // Entry time to the parking lot
     private LocalDateTime exitTime;    // Exit time from the parking lot
     private boolean available;         // Whether the vehicle is currently in the parking lot (true = inside)
@@ -34,23 +39,56 @@ public class Vehicle {
      * - Available: false (not in parking lot initially)
      */
     public Vehicle(String licensePlate, String owner) {
-        // Validate license plate - only letters and numbers
-        if (licensePlate == null || !licensePlate.matches("^[A-Za-z0-9]{5,8}$")) {
-            throw new IllegalArgumentException("License plate must contain only letters and numbers (5-8 characters)");
+        this(licensePlate, owner, PlateFormats.DEFAULT);
+    }
+
+    /**
+     * Constructor - Creates a vehicle whose license plate is checked against the given format,
+     * for example the format of its country (see core.PlateFormats.forCountry).
+     *
+     * @param licensePlate The license plate number, valid for the given format
+     * @param owner The name of the vehicle owner (must contain only letters and spaces)
+     * @param plateFormat The license plate format to validate against
+     * @throws IllegalArgumentException if license plate or owner name format is invalid
+     */
+    public Vehicle(String licensePlate, String owner, PlateFormat plateFormat) {
+        // Validate license plate against the (precompiled) format
+        if (!plateFormat.isValid(licensePlate)) {
+            throw new IllegalArgumentException(plateFormat.getErrorMessage());
         }
 
         // Validate owner name - only letters and spaces
-        if (owner == null || !owner.matches("^[A-Za-z\\s]+$")) {
+        if (!isValidOwner(owner)) {
             throw new IllegalArgumentException("Owner name must contain only letters and spaces");
         }
 
         this.licensePlate = licensePlate;
-        this.owner = owner;
+        this.plateCode = PlateCode.encode(licensePlate);
+        this.owner = OwnerTable.intern(owner); // One shared String per owner name
         this.entryTime = null;
         this.exitTime = null;
         this.available = false;
     }
 
+    /**
+     * Checks that an owner name is not empty and contains only ASCII letters and whitespace
+     * (the characters of the regular expression [A-Za-z\\s]), without using a regular expression.
+     */
+    private static boolean isValidOwner(String owner) {
+        if (owner == null || owner.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < owner.length(); i++) {
+            char c = owner.charAt(i);
+            boolean letter = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+            boolean space = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+            if (!letter && !space) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Returns the license plate number of the vehicle.
      *
@@ -60,6 +98,15 @@ public class Vehicle {
         return licensePlate;
     }
 
+    /**
+     * Returns the license plate packed into a long, for comparing plates as primitives.
+     *
+     * @return long plate code, or core.PlateCode.NONE if the plate does not fit in a long
+     */
+    public long getPlateCode() {
+        return plateCode;
+    }
+
     /**
      * Returns the name of the vehicle owner.
      *
@@ -69,6 +116,28 @@ public class Vehicle {
         return owner;
     }
 
+    /**
+     * Returns the pricing class of the vehicle.
+     *
+     * @return String representing the vehicle class, DEFAULT_CLASS unless set
+     */
+    public String getVehicleClass() {
+        return vehicleClass;
+    }
+
+    /**
+     * Sets the pricing class of the vehicle, which selects its tariff.
+     *
+     * @param vehicleClass The vehicle class, e.g. "motorcycle"
+     * @throws IllegalArgumentException if the vehicle class is null or empty
+     */
+    public void setVehicleClass(String vehicleClass) {
+        if (vehicleClass == null || vehicleClass.isBlank()) {
+            throw new IllegalArgumentException("Vehicle class cannot be empty");
+        }
+        this.vehicleClass = vehicleClass;
+    }
+
     /**
      * Returns the entry time when the vehicle entered the parking lot.
      *
@@ -157,6 +226,9 @@ public class Vehicle {
         if (obj == null || getClass() != obj.getClass()) return false;
 
         Vehicle vehicle = (Vehicle) obj;
+        if (plateCode != PlateCode.NONE) {
+            return plateCode == vehicle.plateCode; // Equal codes mean equal plates
+        }
         return licensePlate.equals(vehicle.licensePlate);
     }
 
@@ -167,6 +239,6 @@ public class Vehicle {
      */
     @Override
     public int hashCode() {
-        return licensePlate.hashCode();
+        return plateCode != PlateCode.NONE ? PlateCode.hash(plateCode) : licensePlate.hashCode();
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The metrics.CheckInEvent class is the flight recorder event of one check-in at a gate, from
+ * the start of the check-in until the observers were notified. Like all parking events it is
+ * only created cheaply and discarded while no recording is running.
+ */
+@Name("parking.CheckIn")
+@Label("Check-in")
+@Category({"Parking", "Gate"})
+@Description("A vehicle checked in at a gate (or was rejected)")
+@StackTrace(false)
+public class CheckInEvent extends jdk.jfr.Event {
+    @Label("Slot")
+    @Description("Slot the vehicle was parked in, 0 if it was rejected")
+    public int slotId;
+
+    @Label("Plate Hash")
+    @Description("core.PlateCode hash of the license plate")
+    public int plateHash;
+
+    @Label("Occupied Slots")
+    public int occupiedSlots;
+
+    @Label("Parked")
+    public boolean parked;
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The metrics.CheckOutEvent class is the flight recorder event of one check-out at a gate,
+ * including the fee calculation (see metrics.FeeEvent), the history record and the
+ * notification of the observers.
+ */
+@Name("parking.CheckOut")
+@Label("Check-out")
+@Category({"Parking", "Gate"})
+@Description("A vehicle checked out at a gate (or was not found)")
+@StackTrace(false)
+public class CheckOutEvent extends jdk.jfr.Event {
+    @Label("Slot")
+    @Description("Slot the vehicle left, 0 if it was not found")
+    public int slotId;
+
+    @Label("Plate Hash")
+    @Description("core.PlateCode hash of the license plate")
+    public int plateHash;
+
+    @Label("Occupied Slots")
+    public int occupiedSlots;
+
+    @Label("Found")
+    public boolean found;
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics.Counter class counts events, e.g. rejected check-ins. Increments are spread
+ * over striped cells (LongAdder), so gates counting concurrently do not contend on one
+ * variable. While the owning registry is disabled, increments cost one flag check.
+ */
+public final class Counter {
+    private final MetricsRegistry registry;
+    private final LongAdder count = new LongAdder();
+
+    Counter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Counts one event.
+     */
+    public void increment() {
+        if (registry.isEnabled()) {
+            count.increment();
+        }
+    }
+
+    /**
+     * Counts several events.
+     *
+     * @param events The number of events
+     */
+    public void add(long events) {
+        if (registry.isEnabled()) {
+            count.add(events);
+        }
+    }
+
+    /** @return long number of events counted so far */
+    public long getCount() { return count.sum(); }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The metrics.FeeEvent class is the flight recorder event of the fee computation of a
+ * check-out. It is emitted by the gate rather than by services.FeeCalculator, so that fee
+ * calculations outside of gates stay free of allocations even before they are JIT-compiled.
+ */
+@Name("parking.FeeComputation")
+@Label("Fee Computation")
+@Category({"Parking", "Fees"})
+@Description("The parking fee of a vehicle was computed")
+@StackTrace(false)
+public class FeeEvent extends jdk.jfr.Event {
+    @Label("Slot")
+    public int slotId;
+
+    @Label("Plate Hash")
+    @Description("core.PlateCode hash of the license plate")
+    public int plateHash;
+
+    @Label("Vehicle Class")
+    public String vehicleClass;
+
+    @Label("Fee (agorot)")
+    public long feeCents;
+}
\ No newline at end of file
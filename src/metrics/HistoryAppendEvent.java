@@ -0,0 +1,33 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The metrics.HistoryAppendEvent class is the flight recorder event of adding one record to
+ * the parking history, including its hand-off to the history journal.
+ */
+@Name("parking.HistoryAppend")
+@Label("History Append")
+@Category({"Parking", "History"})
+@Description("A record was added to the parking history")
+@StackTrace(false)
+public class HistoryAppendEvent extends jdk.jfr.Event {
+    @Label("Action")
+    @Description("ENTRY or EXIT")
+    public String action;
+
+    @Label("Slot")
+    public int slotId;
+
+    @Label("Plate Hash")
+    @Description("core.PlateCode hash of the license plate")
+    public int plateHash;
+
+    @Label("Journaled")
+    @Description("Whether the record was also appended to the history journal")
+    public boolean journaled;
+}
\ No newline at end of file
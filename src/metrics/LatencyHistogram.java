@@ -0,0 +1,142 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics.LatencyHistogram class records durations in nanoseconds in logarithmic buckets,
+ * in the style of an HDR histogram: every power of two is split into 32 linear sub-buckets,
+ * so a percentile is reported within about 3% of the true value while the whole range from
+ * 1 ns to about 18 minutes fits in 1152 counters. Longer durations count as the maximum.
+ *
+ * Recording is lock-free (one atomic increment of the bucket plus striped sum and count) and
+ * allocates nothing. Reads are not atomic with respect to concurrent recording, so a
+ * percentile may or may not include a duration recorded at the same moment.
+ *
+ * Typical use on a hot path:
+ *     long start = LATENCY.start();
+ *     ...
+ *     LATENCY.stop(start);
+ * While the owning registry is disabled, start returns 0 without reading the clock and
+ * stop(0) returns immediately.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private final MetricsRegistry registry;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return long start time for stop, or 0 if the registry is disabled
+     */
+    public long start() {
+        return registry.isEnabled() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time elapsed since start.
+     *
+     * @param start The value returned by start
+     */
+    public void stop(long start) {
+        if (start != 0) {
+            recordValue(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a duration measured elsewhere.
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if (registry.isEnabled()) {
+            recordValue(nanos);
+        }
+    }
+
+    private void recordValue(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        long highest;
+        while (value > (highest = max.get()) && !max.compareAndSet(highest, value)) {
+            // Another thread raised the maximum in between; compare again
+        }
+    }
+
+    /** @return long number of recorded durations */
+    public long getCount() { return count.sum(); }
+
+    /** @return long longest recorded duration in nanoseconds */
+    public long getMax() { return max.get(); }
+
+    /**
+     * Returns the mean of all recorded durations.
+     *
+     * @return long mean duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : sum.sum() / n;
+    }
+
+    /**
+     * Returns the duration below or at which the given percentage of all recorded durations lie.
+     *
+     * @param percentile The percentile, from 0 to 100 (e.g. 99.9)
+     * @return long duration in nanoseconds (the upper end of its bucket), or 0 if nothing was recorded
+     * @throws IllegalArgumentException if percentile is not between 0 and 100
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the bucket of a value: values below 64 get a bucket each, larger values share
+     * a bucket with the values that have the same 5 bits after the highest set bit.
+     */
+    private static int indexOf(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    private static long highestValueIn(int index) {
+        int shift = Math.max(0, (index >>> SUB_BUCKET_BITS) - 1);
+        long top = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((top + 1) << shift) - 1;
+    }
+}
\ No newline at end of file
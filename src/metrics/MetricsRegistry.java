@@ -0,0 +1,99 @@
+package metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+/**
+ * The metrics.MetricsRegistry class holds named counters, latency histograms and gauges.
+ * Components look their metrics up once (typically into static final fields) and then update
+ * them directly, so the hot paths never touch the registry's maps.
+ *
+ * A registry starts disabled: counters and histograms then ignore updates after a single
+ * volatile read, so instrumented code costs next to nothing until metrics are switched on.
+ * Gauges are only evaluated when the metrics are read. Names are dotted paths such as
+ * "lot.checkin.latency"; the maps are sorted by name for stable dumps.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private volatile boolean enabled;
+
+    /**
+     * Returns the registry the parking system reports to.
+     *
+     * @return metrics.MetricsRegistry shared by all components
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Switches recording on or off. Values recorded so far are kept.
+     *
+     * @param enabled true to record, false to ignore updates
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** @return boolean true if counters and histograms currently record */
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * Returns the counter with the given name, creating it on first use.
+     *
+     * @param name The metric name
+     * @return metrics.Counter registered under the name
+     * @throws IllegalArgumentException if the name is empty
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(checkName(name), key -> new Counter(this));
+    }
+
+    /**
+     * Returns the latency histogram with the given name, creating it on first use.
+     *
+     * @param name The metric name
+     * @return metrics.LatencyHistogram registered under the name
+     * @throws IllegalArgumentException if the name is empty
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(checkName(name), key -> new LatencyHistogram(this));
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge with the same name. The supplier is called
+     * whenever the metrics are read, on the reading thread.
+     *
+     * @param name The metric name
+     * @param value Supplies the current value, e.g. the number of occupied slots
+     * @throws IllegalArgumentException if the name is empty or value is null
+     */
+    public void gauge(String name, LongSupplier value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Gauge value supplier cannot be null");
+        }
+        gauges.put(checkName(name), value);
+    }
+
+    /** @return Map<String, metrics.Counter> of all counters, sorted by name */
+    public Map<String, Counter> getCounters() { return Collections.unmodifiableMap(counters); }
+
+    /** @return Map<String, metrics.LatencyHistogram> of all histograms, sorted by name */
+    public Map<String, LatencyHistogram> getHistograms() { return Collections.unmodifiableMap(histograms); }
+
+    /** @return Map<String, LongSupplier> of all gauges, sorted by name */
+    public Map<String, LongSupplier> getGauges() { return Collections.unmodifiableMap(gauges); }
+
+    private static String checkName(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Metric name cannot be empty");
+        }
+        return name;
+    }
+}
\ No newline at end of file
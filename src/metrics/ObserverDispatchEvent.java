@@ -0,0 +1,39 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The metrics.ObserverDispatchEvent class is the flight recorder event of one delivery of
+ * parking events to an observer: a single event on the gate thread, or a batch on the
+ * observer's worker thread when notifications are asynchronous.
+ */
+@Name("parking.ObserverDispatch")
+@Label("Observer Dispatch")
+@Category({"Parking", "Observer"})
+@Description("Parking events delivered to one observer")
+@StackTrace(false)
+public class ObserverDispatchEvent extends jdk.jfr.Event {
+    @Label("Observer")
+    @Description("Type of the observer")
+    public String observer;
+
+    @Label("Events")
+    @Description("Number of parking events delivered at once")
+    public int events;
+
+    @Label("Slot")
+    @Description("Slot of the last delivered event")
+    public int slotId;
+
+    @Label("Plate Hash")
+    @Description("core.PlateCode hash of the license plate of the last delivered event")
+    public int plateHash;
+
+    @Label("Occupied Slots")
+    @Description("Occupied slots when the last delivered event happened")
+    public int occupiedSlots;
+}
\ No newline at end of file
@@ -0,0 +1,232 @@
+package observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The observer.AsyncObserverDispatcher class delivers parking events to listeners
+ * without making the gate wait for them. Each listener gets its own bounded event queue
+ * and its own single-thread executor, so a slow listener (for example a legacy observer
+ * that prints every slot to the console) cannot stall the gates or the other listeners.
+ *
+ * Publishing an event is O(number of listeners) and does not build the vehicle list.
+ * The worker of each listener drains every event queued since its last delivery and passes
+ * them as one batch to onEvents; legacy observers wrapped in observer.ObserverAdapter turn
+ * the batch into a single update, so a burst of check-ins is coalesced into one update.
+ * What happens when a queue is full is decided by the configured observer.BackpressurePolicy.
+ * Listeners that must see every single event should use BLOCK, since DROP_OLDEST may skip
+ * events under overload. COALESCE only skips events of listeners that re-read the whole lot
+ * (see ParkingEventListener.needsEveryEvent); other listeners wait as under BLOCK.
+ */
+public class AsyncObserverDispatcher implements AutoCloseable {
+    private final int queueCapacity;
+    private final BackpressurePolicy policy;
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
+
+    /**
+     * Queue and worker of a single listener.
+     */
+    private final class Channel {
+        final ParkingEventListener listener;
+        final BlockingQueue<ParkingEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final ExecutorService executor;
+        final AtomicLong accepted = new AtomicLong();   // Events put in the queue
+        final AtomicLong completed = new AtomicLong();  // Events delivered or dropped
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicLong coalesced = new AtomicLong();
+
+        Channel(ParkingEventListener listener) {
+            this.listener = listener;
+            this.executor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "observer-" + listener);
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.execute(this::run);
+        }
+
+        void publish(ParkingEvent event) throws InterruptedException {
+            switch (policy) {
+                case BLOCK:
+                    queue.put(event);
+                    accepted.incrementAndGet();
+                    break;
+                case DROP_OLDEST:
+                    while (!queue.offer(event)) {
+                        if (queue.poll() != null) {
+                            dropped.incrementAndGet();
+                            completed.incrementAndGet();
+                        }
+                    }
+                    accepted.incrementAndGet();
+                    break;
+                case COALESCE:
+                default:
+                    if (queue.offer(event)) {
+                        accepted.incrementAndGet();
+                    } else if (!listener.needsEveryEvent()) {
+                        coalesced.incrementAndGet(); // The update for a queued event will carry this change
+                    } else { // A delta listener would lose the change: wait as under BLOCK
+                        queue.put(event);
+                        accepted.incrementAndGet();
+                    }
+                    break;
+            }
+        }
+
+        void run() {
+            List<ParkingEvent> batch = new ArrayList<>();
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch);
+                    try {
+                        ObserverMetrics.deliver(listener, batch);
+                    } catch (RuntimeException e) {
+                        System.out.println("Observer " + listener + " failed: " + e.getMessage());
+                    }
+                    completed.addAndGet(batch.size());
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Dispatcher is shutting down
+            }
+        }
+
+        boolean isIdle() {
+            return completed.get() >= accepted.get();
+        }
+    }
+
+    /**
+     * Creates a dispatcher with no listeners.
+     *
+     * @param queueCapacity Maximum number of undelivered events per listener (at least 1)
+     * @param policy What to do when a listener's queue is full
+     * @throws IllegalArgumentException if queueCapacity is not positive or policy is null
+     */
+    public AsyncObserverDispatcher(int queueCapacity, BackpressurePolicy policy) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Backpressure policy cannot be null");
+        }
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+    }
+
+    /**
+     * Registers a listener and starts its worker thread.
+     *
+     * @param listener The listener to deliver events to
+     */
+    public void register(ParkingEventListener listener) {
+        channels.add(new Channel(listener));
+    }
+
+    /**
+     * Publishes a parking event to every registered listener.
+     * Called on the gate thread; only blocks when a listener's queue is full
+     * under BLOCK, or under COALESCE for a listener that needs every event.
+     *
+     * @param event The event to deliver
+     */
+    public void publish(ParkingEvent event) {
+        for (Channel channel : channels) {
+            try {
+                channel.publish(event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits until every observer has processed all events published so far.
+     *
+     * @param timeoutMillis Maximum time to wait in milliseconds
+     * @return boolean true if all observers are idle, false if the timeout expired
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Channel channel : channels) {
+            while (!channel.isIdle()) {
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+                Thread.sleep(1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of events currently waiting in all observer queues.
+     *
+     * @return int total queue depth
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Channel channel : channels) {
+            depth += channel.queue.size();
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the number of events discarded under the DROP_OLDEST policy.
+     *
+     * @return long dropped event count, summed over all observers
+     */
+    public long getDroppedEvents() {
+        long total = 0;
+        for (Channel channel : channels) {
+            total += channel.dropped.get();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of events folded into already queued events under the COALESCE policy.
+     *
+     * @return long coalesced event count, summed over all observers
+     */
+    public long getCoalescedEvents() {
+        long total = 0;
+        for (Channel channel : channels) {
+            total += channel.coalesced.get();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the backpressure policy of this dispatcher.
+     *
+     * @return observer.BackpressurePolicy in use
+     */
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Stops all observer workers. Events that have not been delivered yet are discarded;
+     * the event counters remain readable.
+     */
+    @Override
+    public void close() {
+        for (Channel channel : channels) {
+            channel.executor.shutdownNow();
+            channel.queue.clear(); // Releases gates blocked under the BLOCK policy
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package observer;
+
+/**
+ * The observer.BackpressurePolicy enum defines what observer.AsyncObserverDispatcher does
+ * when a gate publishes a change while an observer's queue is already full,
+ * i.e. the observer is slower than the rate of check-ins and check-outs.
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * Discard the oldest queued event to make room for the new one.
+     * The gate never waits; the dropped events are counted.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Make the gate wait until the observer has room in its queue.
+     * No event is lost, but a slow observer slows down the gates.
+     */
+    BLOCK,
+
+    /**
+     * Fold the new event into the events already waiting in the queue.
+     * Only done for listeners that re-read the whole lot, such as legacy observers: they still
+     * see the change, because the update for the queued events carries the latest parking
+     * state, and the gate does not wait for them. For listeners that apply deltas nothing can
+     * be folded, so the gate waits as under BLOCK.
+     */
+    COALESCE
+}
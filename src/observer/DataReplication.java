@@ -1,15 +1,185 @@
 package observer;
 
+import core.ParkingLotManager;
+import core.ParkingSlot;
 import core.Vehicle;
+import services.ReportWriter;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 /**
  * The observer.DataReplication class implements the Observer pattern to provide automatic
  * backup and replication of parking lot data. It receives notifications when
- * the parking lot state changes and creates real-time backups of the current
- * parking status for system reliability and data integrity.
+ * the parking lot state changes and ships them to replicas, so that a standby lot
+ * (see observer.ParkingReplica) always mirrors the parked vehicles of the primary.
+ *
+ * Every event is appended as a compact binary delta (see observer.ReplicationCodec) to an
+ * in-memory buffer; the gate only pays for encoding a few dozen bytes. A background shipper
+ * thread writes the buffered deltas to every replica channel (a socket, file or pipe).
+ * New replicas, replicas that fell behind (the buffer overflowed) and all replicas every
+ * snapshotInterval events receive a compressed snapshot of the whole lot to catch up from.
+ * Replicas apply frames idempotently, so a delta that is already contained in a snapshot
+ * does no harm. Events that never reached this source (dropped by asynchronous notification
+ * under overload, or discarded when it was disabled) show up as a gap in the event sequence;
+ * the replicas then receive a snapshot right away instead of applying deltas over the gap.
+ * Deltas without a gap are enough because the lot numbers the changes of a slot or plate
+ * in the order they were applied, so replaying them in sequence order ends in its state.
  */
-public class DataReplication implements ParkingObserver {
+public class DataReplication implements ParkingObserver, ParkingEventListener, AutoCloseable {
+    private static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+    private static final int DEFAULT_SNAPSHOT_INTERVAL = 10_000;
+
+    private final ParkingLotManager lot;
+    private final int snapshotInterval;
+    private final List<Replica> replicas = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+
+    // Guarded by lock: deltas appended by the gates, and the buffer being shipped
+    private ByteBuffer pending;
+    private ByteBuffer shipping;
+    private long eventsSinceSnapshot;
+    private boolean snapshotDue;
+    private boolean running;
+    private Thread shipper;
+
+    private volatile long lastSequence;  // Sequence of the last event whose change is in the lot
+    private volatile long droppedDeltas; // Deltas replaced by a snapshot because the buffer was full
+    private volatile long sequenceGaps;  // Gaps in the received event sequence, each resolved by a snapshot
+
+    /**
+     * A replica channel and whether it still has to receive its first snapshot.
+     */
+    private static final class Replica {
+        final WritableByteChannel channel;
+        volatile boolean needsSnapshot = true;
+
+        Replica(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Creates a replication source for the singleton parking lot.
+     */
+    public DataReplication() {
+        this(ParkingLotManager.getInstance());
+    }
+
+    /**
+     * Creates a replication source for a lot, with a 1 MB delta buffer and a snapshot
+     * every 10,000 events. Register it with lot.addEventListener.
+     *
+     * @param lot The primary lot whose changes are replicated
+     */
+    public DataReplication(ParkingLotManager lot) {
+        this(lot, DEFAULT_BUFFER_BYTES, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Creates a replication source for a lot.
+     *
+     * @param lot The primary lot whose changes are replicated
+     * @param bufferBytes Size of the delta buffer; when it is full, replicas get a snapshot instead
+     * @param snapshotInterval Number of events after which all replicas get a new snapshot
+     * @throws IllegalArgumentException if lot is null or bufferBytes or snapshotInterval is not positive
+     */
+    public DataReplication(ParkingLotManager lot, int bufferBytes, int snapshotInterval) {
+        if (lot == null || bufferBytes < 1 || snapshotInterval < 1) {
+            throw new IllegalArgumentException("Lot is required and buffer size and snapshot interval must be positive");
+        }
+        this.lot = lot;
+        this.snapshotInterval = snapshotInterval;
+        this.pending = ByteBuffer.allocate(bufferBytes);
+        this.shipping = ByteBuffer.allocate(bufferBytes);
+    }
+
+    /**
+     * Starts replicating to a channel, e.g. a connected SocketChannel, a FileChannel or the sink
+     * of a Pipe. The replica first receives a snapshot, then every following delta.
+     * The channel is closed when replication to it fails or this source is closed.
+     *
+     * @param channel A blocking channel to write frames to
+     */
+    public void addReplica(WritableByteChannel channel) {
+        replicas.add(new Replica(channel));
+        synchronized (lock) {
+            snapshotDue = true;
+            if (shipper == null) {
+                running = true;
+                shipper = new Thread(this::ship, "replication-shipper");
+                shipper.setDaemon(true);
+                shipper.start();
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Returns the number of replicas currently being shipped to.
+     *
+     * @return int replica count
+     */
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    /**
+     * Returns the number of deltas that did not fit the buffer and were replaced by a snapshot.
+     *
+     * @return long count of dropped deltas
+     */
+    public long getDroppedDeltas() {
+        return droppedDeltas;
+    }
+
+    /**
+     * Returns the number of times events were missing between two received events, so that
+     * replicas had to be resynchronized with a snapshot.
+     *
+     * @return long count of sequence gaps
+     */
+    public long getSequenceGaps() {
+        return sequenceGaps;
+    }
+
+    /**
+     * Appends the event to the delta buffer. Called on the gate path: it encodes the event
+     * into the buffer and wakes the shipper, nothing more.
+     *
+     * @param event The entry, exit or slot change to replicate
+     */
+    @Override
+    public void onEvent(ParkingEvent event) {
+        long previous = lastSequence;
+        lastSequence = event.getSequence(); // The change itself is already in the lot
+        if (replicas.isEmpty()) {
+            return;
+        }
+        synchronized (lock) {
+            if (previous != 0 && event.getSequence() != previous + 1) {
+                // Events in between were lost before reaching us: deltas alone would leave replicas wrong
+                sequenceGaps++;
+                snapshotDue = true;
+            }
+            if (!ReplicationCodec.putDelta(pending, event)) {
+                // Replicas fell too far behind: drop the buffered deltas and resync with a snapshot
+                droppedDeltas += countFrames(pending) + 1;
+                pending.clear();
+                snapshotDue = true;
+                for (Replica replica : replicas) {
+                    replica.needsSnapshot = true;
+                }
+            } else if (++eventsSinceSnapshot >= snapshotInterval) {
+                snapshotDue = true;
+            }
+            lock.notifyAll();
+        }
+    }
+
     /**
      * Receives notifications from the parking lot manager when the parking state changes.
      * This method is automatically called whenever a vehicle enters or exits the parking lot.
@@ -29,18 +199,118 @@ public class DataReplication implements ParkingObserver {
      * @param vehicles List of all vehicles to replicate data for
      */
     public static void replicateData(List<Vehicle> vehicles) {
-        System.out.println("Replicating parking data...");
+        ParkingLog.writeSlots(ReportWriter.stdout(), "replication", "Replicating parking data...", vehicles);
+    }
 
-        for (int i = 0; i < vehicles.size(); i++) {
-            Vehicle v = vehicles.get(i);
+    /**
+     * Ships the deltas that are still buffered, stops the shipper and closes all replica channels.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (lock) {
+            running = false;
+            thread = shipper;
+            lock.notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Replica replica : replicas) {
+            closeReplica(replica);
+        }
+    }
 
-            if (v != null && v.isAvailable()) {
+    /**
+     * Body of the shipper thread: swaps the delta buffers, writes the deltas to every
+     * replica and sends snapshots where needed, until the source is closed.
+     */
+    private void ship() {
+        while (true) {
+            boolean snapshot;
+            synchronized (lock) {
+                while (running && pending.position() == 0 && !snapshotDue) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        running = false;
+                    }
+                }
+                if (!running && pending.position() == 0 && !snapshotDue) {
+                    shipper = null;
+                    return;
+                }
+                ByteBuffer full = pending;
+                pending = shipping;
+                shipping = full;
+                snapshot = snapshotDue;
+                snapshotDue = false;
+                if (snapshot) {
+                    eventsSinceSnapshot = 0;
+                }
+            }
 
-                System.out.println("Slot " + (i + 1) + ": " + v.getLicensePlate());
-            } else {
+            shipping.flip();
+            ByteBuffer frame = snapshot ? takeSnapshot() : null;
+            for (Replica replica : replicas) {
+                try {
+                    if (snapshot) {
+                        replica.needsSnapshot = false;
+                        write(replica.channel, shipping.duplicate()); // Replicas skip deltas the snapshot contains
+                        write(replica.channel, frame.duplicate());
+                    } else if (!replica.needsSnapshot) {
+                        write(replica.channel, shipping.duplicate());
+                    }
+                } catch (IOException e) {
+                    System.out.println("Replication to " + replica.channel + " failed: " + e.getMessage());
+                    closeReplica(replica);
+                }
+            }
+            shipping.clear();
+        }
+    }
 
-                System.out.println("Slot " + (i + 1) + ": Empty");
+    /**
+     * Encodes a snapshot of all parked vehicles. The sequence is read before the slots, so the
+     * snapshot contains at least every change up to that sequence.
+     */
+    private ByteBuffer takeSnapshot() {
+        long sequence = lastSequence;
+        List<ReplicationCodec.Entry> entries = new ArrayList<>();
+        for (ParkingSlot slot : lot.getSlots()) {
+            Vehicle vehicle = slot.getCurrentVehicle();
+            if (vehicle != null) {
+                entries.add(new ReplicationCodec.Entry(slot.getId(), vehicle.getLicensePlate(),
+                        vehicle.getOwner(), vehicle.getEntryTime()));
             }
         }
+        return ReplicationCodec.encodeSnapshot(sequence, lot.getTotalSlots(), entries);
+    }
+
+    private static void write(WritableByteChannel channel, ByteBuffer frames) throws IOException {
+        while (frames.hasRemaining()) {
+            channel.write(frames);
+        }
+    }
+
+    private static int countFrames(ByteBuffer buffer) {
+        int count = 0;
+        for (int i = 0; i < buffer.position(); i += 4 + buffer.getInt(i)) {
+            count++;
+        }
+        return count;
+    }
+
+    private void closeReplica(Replica replica) {
+        replicas.remove(replica);
+        try {
+            replica.channel.close();
+        } catch (IOException e) {
+            System.out.println("Could not close replica " + replica.channel + ": " + e.getMessage());
+        }
     }
-}
+}
\ No newline at end of file
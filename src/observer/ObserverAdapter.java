@@ -0,0 +1,70 @@
+package observer;
+
+import core.Vehicle;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The observer.ObserverAdapter class implements the Adapter pattern so that legacy
+ * observer.ParkingObserver implementations can be driven by the event stream.
+ * Every event (or every batch of events, when dispatched asynchronously) is turned
+ * into a single update call with the current list of parked vehicles.
+ */
+public class ObserverAdapter implements ParkingEventListener {
+    private final ParkingObserver observer;
+    private final Supplier<List<Vehicle>> snapshot;
+
+    /**
+     * Creates an adapter for a legacy observer.
+     *
+     * @param observer The observer to notify
+     * @param snapshot Supplies the list of currently parked vehicles
+     */
+    public ObserverAdapter(ParkingObserver observer, Supplier<List<Vehicle>> snapshot) {
+        this.observer = observer;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Returns the wrapped legacy observer.
+     *
+     * @return observer.ParkingObserver being adapted
+     */
+    public ParkingObserver getObserver() {
+        return observer;
+    }
+
+    @Override
+    public void onEvent(ParkingEvent event) {
+        observer.update(snapshot.get());
+    }
+
+    /**
+     * Delivers a whole batch as one update; the snapshot is taken after the batch was
+     * collected, so it already includes every change in it.
+     *
+     * @param events The queued events, oldest first
+     */
+    @Override
+    public void onEvents(List<ParkingEvent> events) {
+        if (!events.isEmpty()) {
+            observer.update(snapshot.get());
+        }
+    }
+
+    /**
+     * Every update carries the whole current state, so skipped events are not lost.
+     *
+     * @return boolean false
+     */
+    @Override
+    public boolean needsEveryEvent() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return observer.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,90 @@
+package observer;
+
+import core.PlateCode;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import metrics.ObserverDispatchEvent;
+
+import java.util.List;
+
+/**
+ * The observer.ObserverMetrics class delivers events to listeners while timing each delivery
+ * in a latency histogram per listener type, named "observer.<type>.latency". Legacy observers
+ * are timed under the type of the wrapped observer.ParkingObserver, so the histogram of e.g.
+ * ParkingLog covers its update call. Asynchronous workers time a whole batch per delivery.
+ * While a flight recording is running, every delivery is also recorded as a
+ * metrics.ObserverDispatchEvent.
+ */
+public final class ObserverMetrics {
+    private static final ClassValue<LatencyHistogram> LATENCY = new ClassValue<>() {
+        @Override
+        protected LatencyHistogram computeValue(Class<?> type) {
+            String name = type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName();
+            return MetricsRegistry.global().histogram("observer." + name + ".latency");
+        }
+    };
+
+    private ObserverMetrics() {
+    }
+
+    /**
+     * Delivers one event to a listener.
+     *
+     * @param listener The listener
+     * @param event The event to deliver
+     */
+    public static void deliver(ParkingEventListener listener, ParkingEvent event) {
+        LatencyHistogram latency = latencyOf(listener);
+        long start = latency.start();
+        ObserverDispatchEvent dispatch = new ObserverDispatchEvent();
+        dispatch.begin();
+        listener.onEvent(event);
+        latency.stop(start);
+        commit(dispatch, listener, event, 1);
+    }
+
+    /**
+     * Delivers a batch of events to a listener.
+     *
+     * @param listener The listener
+     * @param events The events to deliver, oldest first
+     */
+    static void deliver(ParkingEventListener listener, List<ParkingEvent> events) {
+        LatencyHistogram latency = latencyOf(listener);
+        long start = latency.start();
+        ObserverDispatchEvent dispatch = new ObserverDispatchEvent();
+        dispatch.begin();
+        listener.onEvents(events);
+        latency.stop(start);
+        commit(dispatch, listener, events.isEmpty() ? null : events.get(events.size() - 1), events.size());
+    }
+
+    private static void commit(ObserverDispatchEvent dispatch, ParkingEventListener listener,
+                               ParkingEvent last, int count) {
+        if (dispatch.shouldCommit()) { // Only while a flight recording is running
+            dispatch.observer = observerType(listener).getSimpleName();
+            dispatch.events = count;
+            if (last != null) {
+                dispatch.slotId = last.getSlotId();
+                dispatch.plateHash = PlateCode.hash(last.getLicensePlate());
+                dispatch.occupiedSlots = last.getOccupiedSlots();
+            }
+            dispatch.commit();
+        }
+    }
+
+    /**
+     * Returns the histogram deliveries to a listener are timed in.
+     *
+     * @param listener The listener
+     * @return metrics.LatencyHistogram of the listener's type
+     */
+    public static LatencyHistogram latencyOf(ParkingEventListener listener) {
+        return LATENCY.get(observerType(listener));
+    }
+
+    private static Class<?> observerType(ParkingEventListener listener) {
+        return listener instanceof ObserverAdapter
+                ? ((ObserverAdapter) listener).getObserver().getClass() : listener.getClass();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package observer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The observer.ParkingEvent class describes a single change of the parking lot state:
+ * one vehicle entering, leaving, or being moved to another slot. Unlike the vehicle list
+ * passed to observer.ParkingObserver, an event only carries the data of the vehicle that
+ * changed, so listeners can process it in constant time regardless of the lot size.
+ * Events are immutable Data Transfer Objects.
+ */
+public class ParkingEvent {
+
+    /**
+     * The kind of change an event describes.
+     */
+    public enum Type {
+        /** A vehicle was checked in and parked in a slot. */
+        ENTERED,
+        /** A vehicle was checked out and its slot released. */
+        EXITED,
+        /** A parked vehicle was moved from one slot to another. */
+        SLOT_CHANGED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final int slotId;
+    private final int previousSlotId;
+    private final String licensePlate;
+    private final String owner;
+    private final LocalDateTime entryTime;
+    private final LocalDateTime exitTime;
+    private final BigDecimal fee;
+    private final int occupiedSlots;
+
+    /**
+     * Constructs a new parking event.
+     *
+     * @param sequence Position of the event in the lot's event stream (starts at 1, no gaps)
+     * @param type The kind of change
+     * @param slotId The slot the vehicle is in after the change (the released slot for EXITED)
+     * @param previousSlotId The slot the vehicle was in before a SLOT_CHANGED event, otherwise 0
+     * @param licensePlate The license plate of the vehicle
+     * @param owner The name of the vehicle owner
+     * @param entryTime The time the vehicle entered the lot
+     * @param exitTime The time the vehicle left the lot, or null if it is still parked
+     * @param fee The parking fee charged on exit, or null for other events
+     * @param occupiedSlots The number of occupied slots in the lot after the change
+     */
+    public ParkingEvent(long sequence, Type type, int slotId, int previousSlotId, String licensePlate,
+                        String owner, LocalDateTime entryTime, LocalDateTime exitTime, BigDecimal fee,
+                        int occupiedSlots) {
+        this.sequence = sequence;
+        this.type = type;
+        this.slotId = slotId;
+        this.previousSlotId = previousSlotId;
+        this.licensePlate = licensePlate;
+        this.owner = owner;
+        this.entryTime = entryTime;
+        this.exitTime = exitTime;
+        this.fee = fee;
+        this.occupiedSlots = occupiedSlots;
+    }
+
+    /**
+     * Returns the position of the event in the lot's event stream.
+     * @return long sequence number, starting at 1
+     */
+    public long getSequence() { return sequence; }
+
+    /**
+     * Returns the kind of change.
+     * @return Type of the event
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Returns the slot the event refers to.
+     * @return int slot id
+     */
+    public int getSlotId() { return slotId; }
+
+    /**
+     * Returns the slot a moved vehicle came from.
+     * @return int previous slot id for SLOT_CHANGED events, otherwise 0
+     */
+    public int getPreviousSlotId() { return previousSlotId; }
+
+    /**
+     * Returns the license plate of the vehicle.
+     * @return String representing the license plate
+     */
+    public String getLicensePlate() { return licensePlate; }
+
+    /**
+     * Returns the name of the vehicle owner.
+     * @return String representing the owner's name
+     */
+    public String getOwner() { return owner; }
+
+    /**
+     * Returns the time the vehicle entered the lot.
+     * @return LocalDateTime entry time
+     */
+    public LocalDateTime getEntryTime() { return entryTime; }
+
+    /**
+     * Returns the time the vehicle left the lot.
+     * @return LocalDateTime exit time, or null if the vehicle is still parked
+     */
+    public LocalDateTime getExitTime() { return exitTime; }
+
+    /**
+     * Returns the fee charged on exit.
+     * @return BigDecimal fee in NIS for EXITED events, otherwise null
+     */
+    public BigDecimal getFee() { return fee; }
+
+    /**
+     * Returns the number of occupied slots right after the change.
+     * @return int occupied slot count
+     */
+    public int getOccupiedSlots() { return occupiedSlots; }
+
+    /**
+     * Provides a one-line description of the event for logging.
+     *
+     * @return String describing the event
+     */
+    @Override
+    public String toString() {
+        switch (type) {
+            case ENTERED:
+                return "Slot " + slotId + ": " + licensePlate + " entered";
+            case EXITED:
+                return "Slot " + slotId + ": " + licensePlate + " exited, fee " + fee + " NIS";
+            default:
+                return "Slot " + previousSlotId + " -> " + slotId + ": " + licensePlate + " moved";
+        }
+    }
+}
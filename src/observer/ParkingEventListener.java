@@ -0,0 +1,46 @@
+package observer;
+
+import java.util.List;
+
+/**
+ * The observer.ParkingEventListener interface is the event-based counterpart of
+ * observer.ParkingObserver. Instead of the full list of parked vehicles, a listener
+ * receives one observer.ParkingEvent per gate operation describing only what changed,
+ * so its work per event does not depend on the size of the lot.
+ *
+ * Existing observers keep working unchanged: core.ParkingLotManager wraps them in an
+ * observer.ObserverAdapter that turns events back into full vehicle list updates.
+ */
+public interface ParkingEventListener {
+
+    /**
+     * Called for every change of the parking lot state, in sequence order.
+     *
+     * @param event The change that happened
+     */
+    void onEvent(ParkingEvent event);
+
+    /**
+     * Called by the asynchronous dispatcher with all events that were queued since the
+     * previous delivery. The default implementation passes them to onEvent one by one;
+     * listeners that only need the latest state can override it to handle the batch at once.
+     *
+     * @param events The queued events, oldest first
+     */
+    default void onEvents(List<ParkingEvent> events) {
+        for (ParkingEvent event : events) {
+            onEvent(event);
+        }
+    }
+
+    /**
+     * Tells the asynchronous dispatcher whether this listener must see every event.
+     * Listeners that apply deltas must (the default); listeners that re-read the whole lot on
+     * every delivery can return false, and then their events may be coalesced under load.
+     *
+     * @return boolean true if no event may be skipped for this listener
+     */
+    default boolean needsEveryEvent() {
+        return true;
+    }
+}
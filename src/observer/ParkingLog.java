@@ -1,8 +1,8 @@
 package observer;
 
 import core.Vehicle;
+import services.ReportWriter;
 
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 /**
@@ -11,7 +11,19 @@ import java.util.List;
  * when the parking lot state changes and generates comprehensive reports about
  * current parking status, vehicle entries, exits, and overall statistics.
  */
-public class ParkingLog implements ParkingObserver {
+public class ParkingLog implements ParkingObserver, ParkingEventListener {
+    private static final ReportWriter.Column[] SLOT_COLUMNS = {
+            new ReportWriter.Column("slot", "Slot "), new ReportWriter.Column("plate", ": ")};
+    private static final ReportWriter.Column[] VEHICLE_COLUMNS = {
+            new ReportWriter.Column("plate", "core.Vehicle: "),
+            new ReportWriter.Column("owner", " (Owner: "),
+            new ReportWriter.Column("entry", "), Entry: "),
+            new ReportWriter.Column("exit", ", Exit: "),
+            new ReportWriter.Column("status", ", Status: ")};
+    private static final ReportWriter.Column[] SUMMARY_COLUMNS = {
+            new ReportWriter.Column("currentlyParked", "Currently Parked: "),
+            new ReportWriter.Column("totalSlots", " / "),
+            new ReportWriter.Column("totalVehicles", "\nTotal Vehicles Ever Parked: ")};
 
     /**
      * Receives notifications from the parking lot manager when the parking state changes.
@@ -25,6 +37,17 @@ public class ParkingLog implements ParkingObserver {
         logParkingStatus(vehicles);
     }
 
+    /**
+     * Receives a single parking event and logs only the slot that changed,
+     * so logging costs the same no matter how large the lot is.
+     *
+     * @param event The entry, exit or slot change to log
+     */
+    @Override
+    public void onEvent(ParkingEvent event) {
+        System.out.println("----- core.Vehicle Log ----- " + event);
+    }
+
     /**
      * Prints the current parking slots status showing which vehicles are still in the lot.
      * This method provides a quick overview of the current parking lot occupancy,
@@ -33,18 +56,27 @@ public class ParkingLog implements ParkingObserver {
      * @param vehicles List of all vehicles to check for current parking status
      */
     public static void logParkingStatus(List<Vehicle> vehicles) {
-        System.out.println("----- core.Vehicle Log -----");
+        writeSlots(ReportWriter.stdout(), "log", "----- core.Vehicle Log -----", vehicles);
+    }
+
+    /**
+     * Writes one row per slot with the license plate of the vehicle still in it, or "Empty".
+     * Shared by the parking log and observer.DataReplication.
+     *
+     * @param out The report writer; it is flushed but not closed
+     * @param name Name of the report
+     * @param heading First line of the text format
+     * @param vehicles List of all vehicles to check for current parking status
+     */
+    static void writeSlots(ReportWriter out, String name, String heading, List<Vehicle> vehicles) {
+        out.beginReport(name).textLine(heading).beginTable("slots", "Empty", SLOT_COLUMNS);
         for (int i = 0; i < vehicles.size(); i++) {
             Vehicle v = vehicles.get(i);
 
-            // If the slot has a vehicle and it's still in the lot – print its license plate
-            if (v != null && v.isAvailable()) {
-                System.out.println("Slot " + (i + 1) + ": " + v.getLicensePlate());
-            } else {
-                // Otherwise – the slot is empty
-                System.out.println("Slot " + (i + 1) + ": Empty");
-            }
+            // If the slot has a vehicle and it's still in the lot – its license plate, otherwise empty
+            out.cell(i + 1).cell(v != null && v.isAvailable() ? v.getLicensePlate() : null).endRow();
         }
+        out.endTable().endReport();
     }
 
     /**
@@ -52,7 +84,7 @@ public class ParkingLog implements ParkingObserver {
      * for each slot. This method provides detailed information about all vehicles that
      * have ever used the parking lot, including their current status and timing information.
      *
-     * @param vehicles List of all vehicles that have ever been in the parking lot
+     * @param vehicles All vehicles that have ever been in the parking lot, read once in order
      * @param totalSlots Total number of available parking slots in the lot
      *
      * services.Report includes:
@@ -61,36 +93,47 @@ public class ParkingLog implements ParkingObserver {
      * - Current status (In Lot or Exited)
      * - Summary statistics of currently parked vs. total capacity
      */
-    public static void displayFullReport(List<Vehicle> vehicles, int totalSlots) {
-        System.out.println("----- Full Parking services.Report -----");
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+    public static void displayFullReport(Iterable<Vehicle> vehicles, int totalSlots) {
+        displayFullReport(vehicles, totalSlots, ReportWriter.stdout());
+    }
 
-        // Display all vehicles that have ever entered the parking lot
+    /**
+     * Streams the full parking report to a report writer: one row per vehicle followed by a
+     * summary row. The text format is the one of displayFullReport(vehicles, totalSlots);
+     * CSV and JSON use ISO timestamps, null for missing times and IN_LOT/EXITED as status.
+     *
+     * @param vehicles All vehicles that have ever been in the parking lot, read once in order
+     * @param totalSlots Total number of available parking slots in the lot
+     * @param out The report writer; it is flushed but not closed
+     */
+    public static void displayFullReport(Iterable<Vehicle> vehicles, int totalSlots, ReportWriter out) {
+        boolean text = out.getFormat() == ReportWriter.Format.TEXT;
+        out.beginReport("full").textLine("----- Full Parking services.Report -----");
+
+        // All vehicles that have ever entered the parking lot, counted on the way;
+        // missing entry/exit times are shown as a dash
+        out.beginTable("vehicles", "—", VEHICLE_COLUMNS);
+        long currentlyParked = 0;
+        long totalVehicles = 0;
         for (Vehicle v : vehicles) {
             if (v != null) {
-                // Format entry/exit times – if not available, show dash
-                String entry = v.getEntryTime() != null ? v.getEntryTime().format(formatter) : "—";
-                String exit = v.getExitTime() != null ? v.getExitTime().format(formatter) : "—";
-
+                totalVehicles++;
+                boolean inLot = v.getExitTime() == null;
+                if (inLot) {
+                    currentlyParked++;
+                }
                 // core.Vehicle status indicator
-                String status = (v.getExitTime() == null) ? "🚗 In Lot" : "🚪 Exited";
-
-                // Print comprehensive vehicle details
-                System.out.println("core.Vehicle: " + v.getLicensePlate() +
-                        " (Owner: " + v.getOwner() + ")" +
-                        ", Entry: " + entry +
-                        ", Exit: " + exit +
-                        ", Status: " + status);
+                String status = text ? (inLot ? "🚗 In Lot" : "🚪 Exited") : (inLot ? "IN_LOT" : "EXITED");
+                out.cell(v.getLicensePlate()).cell(v.getOwner())
+                        .cell(v.getEntryTime()).cell(v.getExitTime()).cell(status).endRow();
             }
         }
+        out.endTable();
 
         // Parking slots summary statistics
-        System.out.println("\n--- Parking Slots Summary ---");
-        long currentlyParked = vehicles.stream()
-                .filter(v -> v != null && v.getExitTime() == null)
-                .count();
-
-        System.out.println("Currently Parked: " + currentlyParked + " / " + totalSlots);
-        System.out.println("Total Vehicles Ever Parked: " + vehicles.size());
+        out.textLine("\n--- Parking Slots Summary ---")
+                .beginTable("summary", "", SUMMARY_COLUMNS)
+                .cell(currentlyParked).cell(totalSlots).cell(totalVehicles).endRow()
+                .endTable().endReport();
     }
 }
\ No newline at end of file
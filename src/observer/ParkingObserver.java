@@ -14,6 +14,9 @@ import java.util.List;
  * - Subject: core.ParkingLotManager (notifies observers of state changes)
  * - Observer: Classes implementing this interface (receive notifications)
  * - ConcreteObservers: observer.ParkingLog, observer.DataReplication, etc.
+ *
+ * Observers that only need to know what changed should implement
+ * observer.ParkingEventListener instead, which receives one event per change.
  */
 public interface ParkingObserver {
 
@@ -0,0 +1,202 @@
+package observer;
+
+import core.ParkingLotManager;
+import core.ParkingSlot;
+import core.PlateFormats;
+import core.Vehicle;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * The observer.ParkingReplica class applies the frames shipped by observer.DataReplication
+ * to a standby lot, so that the standby mirrors which vehicle is parked in which slot of
+ * the primary and can take over its gates.
+ *
+ * Applying is idempotent: a snapshot replaces the whole occupancy, deltas up to the last
+ * applied sequence are skipped, and every delta sets the state it describes (vehicle X in
+ * slot N, slot N no longer holding X) instead of changing it relative to the current state.
+ * Deltas that arrive before the first snapshot are ignored. The standby lot records no
+ * history or statistics and notifies no listeners while applying.
+ */
+public class ParkingReplica {
+    private final ParkingLotManager lot;
+    private volatile long lastSequence = -1; // -1 until the first snapshot
+    private volatile long snapshotsApplied;
+    private volatile long deltasApplied;
+
+    /**
+     * Creates a replica that applies frames to a standby lot.
+     *
+     * @param lot The standby lot; it must have as many slots as the primary
+     * @throws IllegalArgumentException if lot is null
+     */
+    public ParkingReplica(ParkingLotManager lot) {
+        if (lot == null) {
+            throw new IllegalArgumentException("Standby lot is required");
+        }
+        this.lot = lot;
+    }
+
+    /**
+     * Reads and applies frames from a channel until it reaches end of stream, e.g. until the
+     * primary closes its observer.DataReplication. Blocks the calling thread.
+     *
+     * @param channel A blocking channel delivering frames, e.g. a SocketChannel or Pipe source
+     * @throws IOException if reading fails or the stream ends in the middle of a frame
+     */
+    public void readFrom(ReadableByteChannel channel) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        ByteBuffer frame = ByteBuffer.allocate(4096);
+        while (true) {
+            length.clear();
+            if (!readFully(channel, length, true)) {
+                return;
+            }
+            int size = length.getInt(0);
+            if (size > frame.capacity()) {
+                frame = ByteBuffer.allocate(Math.max(size, frame.capacity() * 2));
+            }
+            frame.clear().limit(size);
+            readFully(channel, frame, false);
+            frame.flip();
+            apply(frame);
+        }
+    }
+
+    /**
+     * Applies one frame (without its length prefix).
+     *
+     * @param frame The frame, from its kind byte to its end
+     * @throws IllegalArgumentException if the frame is malformed or its snapshot does not fit the lot
+     */
+    public synchronized void apply(ByteBuffer frame) {
+        byte kind = frame.get();
+        long sequence = frame.getLong();
+        if (kind == ReplicationCodec.SNAPSHOT) {
+            applySnapshot(frame, sequence);
+            return;
+        }
+        if (lastSequence < 0 || sequence <= lastSequence) {
+            return; // Not initialized yet, or already contained in the state
+        }
+        int slotId = frame.getInt();
+        int previousSlotId = frame.getInt();
+        ReplicationCodec.Entry entry = ReplicationCodec.getEntry(frame, slotId);
+        if (kind == ReplicationCodec.EXITED) {
+            vacate(slotId, entry.licensePlate);
+        } else if (kind == ReplicationCodec.ENTERED || kind == ReplicationCodec.MOVED) {
+            Vehicle moved = kind == ReplicationCodec.MOVED ? vacate(previousSlotId, entry.licensePlate) : null;
+            occupy(entry, moved);
+        } else {
+            throw new IllegalArgumentException("Unknown replication frame: " + kind);
+        }
+        lastSequence = sequence;
+        deltasApplied++;
+    }
+
+    /**
+     * Returns the sequence of the last event contained in the standby state.
+     *
+     * @return long sequence, or -1 if no snapshot has been received yet
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /** @return long number of snapshots applied */
+    public long getSnapshotsApplied() {
+        return snapshotsApplied;
+    }
+
+    /** @return long number of deltas applied (skipped duplicates not counted) */
+    public long getDeltasApplied() {
+        return deltasApplied;
+    }
+
+    /** @return core.ParkingLotManager the standby lot */
+    public ParkingLotManager getLot() {
+        return lot;
+    }
+
+    private void applySnapshot(ByteBuffer frame, long sequence) {
+        int totalSlots = frame.getInt();
+        if (totalSlots != lot.getTotalSlots()) {
+            throw new IllegalArgumentException("Primary has " + totalSlots + " slots, standby lot has "
+                    + lot.getTotalSlots());
+        }
+        ReplicationCodec.Entry[] bySlot = new ReplicationCodec.Entry[totalSlots];
+        for (ReplicationCodec.Entry entry : ReplicationCodec.getSnapshotEntries(frame)) {
+            bySlot[entry.slotId - 1] = entry;
+        }
+        for (ParkingSlot slot : lot.getSlots()) { // Empty first, so no plate is ever in two slots
+            Vehicle current = slot.getCurrentVehicle();
+            ReplicationCodec.Entry entry = bySlot[slot.getId() - 1];
+            if (current != null && (entry == null || !current.getLicensePlate().equals(entry.licensePlate))) {
+                slot.removeVehicle();
+            }
+        }
+        for (ReplicationCodec.Entry entry : bySlot) {
+            if (entry != null) {
+                occupy(entry, null);
+            }
+        }
+        lastSequence = sequence;
+        snapshotsApplied++;
+    }
+
+    /**
+     * Empties a slot if it holds the given plate.
+     *
+     * @return Vehicle that was removed, or null
+     */
+    private Vehicle vacate(int slotId, String licensePlate) {
+        if (slotId < 1 || slotId > lot.getTotalSlots()) {
+            return null;
+        }
+        ParkingSlot slot = lot.getSlots().get(slotId - 1);
+        Vehicle current = slot.getCurrentVehicle();
+        if (current == null || !current.getLicensePlate().equals(licensePlate)) {
+            return null;
+        }
+        slot.removeVehicle();
+        return current;
+    }
+
+    /**
+     * Puts a vehicle into its slot unless it is already there, removing the plate from any
+     * other slot first.
+     */
+    private void occupy(ReplicationCodec.Entry entry, Vehicle vehicle) {
+        ParkingSlot slot = lot.getSlots().get(entry.slotId - 1);
+        Vehicle current = slot.getCurrentVehicle();
+        if (current != null && current.getLicensePlate().equals(entry.licensePlate)) {
+            return;
+        }
+        ParkingSlot elsewhere = lot.findSlotByPlate(entry.licensePlate);
+        if (elsewhere != null) {
+            Vehicle other = vacate(elsewhere.getId(), entry.licensePlate);
+            vehicle = vehicle != null ? vehicle : other;
+        }
+        if (vehicle == null) {
+            vehicle = new Vehicle(entry.licensePlate, entry.owner, PlateFormats.ANY);
+            vehicle.setEntryTime(entry.entryTime);
+        }
+        slot.assignVehicle(vehicle);
+    }
+
+    private static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer, boolean endAllowed)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (endAllowed && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Replication stream ended in the middle of a frame");
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,228 @@
+package observer;
+
+import core.PlateCode;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The observer.ReplicationCodec class defines the binary frames shipped from a primary lot
+ * to its replicas. Every frame starts with its length (int) and kind (byte):
+ *
+ * - ENTERED, EXITED, MOVED: sequence (long), slot id (int), previous slot id (int), vehicle
+ * - SNAPSHOT: sequence (long), slot count (int), vehicle count (int), raw length (int),
+ *   then the deflated list of (slot id (int), vehicle) of all parked vehicles
+ *
+ * A vehicle is its plate code (long; the plate follows as a string if the code is NONE),
+ * owner (string) and entry time (epoch second (long), nano (int); Long.MIN_VALUE if none).
+ * Strings are a varint of (length << 1 | wide) followed by one byte per character, or two
+ * for strings with non-ASCII characters (wide = 1). All numbers are big-endian.
+ */
+final class ReplicationCodec {
+    static final byte ENTERED = 1;
+    static final byte EXITED = 2;
+    static final byte MOVED = 3;
+    static final byte SNAPSHOT = 4;
+
+    private static final int DELTA_HEADER = 4 + 1 + 8 + 4 + 4;
+
+    /**
+     * A parked vehicle as carried by replication frames.
+     */
+    static final class Entry {
+        final int slotId;
+        final String licensePlate;
+        final String owner;
+        final LocalDateTime entryTime;
+
+        Entry(int slotId, String licensePlate, String owner, LocalDateTime entryTime) {
+            this.slotId = slotId;
+            this.licensePlate = licensePlate;
+            this.owner = owner;
+            this.entryTime = entryTime;
+        }
+    }
+
+    private ReplicationCodec() {
+    }
+
+    /**
+     * Appends the delta frame of an event to a buffer without allocating.
+     *
+     * @param out The buffer to append to
+     * @param event The event to encode
+     * @return boolean true if the frame was appended, false if the buffer has no room for it
+     */
+    static boolean putDelta(ByteBuffer out, ParkingEvent event) {
+        if (out.remaining() < DELTA_HEADER + maxVehicleSize(event.getLicensePlate(), event.getOwner())) {
+            return false;
+        }
+        int start = out.position();
+        out.position(start + 4);
+        out.put(event.getType() == ParkingEvent.Type.ENTERED ? ENTERED
+                : event.getType() == ParkingEvent.Type.EXITED ? EXITED : MOVED);
+        out.putLong(event.getSequence());
+        out.putInt(event.getSlotId());
+        out.putInt(event.getPreviousSlotId());
+        putVehicle(out, event.getLicensePlate(), event.getOwner(), event.getEntryTime());
+        out.putInt(start, out.position() - start - 4);
+        return true;
+    }
+
+    /**
+     * Encodes a compressed snapshot frame of all parked vehicles.
+     *
+     * @param sequence Sequence of the last event included in the snapshot
+     * @param totalSlots Number of slots of the lot
+     * @param entries The parked vehicles
+     * @return ByteBuffer holding the frame, ready to be written
+     */
+    static ByteBuffer encodeSnapshot(long sequence, int totalSlots, List<Entry> entries) {
+        int size = 0;
+        for (Entry entry : entries) {
+            size += 4 + maxVehicleSize(entry.licensePlate, entry.owner);
+        }
+        ByteBuffer raw = ByteBuffer.allocate(size);
+        for (Entry entry : entries) {
+            raw.putInt(entry.slotId);
+            putVehicle(raw, entry.licensePlate, entry.owner, entry.entryTime);
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(raw.array(), 0, raw.position());
+        deflater.finish();
+        ByteBuffer frame = ByteBuffer.allocate(4 + 1 + 8 + 4 + 4 + 4 + raw.position() + 64);
+        frame.position(4 + 1 + 8 + 4 + 4 + 4);
+        while (!deflater.finished()) {
+            if (!frame.hasRemaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(frame.capacity() * 2);
+                frame.flip();
+                grown.put(frame);
+                frame = grown;
+            }
+            frame.position(frame.position()
+                    + deflater.deflate(frame.array(), frame.position(), frame.remaining()));
+        }
+        deflater.end();
+        frame.putInt(0, frame.position() - 4);
+        frame.put(4, SNAPSHOT);
+        frame.putLong(5, sequence);
+        frame.putInt(13, totalSlots);
+        frame.putInt(17, entries.size());
+        frame.putInt(21, raw.position());
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Decodes the parked vehicles of a snapshot frame whose kind, sequence and slot count
+     * have already been read.
+     *
+     * @param frame The frame, positioned at the vehicle count
+     * @return Entry[] of the parked vehicles
+     * @throws IllegalArgumentException if the compressed data is corrupt
+     */
+    static Entry[] getSnapshotEntries(ByteBuffer frame) {
+        int count = frame.getInt();
+        byte[] raw = new byte[frame.getInt()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+            int read = 0;
+            while (read < raw.length) {
+                int n = inflater.inflate(raw, read, raw.length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalArgumentException("Truncated replication snapshot");
+                }
+                read += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt replication snapshot", e);
+        } finally {
+            inflater.end();
+        }
+        ByteBuffer in = ByteBuffer.wrap(raw);
+        Entry[] entries = new Entry[count];
+        for (int i = 0; i < count; i++) {
+            entries[i] = getEntry(in, in.getInt());
+        }
+        return entries;
+    }
+
+    /**
+     * Reads a vehicle.
+     *
+     * @param in The buffer, positioned at the vehicle
+     * @param slotId The slot of the vehicle
+     * @return Entry read
+     */
+    static Entry getEntry(ByteBuffer in, int slotId) {
+        long plateCode = in.getLong();
+        String plate = plateCode == PlateCode.NONE ? getString(in) : PlateCode.decode(plateCode);
+        String owner = getString(in);
+        long second = in.getLong();
+        int nano = in.getInt();
+        LocalDateTime entryTime = second == Long.MIN_VALUE ? null
+                : LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC);
+        return new Entry(slotId, plate, owner, entryTime);
+    }
+
+    private static int maxVehicleSize(String plate, String owner) {
+        return 8 + (5 + 2 * plate.length()) + (5 + 2 * (owner != null ? owner.length() : 0)) + 8 + 4;
+    }
+
+    private static void putVehicle(ByteBuffer out, String plate, String owner, LocalDateTime entryTime) {
+        long plateCode = PlateCode.encode(plate);
+        out.putLong(plateCode);
+        if (plateCode == PlateCode.NONE) {
+            putString(out, plate);
+        }
+        putString(out, owner != null ? owner : "");
+        if (entryTime == null) {
+            out.putLong(Long.MIN_VALUE).putInt(0);
+        } else {
+            out.putLong(entryTime.toEpochSecond(ZoneOffset.UTC)).putInt(entryTime.getNano());
+        }
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        boolean wide = false;
+        for (int i = 0; i < value.length() && !wide; i++) {
+            wide = value.charAt(i) >= 0x80;
+        }
+        int header = value.length() << 1 | (wide ? 1 : 0);
+        while ((header & ~0x7F) != 0) {
+            out.put((byte) ((header & 0x7F) | 0x80));
+            header >>>= 7;
+        }
+        out.put((byte) header);
+        for (int i = 0; i < value.length(); i++) {
+            if (wide) {
+                out.putChar(value.charAt(i));
+            } else {
+                out.put((byte) value.charAt(i));
+            }
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        int header = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            header |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        char[] chars = new char[header >>> 1];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (header & 1) != 0 ? in.getChar() : (char) (in.get() & 0xFF);
+        }
+        return new String(chars);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The server.GateClient class is a simple blocking client of server.GateServer, e.g. for a gate
+ * controller or a test. Requests can be pipelined: send several, flush once, then read one
+ * response per request in the same order.
+ */
+public class GateClient implements AutoCloseable {
+    private final Socket socket;
+    private final BufferedReader reader;
+    private final BufferedWriter writer;
+
+    /**
+     * Connects to a gate server.
+     *
+     * @param host Host name of the server
+     * @param port Port of the server
+     * @throws IOException if the server cannot be reached
+     */
+    public GateClient(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Queues a request without waiting for its response.
+     *
+     * @param request The request line, e.g. "OUT 12345678"
+     * @throws IOException if the connection fails
+     */
+    public void send(String request) throws IOException {
+        writer.write(request);
+        writer.write('\n');
+    }
+
+    /**
+     * Sends all queued requests to the server.
+     *
+     * @throws IOException if the connection fails
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Waits for the response to the oldest request that has not been answered yet.
+     *
+     * @return String response line, e.g. "OK fee=1500"
+     * @throws IOException if the connection fails or the server closed it
+     */
+    public String readResponse() throws IOException {
+        String response = reader.readLine();
+        if (response == null) {
+            throw new IOException("Connection closed by the gate server");
+        }
+        return response;
+    }
+
+    /**
+     * Sends one request and waits for its response.
+     *
+     * @param request The request line
+     * @return String response line
+     * @throws IOException if the connection fails
+     */
+    public String request(String request) throws IOException {
+        send(request);
+        flush();
+        return readResponse();
+    }
+
+    /**
+     * Checks a vehicle in.
+     *
+     * @param licensePlate The license plate
+     * @param owner The owner name
+     * @return String response line, "OK slot=N" if the vehicle was parked
+     * @throws IOException if the connection fails
+     */
+    public String checkIn(String licensePlate, String owner) throws IOException {
+        return request("IN " + licensePlate + " " + owner);
+    }
+
+    /**
+     * Checks a vehicle out.
+     *
+     * @param licensePlate The license plate
+     * @return String response line, "OK fee=N" (agorot) if the vehicle was found
+     * @throws IOException if the connection fails
+     */
+    public String checkOut(String licensePlate) throws IOException {
+        return request("OUT " + licensePlate);
+    }
+
+    /**
+     * Closes the connection.
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package server;
+
+import core.ParkingLotManager;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The server.GateLoadTest class measures a gate server with many concurrent clients.
+ * Every client opens its own connection and repeatedly sends a batch of pipelined requests
+ * (check-in and check-out of its own vehicles), then reads the responses. The run reports
+ * throughput and the latency percentiles of single requests, from sending the batch to
+ * reading the response.
+ *
+ * Usage: java server.GateLoadTest [--clients 200] [--requests 2000] [--pipeline 16]
+ *                                 [--host localhost] [--port 7070]
+ * --requests is per client. Without --port, a gate server is started in this process on a
+ * new lot that is large enough for all clients, and its console output is silenced.
+ */
+public class GateLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int clients = 200;
+        int requests = 2000;
+        int pipeline = 16;
+        String host = "localhost";
+        int port = -1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--clients": clients = Integer.parseInt(args[i + 1]); break;
+                case "--requests": requests = Integer.parseInt(args[i + 1]); break;
+                case "--pipeline": pipeline = Integer.parseInt(args[i + 1]); break;
+                case "--host": host = args[i + 1]; break;
+                case "--port": port = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (clients < 1 || requests < 1 || pipeline < 2 || pipeline % 2 != 0) {
+            throw new IllegalArgumentException("Clients and requests must be positive, pipeline even and at least 2");
+        }
+
+        PrintStream console = System.out;
+        GateServer server = null;
+        if (port < 0) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Observers print every event
+            ParkingLotManager lot = ParkingLotManager.createLot(clients * pipeline / 2);
+            server = GateServer.start(lot, new InetSocketAddress("localhost", 0),
+                    Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+            port = server.getPort();
+        }
+
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.setEnabled(true);
+        LatencyHistogram latency = registry.histogram("gate.request.latency");
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch ready = new CountDownLatch(clients);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        int rounds = Math.max(1, requests / pipeline);
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            int batch = pipeline;
+            String serverHost = host;
+            int serverPort = port;
+            Thread thread = new Thread(() -> {
+                try (GateClient gate = new GateClient(serverHost, serverPort)) {
+                    ready.countDown();
+                    go.await();
+                    for (int round = 0; round < rounds; round++) {
+                        // Park batch / 2 vehicles, then take them out again, all in one pipeline
+                        for (int k = 0; k < batch; k++) {
+                            String plate = plate(client * batch + k % (batch / 2));
+                            gate.send(k < batch / 2 ? "IN " + plate + " Load Test" : "OUT " + plate);
+                        }
+                        long sent = System.nanoTime();
+                        gate.flush();
+                        for (int k = 0; k < batch; k++) {
+                            String response = gate.readResponse();
+                            latency.record(System.nanoTime() - sent);
+                            if (!response.startsWith("OK")) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    ready.countDown();
+                }
+            }, "gate-client-" + (c + 1));
+            threads.add(thread);
+            thread.start();
+        }
+
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (server != null) {
+            server.close();
+            System.setOut(console);
+        }
+
+        long total = latency.getCount();
+        System.out.println("Clients: " + clients + ", pipeline: " + pipeline + ", requests: " + total
+                + ", errors: " + errors.get());
+        System.out.printf("Throughput: %.0f requests/s%n", total / (elapsed / 1e9));
+        System.out.printf("Latency (us): p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                latency.getValueAtPercentile(50) / 1e3, latency.getValueAtPercentile(90) / 1e3,
+                latency.getValueAtPercentile(99) / 1e3, latency.getValueAtPercentile(99.9) / 1e3,
+                latency.getMax() / 1e3);
+    }
+
+    private static String plate(int number) {
+        return "G" + (char) ('A' + number % 26) + String.format("%06d", number / 26 % 1_000_000);
+    }
+}
\ No newline at end of file
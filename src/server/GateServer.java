@@ -0,0 +1,419 @@
+package server;
+
+import core.ParkingLotManager;
+import core.Vehicle;
+import services.LiveStatistics;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The server.GateServer class is the network API of the gates: a non-blocking TCP server in
+ * front of a core.ParkingLotManager that serves many gate controllers at once.
+ *
+ * The protocol is line based (UTF-8, one request per line, one response line per request):
+ *     IN plate owner  ->  OK slot=3               | REJECTED (lot full or plate already parked) | ERR message
+ *     OUT plate       ->  OK fee=1500             | NOTFOUND
+ *     STATUS          ->  OK occupied=7 total=10 available=3
+ *     STATS           ->  OK lastHour=12 today=40 averageStayMinutes=42.5 dailyRevenue=20000 weeklyRevenue=90000
+ *     QUIT            ->  OK, then the server closes the connection
+ * All amounts are in agorot. Clients may pipeline: send many requests without waiting, the
+ * responses come back in order.
+ *
+ * One thread accepts connections and hands them round-robin to a few event loops. Each event
+ * loop owns a selector and its connections and only moves bytes: it reads whatever arrived and
+ * hands the complete requests of a read as one batch to a pool of worker threads. A worker
+ * executes the batch in order on the lot (the lot is safe for concurrent gates) and posts the
+ * responses back to the event loop, which writes them with one write. Lot operations print to
+ * the console, append to the history journal and may run synchronous observers, so they never
+ * run on an event loop, where they would stall every other connection of that loop. A
+ * connection has at most one batch on a worker and is not read until that batch is answered
+ * and its responses are written, so requests of a connection run in order and a slow client
+ * cannot make the server buffer without bound.
+ */
+public class GateServer implements AutoCloseable {
+    static final int MAX_LINE = 1024; // Longest accepted request, in bytes
+
+    private final ParkingLotManager lot;
+    private final ServerSocketChannel acceptor;
+    private final EventLoop[] loops;
+    private final ExecutorService workers;
+    private final Thread acceptThread;
+    private volatile boolean running = true;
+
+    /**
+     * One selector thread and the connections it serves.
+     */
+    private final class EventLoop implements Runnable {
+        final Selector selector = Selector.open();
+        final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+        final Queue<Runnable> answered = new ConcurrentLinkedQueue<>(); // Posted by the workers
+        final Thread thread;
+
+        EventLoop(int number) throws IOException {
+            thread = new Thread(this, "gate-loop-" + number);
+            thread.setDaemon(true);
+        }
+
+        void add(SocketChannel channel) {
+            accepted.add(channel);
+            selector.wakeup();
+        }
+
+        void post(Runnable task) {
+            answered.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    SocketChannel channel;
+                    while ((channel = accepted.poll()) != null) {
+                        try {
+                            channel.configureBlocking(false);
+                            channel.socket().setTcpNoDelay(true);
+                            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                            key.attach(new Connection(this, channel, key));
+                        } catch (IOException e) {
+                            closeQuietly(channel);
+                        }
+                    }
+                    Runnable task;
+                    while ((task = answered.poll()) != null) {
+                        task.run();
+                    }
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write();
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            connection.close(); // Client went away or sent garbage; other clients go on
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                // Server is shutting down
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    closeQuietly(key.channel());
+                }
+                closeQuietly(selector);
+            }
+        }
+    }
+
+    /**
+     * Buffers and protocol state of one client connection.
+     */
+    private final class Connection {
+        final EventLoop loop;
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        ByteBuffer out = ByteBuffer.allocate(4096);
+        boolean closing; // Close once the pending responses are written
+
+        Connection(EventLoop loop, SocketChannel channel, SelectionKey key) {
+            this.loop = loop;
+            this.channel = channel;
+            this.key = key;
+        }
+
+        /**
+         * Reads what arrived and hands the complete requests to a worker. Runs on the event loop.
+         */
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                closing = true;
+            }
+            in.flip();
+            List<String> requests = new ArrayList<>();
+            int lineStart = in.position();
+            for (int i = lineStart; i < in.limit() && !closing; i++) {
+                if (in.get(i) == '\n') {
+                    int end = i > lineStart && in.get(i - 1) == '\r' ? i - 1 : i;
+                    requests.add(new String(in.array(), lineStart, end - lineStart, StandardCharsets.UTF_8));
+                    lineStart = i + 1;
+                }
+            }
+            in.position(lineStart);
+            in.compact();
+            boolean overflow = !in.hasRemaining() && !closing; // A full buffer without a line end
+            if (requests.isEmpty() && !overflow) {
+                write();
+                return;
+            }
+            key.interestOps(0); // Read the next requests once these are answered
+            workers.execute(() -> executeBatch(requests, overflow));
+        }
+
+        /**
+         * Executes a batch of requests in order and posts the responses. Runs on a worker.
+         */
+        void executeBatch(List<String> requests, boolean overflow) {
+            StringBuilder responses = new StringBuilder();
+            boolean quit = false;
+            try {
+                for (int i = 0; i < requests.size() && !quit; i++) {
+                    quit = execute(requests.get(i), responses);
+                }
+                if (overflow && !quit) {
+                    responses.append("ERR Request longer than ").append(MAX_LINE).append(" bytes\n");
+                }
+            } catch (RuntimeException e) {
+                quit = true; // A broken request closes its connection; other clients go on
+            }
+            boolean close = quit || overflow;
+            loop.post(() -> answer(responses, close));
+        }
+
+        /**
+         * Queues the responses of a batch for writing. Runs on the event loop.
+         */
+        void answer(StringBuilder responses, boolean close) {
+            if (!key.isValid()) {
+                return; // Closed while the batch ran
+            }
+            closing |= close;
+            byte[] bytes = responses.toString().getBytes(StandardCharsets.UTF_8);
+            if (out.remaining() < bytes.length) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes.length));
+                out.flip();
+                out = grown.put(out);
+            }
+            out.put(bytes);
+            try {
+                write();
+            } catch (IOException e) {
+                close(); // Client went away
+            }
+        }
+
+        void write() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            if (out.position() > 0) {
+                key.interestOps(SelectionKey.OP_WRITE); // Stop reading until the client catches up
+            } else if (closing) {
+                close();
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        void close() {
+            key.cancel();
+            closeQuietly(channel);
+        }
+    }
+
+    private GateServer(ParkingLotManager lot, InetSocketAddress address, int eventLoops, int workerThreads)
+            throws IOException {
+        this.lot = lot;
+        this.acceptor = ServerSocketChannel.open();
+        acceptor.bind(address, 1024);
+        this.loops = new EventLoop[eventLoops];
+        for (int i = 0; i < eventLoops; i++) {
+            loops[i] = new EventLoop(i + 1);
+        }
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, task -> {
+            Thread worker = new Thread(task, "gate-worker-" + workerNumber.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+        this.acceptThread = new Thread(this::acceptConnections, "gate-acceptor");
+        acceptThread.setDaemon(true);
+    }
+
+    /**
+     * Starts a gate server.
+     *
+     * @param lot The parking lot the gates operate on
+     * @param address The address to listen on (port 0 for any free port)
+     * @param eventLoops Number of event loop threads, e.g. the number of processors
+     * @return server.GateServer that accepts connections
+     * @throws IOException if the address cannot be bound
+     * @throws IllegalArgumentException if lot is null or eventLoops is not positive
+     */
+    public static GateServer start(ParkingLotManager lot, InetSocketAddress address, int eventLoops) throws IOException {
+        return start(lot, address, eventLoops, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Starts a gate server with the given number of worker threads. Workers spend part of
+     * each request waiting for the console, the history journal and synchronous observers,
+     * so there should be more of them than processors.
+     *
+     * @param lot The parking lot the gates operate on
+     * @param address The address to listen on (port 0 for any free port)
+     * @param eventLoops Number of event loop threads, e.g. the number of processors
+     * @param workerThreads Number of threads that execute requests on the lot
+     * @return server.GateServer that accepts connections
+     * @throws IOException if the address cannot be bound
+     * @throws IllegalArgumentException if lot is null or eventLoops or workerThreads is not positive
+     */
+    public static GateServer start(ParkingLotManager lot, InetSocketAddress address, int eventLoops,
+                                   int workerThreads) throws IOException {
+        if (lot == null || eventLoops < 1 || workerThreads < 1) {
+            throw new IllegalArgumentException("A lot, at least one event loop and one worker are required");
+        }
+        GateServer server = new GateServer(lot, address, eventLoops, workerThreads);
+        for (EventLoop loop : server.loops) {
+            loop.thread.start();
+        }
+        server.acceptThread.start();
+        return server;
+    }
+
+    private void acceptConnections() {
+        int next = 0;
+        try {
+            while (running) {
+                SocketChannel channel = acceptor.accept(); // Blocking: this thread does nothing else
+                loops[next].add(channel);
+                next = (next + 1) % loops.length;
+            }
+        } catch (IOException e) {
+            // Acceptor closed: the server is shutting down
+        }
+    }
+
+    /**
+     * Executes one request and appends its response line. Runs on a worker thread.
+     *
+     * @param request The request line without line end
+     * @param response Receives the response line
+     * @return boolean true if the client asked to close the connection
+     */
+    boolean execute(String request, StringBuilder response) {
+        String[] words = request.trim().split(" ", 3);
+        String command = words[0].toUpperCase(Locale.ROOT); // "in" must not become "İN" in a Turkish locale
+        try {
+            switch (command) {
+                case "IN":
+                    if (words.length < 3) {
+                        response.append("ERR Usage: IN plate owner\n");
+                        break;
+                    }
+                    int slotId = lot.checkInVehicleForSlot(new Vehicle(words[1], words[2].trim()));
+                    if (slotId >= 0) {
+                        response.append("OK slot=").append(slotId).append('\n');
+                    } else {
+                        response.append("REJECTED\n");
+                    }
+                    break;
+                case "OUT":
+                    if (words.length < 2) {
+                        response.append("ERR Usage: OUT plate\n");
+                        break;
+                    }
+                    long fee = lot.checkOutVehicleForFee(words[1]);
+                    if (fee >= 0) {
+                        response.append("OK fee=").append(fee).append('\n');
+                    } else {
+                        response.append("NOTFOUND\n");
+                    }
+                    break;
+                case "STATUS":
+                    int occupied = lot.getOccupiedSlots();
+                    response.append("OK occupied=").append(occupied).append(" total=").append(lot.getTotalSlots())
+                            .append(" available=").append(lot.getTotalSlots() - occupied).append('\n');
+                    break;
+                case "STATS":
+                    LiveStatistics statistics = lot.getStatistics();
+                    LocalDateTime now = LocalDateTime.now();
+                    response.append("OK lastHour=").append(statistics.getVehiclesInLastHour(now))
+                            .append(" today=").append(statistics.getVehiclesToday(now))
+                            .append(" averageStayMinutes=").append(statistics.getAverageStayTime())
+                            .append(" dailyRevenue=").append(toAgorot(statistics.getDailyRevenue(now)))
+                            .append(" weeklyRevenue=").append(toAgorot(statistics.getWeeklyRevenue(now))).append('\n');
+                    break;
+                case "QUIT":
+                    response.append("OK\n");
+                    return true;
+                default:
+                    response.append("ERR Unknown command: ").append(command).append('\n');
+                    break;
+            }
+        } catch (IllegalArgumentException e) { // Invalid plate or owner
+            response.append("ERR ").append(e.getMessage().replace('\n', ' ')).append('\n');
+        }
+        return false;
+    }
+
+    private static long toAgorot(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /** @return int TCP port the server listens on */
+    public int getPort() { return acceptor.socket().getLocalPort(); }
+
+    /**
+     * Stops accepting connections and closes all connections, event loops and workers.
+     */
+    @Override
+    public void close() {
+        running = false;
+        closeQuietly(acceptor);
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        workers.shutdown();
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            // Nothing left to release
+        }
+    }
+
+    /**
+     * Runs a gate server until the process is stopped.
+     * Usage: java server.GateServer [port] [slots]. Without slots the server uses the lot of
+     * core.ParkingLotManager.getInstance(), the same lot as the command-line interface.
+     *
+     * @param args Optional port (default 7070) and number of slots of a new lot
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        ParkingLotManager lot = args.length > 1
+                ? ParkingLotManager.createLot(Integer.parseInt(args[1])) : ParkingLotManager.getInstance();
+        int eventLoops = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        GateServer server = start(lot, new InetSocketAddress(port), eventLoops);
+        System.out.println("Gate server listening on port " + server.getPort() + " for a lot of "
+                + lot.getTotalSlots() + " slots (" + eventLoops + " event loops)");
+        server.acceptThread.join();
+    }
+}
\ No newline at end of file
@@ -2,20 +2,74 @@ package services;
 
 import core.Vehicle;
 
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.time.Duration;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 /**
  * The services.FeeCalculator class implements the Strategy pattern to calculate parking fees
  * based on the duration of vehicle stay in the parking lot. This class provides
  * a flexible fee calculation algorithm that can be easily modified or extended
  * to support different pricing strategies in the future.
+ *
+ * Fees are computed on primitive values: the stay is measured in whole minutes from epoch
+ * seconds and the fee is a long amount of agorot (cents), so the calculation allocates no
+ * objects and involves no floating point. BigDecimal amounts are only created by
+ * toAmount, for display and for the existing BigDecimal based API.
+ *
+ * The price list is a services.TariffTable (the pricing strategy). It defaults to 5 NIS per
+ * started hour and can be replaced at runtime, e.g. by loading a tariff file; the new table is
+ * compiled before it is published, so fee calculations are never paused by a reload.
  */
 public class FeeCalculator {
+    /** Price of one started hour, in agorot (5 NIS). */
+    public static final long HOURLY_RATE_CENTS = 500;
+
+    // Double.toString switches to scientific notation from 10^7, which BigDecimal.valueOf(double) keeps
+    private static final long PLAIN_NOTATION_LIMIT_TENTHS = 100_000_000L;
+
+    // Compiled tariffs of all vehicle classes, replaced as a whole on reload
+    private static volatile TariffTable tariffs = TariffTable.standard();
+
+    /**
+     * Returns the tariffs currently used to calculate fees.
+     *
+     * @return services.TariffTable in use
+     */
+    public static TariffTable getTariffs() {
+        return tariffs;
+    }
+
+    /**
+     * Replaces the tariffs used to calculate fees. Calculations already running finish with
+     * the previous tariffs; all later calculations use the new ones.
+     *
+     * @param table The compiled tariffs to use
+     */
+    public static void setTariffs(TariffTable table) {
+        if (table == null) {
+            throw new IllegalArgumentException("Tariff table cannot be null");
+        }
+        tariffs = table;
+    }
+
+    /**
+     * Loads and compiles a tariff file and starts using it. If the file cannot be read or is
+     * invalid, the current tariffs stay in use.
+     *
+     * @param file Path of the tariff properties file (see services.TariffTable)
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains an invalid setting
+     */
+    public static void loadTariffs(Path file) throws IOException {
+        setTariffs(TariffTable.load(file));
+    }
 
     /**
      * Calculates the parking fee based on the time the vehicle stayed in the parking lot.
-     * The fee is calculated at 5 NIS per hour, with partial hours rounded up to full hours.
+     * The fee is calculated with the tariff of the vehicle's class; the standard tariff is
+     * 5 NIS per hour, with partial hours rounded up to full hours.
      *
      * @param vehicle The vehicle object containing entry and exit time information
      * @return BigDecimal representing the calculated parking fee in NIS (Israeli Shekels)
@@ -28,16 +82,99 @@ public class FeeCalculator {
      * 5. Multiply by hourly rate (5 NIS per hour)
      */
     public static BigDecimal calculateFee(Vehicle vehicle) {
+        if (vehicle.getEntryTime() == null || vehicle.getExitTime() == null) {
+
+            return BigDecimal.ZERO;
+        }
+        return toAmount(calculateFeeCents(vehicle));
+    }
+
+    /**
+     * Calculates the parking fee of a vehicle in agorot with the tariff of its vehicle class,
+     * without allocating objects.
+     *
+     * @param vehicle The vehicle object containing entry and exit time information
+     * @return long fee in agorot, or 0 if entry or exit time is null
+     */
+    public static long calculateFeeCents(Vehicle vehicle) {
+        return calculateFeeCents(vehicle, tariffs);
+    }
+
+    /**
+     * Calculates the parking fee of a vehicle in agorot with the given tariffs, e.g. the
+     * tariffs of the lot the vehicle parked in.
+     *
+     * @param vehicle The vehicle object containing entry and exit time information
+     * @param table The tariffs to apply
+     * @return long fee in agorot, or 0 if entry or exit time is null
+     */
+    public static long calculateFeeCents(Vehicle vehicle, TariffTable table) {
         LocalDateTime entry = vehicle.getEntryTime();
         LocalDateTime exit = vehicle.getExitTime();
-
         if (entry == null || exit == null) {
+            return 0;
+        }
+        return table.getTariff(vehicle.getVehicleClass()).calculateFeeCents(entry, exit);
+    }
 
-            return BigDecimal.ZERO;
+    /**
+     * Calculates the standard fee (5 NIS per started hour) for a stay of the given length,
+     * rounding partial hours up. Configured tariffs are not applied.
+     *
+     * @param stayMinutes Length of the stay in whole minutes
+     * @return long fee in agorot
+     */
+    public static long calculateFeeCents(long stayMinutes) {
+        long hours = (stayMinutes + 59) / 60;
+        return hours * HOURLY_RATE_CENTS;
+    }
+
+    /**
+     * Returns the length of a stay in whole minutes, truncated the same way as
+     * Duration.between(entry, exit).toMinutes(), without creating a Duration.
+     *
+     * @param entry The entry time
+     * @param exit The exit time
+     * @return long number of whole minutes between entry and exit
+     */
+    public static long stayMinutes(LocalDateTime entry, LocalDateTime exit) {
+        return stayMinutes(entry.toEpochSecond(ZoneOffset.UTC), entry.getNano(),
+                exit.toEpochSecond(ZoneOffset.UTC), exit.getNano());
+    }
+
+    /**
+     * Returns the length of a stay in whole minutes from epoch seconds and nanoseconds.
+     *
+     * @param entrySecond Entry time in epoch seconds
+     * @param entryNano Nanosecond of the entry second
+     * @param exitSecond Exit time in epoch seconds
+     * @param exitNano Nanosecond of the exit second
+     * @return long number of whole minutes between entry and exit
+     */
+    public static long stayMinutes(long entrySecond, int entryNano, long exitSecond, int exitNano) {
+        long seconds = exitSecond - entrySecond;
+        if (exitNano < entryNano) {
+            seconds--; // Borrow, like Duration does when normalizing its nanosecond part
         }
+        return seconds / 60;
+    }
 
-        long minutes = Duration.between(entry, exit).toMinutes();
-        long hours = (minutes + 59) / 60;
-        return BigDecimal.valueOf(hours * 5.0);
+    /**
+     * Converts an amount in agorot to NIS for display. Whole multiples of 10 agorot keep
+     * one decimal place, so the result is identical to the amounts this class has always
+     * returned (for example "5.0" and "10.0").
+     *
+     * @param cents Amount in agorot
+     * @return BigDecimal amount in NIS
+     */
+    public static BigDecimal toAmount(long cents) {
+        if (cents % 10 != 0) {
+            return BigDecimal.valueOf(cents, 2);
+        }
+        long tenths = cents / 10;
+        if (Math.abs(tenths) >= PLAIN_NOTATION_LIMIT_TENTHS) {
+            return BigDecimal.valueOf(tenths / 10.0);
+        }
+        return BigDecimal.valueOf(tenths, 1);
     }
 }
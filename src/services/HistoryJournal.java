@@ -0,0 +1,480 @@
+package services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * The services.HistoryJournal class is a durable, append-only binary log of parking history
+ * records. Every services.ParkingHistory.HistoryEntry is written as one framed record
+ * (length, CRC32 checksum, payload) through an NIO FileChannel, so the history survives
+ * a restart and can be replayed to rebuild the in-memory history and the slot occupancy.
+ *
+ * Appends only copy the record into an in-memory buffer. A background flusher swaps that
+ * buffer with a spare one and writes and fsyncs it, so many appends share a single fsync
+ * (group commit). How long an append waits is chosen with the Durability level.
+ *
+ * On open, the journal is scanned from the start; a torn or corrupted record at the end
+ * (for example after a crash in the middle of a write) is cut off and appending continues
+ * after the last valid record.
+ */
+public class HistoryJournal implements AutoCloseable {
+
+    /**
+     * How durable an appended record is when append returns.
+     */
+    public enum Durability {
+        /** Append returns immediately; records are fsynced by the flusher within the flush interval. */
+        ASYNC,
+        /** Append waits until the batch containing the record is fsynced; concurrent appends share the fsync. */
+        GROUP_COMMIT,
+        /** Every append writes and fsyncs its own record before returning. */
+        SYNC
+    }
+
+    private static final int HEADER_SIZE = 8;          // int payload length + int CRC32
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final byte ACTION_ENTRY = 1;
+    private static final byte ACTION_EXIT = 2;
+    private static final long DEFAULT_FLUSH_INTERVAL_MICROS = 2_000;
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final long flushIntervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition batchDurable = lock.newCondition();
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+
+    private ByteBuffer active = ByteBuffer.allocateDirect(64 * 1024);  // Filled by appenders
+    private ByteBuffer spare = ByteBuffer.allocateDirect(64 * 1024);   // Written by the flusher
+    private long appendedCount;   // Records copied into a buffer
+    private long durableCount;    // Records written and fsynced
+    private IOException failure;  // First write error, reported to every later append
+    private boolean closed;
+
+    private HistoryJournal(FileChannel channel, Durability durability, long flushIntervalNanos) {
+        this.channel = channel;
+        this.durability = durability;
+        this.flushIntervalNanos = flushIntervalNanos;
+        if (durability == Durability.SYNC) {
+            this.flusher = null;
+        } else {
+            this.flusher = new Thread(this::flushLoop, "history-journal-flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+    }
+
+    /**
+     * Opens (or creates) a journal file, replays every valid record into the given list
+     * and prepares the journal for appending.
+     *
+     * @param file The journal file
+     * @param durability The durability level for appends
+     * @param recovered List that receives the recovered history entries, oldest first (may be null)
+     * @return The opened journal
+     * @throws IOException if the file cannot be opened, read or truncated
+     */
+    public static HistoryJournal open(Path file, Durability durability,
+                                      List<ParkingHistory.HistoryEntry> recovered) throws IOException {
+        return open(file, durability, DEFAULT_FLUSH_INTERVAL_MICROS, recovered);
+    }
+
+    /**
+     * Opens (or creates) a journal file with a specific group-commit interval.
+     *
+     * @param file The journal file
+     * @param durability The durability level for appends
+     * @param flushIntervalMicros Longest time the flusher waits before writing a partial batch
+     * @param recovered List that receives the recovered history entries, oldest first (may be null)
+     * @return The opened journal
+     * @throws IOException if the file cannot be opened, read or truncated
+     */
+    public static HistoryJournal open(Path file, Durability durability, long flushIntervalMicros,
+                                      List<ParkingHistory.HistoryEntry> recovered) throws IOException {
+        if (durability == null) {
+            throw new IllegalArgumentException("Durability cannot be null");
+        }
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long validEnd = replay(channel, recovered != null ? recovered : new ArrayList<>());
+            if (validEnd < channel.size()) {
+                channel.truncate(validEnd); // Drop a torn or corrupted tail
+                channel.force(true);
+            }
+            channel.position(validEnd);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return new HistoryJournal(channel, durability, TimeUnit.MICROSECONDS.toNanos(Math.max(1, flushIntervalMicros)));
+    }
+
+    /**
+     * Reads records from the start of the channel until the end or the first invalid record.
+     * The file is memory-mapped, so replaying a long history does not copy it through the heap.
+     *
+     * @return long file position right after the last valid record
+     */
+    private static long replay(FileChannel channel, List<ParkingHistory.HistoryEntry> out) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("History journal is larger than 2 GB and cannot be replayed");
+        }
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        CRC32 check = new CRC32();
+
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int position = buffer.position();
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > MAX_RECORD_SIZE || buffer.remaining() - HEADER_SIZE < length) {
+                return position; // Torn or corrupted record
+            }
+            int expectedCrc = buffer.getInt(position + 4);
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(position + HEADER_SIZE).limit(position + HEADER_SIZE + length);
+            check.reset();
+            check.update(payload.duplicate());
+            if ((int) check.getValue() != expectedCrc) {
+                return position;
+            }
+            out.add(decode(payload));
+            buffer.position(position + HEADER_SIZE + length);
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Appends a history record. Depending on the durability level the call returns
+     * immediately (ASYNC), after the batch holding the record is fsynced (GROUP_COMMIT),
+     * or after the record itself is fsynced (SYNC).
+     *
+     * @param entry The history entry to append
+     * @throws UncheckedIOException if the journal could not be written
+     * @throws IllegalStateException if the journal is closed
+     */
+    public void append(ParkingHistory.HistoryEntry entry) {
+        awaitDurable(enqueue(entry));
+    }
+
+    /**
+     * Copies a history record into the journal without waiting for the fsync of GROUP_COMMIT,
+     * so a caller can fix the record's position in the journal while holding its own lock and
+     * wait with awaitDurable after releasing it. Under SYNC the record is written and fsynced
+     * before the call returns.
+     *
+     * @param entry The history entry to append
+     * @return long ticket of the record, for awaitDurable
+     * @throws UncheckedIOException if the journal could not be written
+     * @throws IllegalStateException if the journal is closed
+     */
+    public long enqueue(ParkingHistory.HistoryEntry entry) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("History journal is closed");
+            }
+            checkFailure();
+            encode(entry);
+            long ticket = ++appendedCount;
+
+            switch (durability) {
+                case SYNC:
+                    writeAndForce(active);
+                    durableCount = ticket;
+                    break;
+                case GROUP_COMMIT:
+                    workAvailable.signal();
+                    break;
+                case ASYNC:
+                default:
+                    if (active.position() > active.capacity() / 2) {
+                        workAvailable.signal(); // Flush early before the buffer has to grow
+                    }
+                    break;
+            }
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits as long as the durability level requires for an enqueued record: until the batch
+     * holding it is fsynced under GROUP_COMMIT, not at all under ASYNC and SYNC.
+     *
+     * @param ticket The ticket returned by enqueue
+     * @throws UncheckedIOException if the record could not be written
+     */
+    public void awaitDurable(long ticket) {
+        if (durability != Durability.GROUP_COMMIT) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durableCount < ticket && failure == null) {
+                batchDurable.awaitUninterruptibly();
+            }
+            if (durableCount < ticket) {
+                checkFailure();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every buffered record and fsyncs the file, whatever the durability level.
+     *
+     * @throws UncheckedIOException if the journal could not be written
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            checkFailure();
+            long target = appendedCount;
+            if (flusher == null) {
+                writeAndForce(active);
+                durableCount = target;
+                return;
+            }
+            workAvailable.signal();
+            while (durableCount < target && failure == null) {
+                batchDurable.awaitUninterruptibly();
+            }
+            checkFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of records appended since the journal was opened.
+     *
+     * @return long appended record count
+     */
+    public long getAppendedCount() {
+        lock.lock();
+        try {
+            return appendedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of appended records that are known to be on disk.
+     *
+     * @return long durable record count
+     */
+    public long getDurableCount() {
+        lock.lock();
+        try {
+            return durableCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes all buffered records, stops the flusher and closes the file.
+     *
+     * @throws IOException if the final write or the close fails
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            try {
+                flush();
+            } finally {
+                closed = true;
+                workAvailable.signal();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            lock.unlock();
+            if (flusher != null) {
+                try {
+                    flusher.join(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Background loop for ASYNC and GROUP_COMMIT: waits for records or the flush interval,
+     * swaps the buffers and writes the full one outside the lock, so appenders keep going.
+     * Stops at the first write error: the failed batch and every later record stay non-durable.
+     */
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long batchEnd;
+            lock.lock();
+            try {
+                while (!closed && appendedCount == durableCount) {
+                    workAvailable.awaitNanos(flushIntervalNanos);
+                }
+                if (closed && appendedCount == durableCount) {
+                    return;
+                }
+                if (durability == Durability.ASYNC && !closed) {
+                    workAvailable.awaitNanos(flushIntervalNanos); // Let the batch grow
+                }
+                batch = active;
+                active = spare;
+                spare = batch;
+                batchEnd = appendedCount;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                writeAndForce(batch);
+            } catch (UncheckedIOException e) {
+                error = e.getCause();
+            }
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    // The batch never reached the disk: it stays non-durable and every waiter gets the error
+                    failure = error;
+                    batchDurable.signalAll();
+                    return;
+                }
+                durableCount = batchEnd;
+                batchDurable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void writeAndForce(ByteBuffer buffer) {
+        try {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+            channel.force(false);
+        } catch (IOException e) {
+            buffer.clear();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("History journal write failed", failure);
+        }
+    }
+
+    /**
+     * Serializes an entry into the active buffer as [length][crc][payload].
+     * Must be called while holding the lock.
+     */
+    private void encode(ParkingHistory.HistoryEntry entry) {
+        byte[] plate = bytes(entry.getLicensePlate());
+        byte[] owner = bytes(entry.getOwner());
+        byte[] info = bytes(entry.getAdditionalInfo());
+        LocalDateTime timestamp = entry.getTimestamp();
+        int length = 1 + 4 + 8 + 4 + 2 + plate.length + 2 + owner.length + 2 + info.length;
+        ensureCapacity(HEADER_SIZE + length);
+
+        int start = active.position();
+        active.position(start + HEADER_SIZE);
+        active.put("EXIT".equals(entry.getAction()) ? ACTION_EXIT : ACTION_ENTRY);
+        active.putInt(entry.getSlotId());
+        active.putLong(timestamp != null ? timestamp.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+        active.putInt(timestamp != null ? timestamp.getNano() : 0);
+        putString(plate);
+        putString(owner);
+        putString(info);
+
+        ByteBuffer payload = active.duplicate();
+        payload.position(start + HEADER_SIZE).limit(start + HEADER_SIZE + length);
+        crc.reset();
+        crc.update(payload);
+        active.putInt(start, length);
+        active.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private static ParkingHistory.HistoryEntry decode(ByteBuffer payload) {
+        byte action = payload.get();
+        int slotId = payload.getInt();
+        long epochSecond = payload.getLong();
+        int nano = payload.getInt();
+        String plate = getString(payload);
+        String owner = getString(payload);
+        String info = getString(payload);
+        LocalDateTime timestamp = epochSecond == Long.MIN_VALUE ? null
+                : LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        return new ParkingHistory.HistoryEntry(plate, owner, timestamp,
+                action == ACTION_EXIT ? "EXIT" : "ENTRY", info, slotId);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (active.remaining() >= needed) {
+            return;
+        }
+        int capacity = active.capacity();
+        while (capacity - active.position() < needed) {
+            capacity *= 2;
+        }
+        ByteBuffer larger = ByteBuffer.allocateDirect(capacity);
+        active.flip();
+        larger.put(active);
+        active = larger;
+    }
+
+    private void putString(byte[] value) {
+        active.putShort((short) value.length);
+        active.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("History field too long for the journal");
+        }
+        return bytes;
+    }
+}
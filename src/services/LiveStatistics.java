@@ -0,0 +1,215 @@
+package services;
+
+import core.Vehicle;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * The services.LiveStatistics class keeps the parking statistics up to date incrementally.
+ * Instead of rescanning every vehicle that ever used the lot, it is told about each
+ * check-in and check-out and maintains running sums, counts and per-minute rings for the
+ * last hour and the last seven days. Every statistic can therefore be read in constant time,
+ * however many vehicles the lot has served.
+ *
+ * Sliding windows have a resolution of one minute; "today" starts at local midnight.
+ * All methods are thread-safe.
+ */
+public class LiveStatistics {
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int MINUTES_PER_WEEK = 7 * 24 * 60;
+
+    private final RollingCounter arrivalsLastHour = new RollingCounter(MINUTES_PER_HOUR);
+    private final RollingCounter revenueLastWeek = new RollingCounter(MINUTES_PER_WEEK); // In agorot (cents)
+
+    private long arrivalsDay = Long.MIN_VALUE;  // Epoch day of arrivalsToday
+    private long arrivalsToday;
+    private long revenueDay = Long.MIN_VALUE;   // Epoch day of revenueTodayCents
+    private long revenueTodayCents;
+
+    private long completedStays;
+    private long totalStayMinutes;
+    private long totalArrivals;
+
+    /**
+     * Records a vehicle entering the lot.
+     *
+     * @param entryTime The time the vehicle entered
+     */
+    public synchronized void recordEntry(LocalDateTime entryTime) {
+        if (entryTime == null) {
+            return;
+        }
+        totalArrivals++;
+        arrivalsLastHour.add(epochMinute(entryTime), 1);
+
+        long day = entryTime.toLocalDate().toEpochDay();
+        if (day > arrivalsDay) {
+            arrivalsDay = day;
+            arrivalsToday = 0;
+        }
+        if (day == arrivalsDay) {
+            arrivalsToday++;
+        }
+    }
+
+    /**
+     * Records a vehicle leaving the lot and the fee it paid.
+     *
+     * @param entryTime The time the vehicle entered
+     * @param exitTime The time the vehicle left
+     * @param fee The parking fee in NIS
+     */
+    public void recordExit(LocalDateTime entryTime, LocalDateTime exitTime, BigDecimal fee) {
+        recordExit(entryTime, exitTime, toCents(fee));
+    }
+
+    /**
+     * Records a vehicle leaving the lot and the fee it paid, in agorot.
+     *
+     * @param entryTime The time the vehicle entered
+     * @param exitTime The time the vehicle left
+     * @param cents The parking fee in agorot (cents)
+     */
+    public synchronized void recordExit(LocalDateTime entryTime, LocalDateTime exitTime, long cents) {
+        if (entryTime == null || exitTime == null) {
+            return;
+        }
+        completedStays++;
+        totalStayMinutes += FeeCalculator.stayMinutes(entryTime, exitTime);
+
+        revenueLastWeek.add(epochMinute(exitTime), cents);
+
+        long day = exitTime.toLocalDate().toEpochDay();
+        if (day > revenueDay) {
+            revenueDay = day;
+            revenueTodayCents = 0;
+        }
+        if (day == revenueDay) {
+            revenueTodayCents += cents;
+        }
+    }
+
+    /**
+     * Records a vehicle from existing data, e.g. vehicles rebuilt from the history on startup.
+     * Its entry is counted, and if it has already left, its exit and fee as well.
+     *
+     * @param vehicle The vehicle to record
+     */
+    public void recordVehicle(Vehicle vehicle) {
+        recordEntry(vehicle.getEntryTime());
+        if (vehicle.getExitTime() != null) {
+            recordExit(vehicle.getEntryTime(), vehicle.getExitTime(), FeeCalculator.calculateFeeCents(vehicle));
+        }
+    }
+
+    /**
+     * Returns how many vehicles entered during the 60 minutes up to the given time.
+     *
+     * @param now The current time
+     * @return long number of vehicles that entered in the last hour
+     */
+    public synchronized long getVehiclesInLastHour(LocalDateTime now) {
+        return arrivalsLastHour.sum(epochMinute(now));
+    }
+
+    /**
+     * Returns how many vehicles entered since midnight of the given day.
+     *
+     * @param now The current time
+     * @return long number of vehicles that entered today
+     */
+    public synchronized long getVehiclesToday(LocalDateTime now) {
+        return arrivalsDay == now.toLocalDate().toEpochDay() ? arrivalsToday : 0;
+    }
+
+    /**
+     * Returns the average stay of all vehicles that have left the lot.
+     *
+     * @return double average stay in minutes, or 0.0 if no vehicle has left yet
+     */
+    public synchronized double getAverageStayTime() {
+        return completedStays == 0 ? 0.0 : (double) totalStayMinutes / completedStays;
+    }
+
+    /**
+     * Returns the fees collected since midnight of the given day.
+     *
+     * @param now The current time
+     * @return BigDecimal daily revenue in NIS
+     */
+    public synchronized BigDecimal getDailyRevenue(LocalDateTime now) {
+        return fromCents(revenueDay == now.toLocalDate().toEpochDay() ? revenueTodayCents : 0);
+    }
+
+    /**
+     * Returns the fees collected during the seven days up to the given time.
+     *
+     * @param now The current time
+     * @return BigDecimal weekly revenue in NIS
+     */
+    public synchronized BigDecimal getWeeklyRevenue(LocalDateTime now) {
+        return fromCents(revenueLastWeek.sum(epochMinute(now)));
+    }
+
+    /**
+     * Returns how many vehicles have entered the lot in total.
+     *
+     * @return long total number of arrivals
+     */
+    public synchronized long getTotalArrivals() {
+        return totalArrivals;
+    }
+
+    /**
+     * Writes all counters, including the rolling windows, to a lot snapshot.
+     *
+     * @param out The snapshot stream
+     * @throws IOException if writing fails
+     */
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeLong(arrivalsDay);
+        out.writeLong(arrivalsToday);
+        out.writeLong(revenueDay);
+        out.writeLong(revenueTodayCents);
+        out.writeLong(completedStays);
+        out.writeLong(totalStayMinutes);
+        out.writeLong(totalArrivals);
+        arrivalsLastHour.writeTo(out);
+        revenueLastWeek.writeTo(out);
+    }
+
+    /**
+     * Replaces all counters with the ones written by writeTo.
+     *
+     * @param in The snapshot buffer, positioned at the statistics
+     * @throws IllegalArgumentException if the snapshot holds counters of another layout
+     */
+    public synchronized void readFrom(ByteBuffer in) {
+        arrivalsDay = in.getLong();
+        arrivalsToday = in.getLong();
+        revenueDay = in.getLong();
+        revenueTodayCents = in.getLong();
+        completedStays = in.getLong();
+        totalStayMinutes = in.getLong();
+        totalArrivals = in.getLong();
+        arrivalsLastHour.readFrom(in);
+        revenueLastWeek.readFrom(in);
+    }
+
+    private static long epochMinute(LocalDateTime time) {
+        return TimeUtil.toEpochMinute(time);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return cents == 0 ? BigDecimal.ZERO : FeeCalculator.toAmount(cents); // "0" like services.ParkingStatistics
+    }
+}
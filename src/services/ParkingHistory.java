@@ -1,33 +1,75 @@
 package services;
 
+import core.OwnerTable;
+import core.PlateCode;
 import core.Vehicle;
+import metrics.HistoryAppendEvent;
+import metrics.MetricsRegistry;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 /**
  * The services.ParkingHistory class implements a comprehensive logging system for tracking
  * all parking lot activities. It maintains a complete history of vehicle entries
  * and exits, providing functionality to search and filter historical data by date.
  * This class uses the Data Transfer Object (DTO) pattern through its inner HistoryEntry class.
+ *
+ * When a services.HistoryJournal is opened, every record is also appended to that durable
+ * journal, and the records already in it are loaded back into memory.
+ *
+ * Besides the complete list, records are partitioned by calendar day (epoch day -> that day's
+ * records) and indexed by license plate, so date, date range and plate queries only touch
+ * the matching records instead of scanning the whole history.
  */
 public class ParkingHistory {
-    private static List<HistoryEntry> history = new ArrayList<>();
+    private static final List<HistoryEntry> history = Collections.synchronizedList(new ArrayList<>());
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+    private static final DateTimeFormatter dateFormatter = // Strict: "31-02-2024" is rejected, not read as Feb 29
+            DateTimeFormatter.ofPattern("dd-MM-uuuu").withResolverStyle(ResolverStyle.STRICT);
+
+    // Secondary indexes, guarded by the history list lock
+    private static final NavigableMap<Long, List<HistoryEntry>> historyByDay = new TreeMap<>();
+    private static final Map<Long, List<HistoryEntry>> historyByPlate = new HashMap<>(); // By core.PlateCode
+    private static final Map<String, List<HistoryEntry>> historyByOtherPlate = new HashMap<>(); // Plates without a code
+    private static volatile HistoryJournal journal; // Durable copy of the history (null = memory only)
+
+    static {
+        MetricsRegistry.global().gauge("history.records", history::size);
+        MetricsRegistry.global().gauge("history.journal.pending", () -> {
+            HistoryJournal open = journal;
+            return open != null ? open.getAppendedCount() - open.getDurableCount() : 0;
+        });
+    }
 
     /**
      * Data Transfer Object representing a single entry in the parking history.
      * This inner class encapsulates all information related to a parking event
      * (vehicle entry or exit) in a structured format.
+     * The license plate is kept as a core.PlateCode and the owner as a core.OwnerTable id,
+     * so a record holds no Strings of its own for them.
      */
     public static class HistoryEntry {
-        private String licensePlate;
-        private String owner;
+        private long plateCode;      // Packed license plate (core.PlateCode)
+        private String licensePlate; // Only for plates that have no plate code
+        private int ownerId;         // Owner name id in core.OwnerTable (-1 if unknown)
         private LocalDateTime timestamp;
         private String action; // "ENTRY" or "EXIT"
         private String additionalInfo; // Additional information (such as parking fee)
+        private int slotId; // Slot the vehicle was parked in (0 if unknown)
 
         /**
          * Constructs a new HistoryEntry with the specified parking event details.
@@ -39,24 +81,47 @@ public class ParkingHistory {
          * @param additionalInfo Additional information about the event
          */
         public HistoryEntry(String licensePlate, String owner, LocalDateTime timestamp, String action, String additionalInfo) {
-            this.licensePlate = licensePlate;
-            this.owner = owner;
+            this(licensePlate, owner, timestamp, action, additionalInfo, 0);
+        }
+
+        /**
+         * Constructs a new HistoryEntry that also records the parking slot involved.
+         *
+         * @param licensePlate The license plate number of the vehicle
+         * @param owner The name of the vehicle owner
+         * @param timestamp The date and time when the event occurred
+         * @param action The type of action ("ENTRY" or "EXIT")
+         * @param additionalInfo Additional information about the event
+         * @param slotId The slot the vehicle was parked in (0 if unknown)
+         */
+        public HistoryEntry(String licensePlate, String owner, LocalDateTime timestamp, String action,
+                            String additionalInfo, int slotId) {
+            this.plateCode = PlateCode.encode(licensePlate);
+            this.licensePlate = plateCode == PlateCode.NONE ? licensePlate : null;
+            this.ownerId = owner == null ? -1 : OwnerTable.idOf(owner);
             this.timestamp = timestamp;
             this.action = action;
             this.additionalInfo = additionalInfo;
+            this.slotId = slotId;
         }
 
         /**
          * Returns the license plate number of the vehicle.
          * @return String representing the license plate
          */
-        public String getLicensePlate() { return licensePlate; }
+        public String getLicensePlate() { return licensePlate != null ? licensePlate : PlateCode.decode(plateCode); }
+
+        /**
+         * Returns the license plate packed into a long.
+         * @return long plate code, or core.PlateCode.NONE if the plate has none
+         */
+        public long getPlateCode() { return plateCode; }
 
         /**
          * Returns the name of the vehicle owner.
          * @return String representing the owner's name
          */
-        public String getOwner() { return owner; }
+        public String getOwner() { return ownerId < 0 ? null : OwnerTable.nameOf(ownerId); }
 
         /**
          * Returns the timestamp when the parking event occurred.
@@ -75,6 +140,169 @@ public class ParkingHistory {
          * @return String containing additional event details
          */
         public String getAdditionalInfo() { return additionalInfo; }
+
+        /**
+         * Returns the parking slot involved in the event.
+         * @return int slot id, or 0 if unknown
+         */
+        public int getSlotId() { return slotId; }
+
+        /**
+         * Returns the fee recorded with an exit, as written by addExitRecord ("Fee: 10.0 NIS").
+         * @return long fee in agorot, or -1 if the record has no readable fee
+         */
+        public long getFeeCents() {
+            int start = additionalInfo == null ? -1 : additionalInfo.lastIndexOf("Fee: ");
+            int end = start < 0 ? -1 : additionalInfo.indexOf(" NIS", start);
+            if (end < 0) {
+                return -1;
+            }
+            try {
+                return new BigDecimal(additionalInfo.substring(start + 5, end)).movePointRight(2).longValueExact();
+            } catch (NumberFormatException | ArithmeticException e) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Opens the durable history journal. Records already in the journal are loaded into
+     * the in-memory history (replacing it), and every new record is appended to the journal.
+     *
+     * @param file The journal file (created if it does not exist)
+     * @param durability How durable each record must be when the gate continues
+     * @return List<HistoryEntry> with the recovered records, oldest first
+     * @throws IOException if the journal cannot be opened or read
+     */
+    public static List<HistoryEntry> openJournal(Path file, HistoryJournal.Durability durability) throws IOException {
+        closeJournal();
+        List<HistoryEntry> recovered = new ArrayList<>();
+        HistoryJournal opened = HistoryJournal.open(file, durability, recovered);
+        synchronized (history) {
+            history.clear();
+            historyByDay.clear();
+            historyByPlate.clear();
+            historyByOtherPlate.clear();
+            for (HistoryEntry entry : recovered) {
+                history.add(entry);
+                index(entry);
+            }
+        }
+        journal = opened;
+        return recovered;
+    }
+
+    /**
+     * Flushes and closes the history journal, if one is open. Later records are kept in memory only.
+     *
+     * @throws IOException if the final flush or close fails
+     */
+    public static void closeJournal() throws IOException {
+        HistoryJournal open = journal;
+        journal = null;
+        if (open != null) {
+            open.close();
+        }
+    }
+
+    /**
+     * Stores a record in memory and, if a journal is open, appends it to the journal.
+     * The record takes its place in memory and in the journal under the same lock, so both
+     * keep the records in the same order; only the wait for the fsync happens outside it.
+     *
+     * @param entry The record to store
+     */
+    private static void record(HistoryEntry entry) {
+        HistoryAppendEvent event = new HistoryAppendEvent();
+        event.begin();
+        HistoryJournal open;
+        long ticket = 0;
+        synchronized (history) {
+            history.add(entry);
+            index(entry);
+            open = journal;
+            if (open != null) {
+                ticket = open.enqueue(entry);
+            }
+        }
+        if (open != null) {
+            open.awaitDurable(ticket);
+        }
+        if (event.shouldCommit()) { // Only while a flight recording is running
+            event.action = entry.getAction();
+            event.slotId = entry.getSlotId();
+            event.plateHash = entry.getPlateCode() != PlateCode.NONE
+                    ? PlateCode.hash(entry.getPlateCode()) : PlateCode.hash(entry.getLicensePlate());
+            event.journaled = open != null;
+            event.commit();
+        }
+    }
+
+    /**
+     * Adds a record to the day partition and the license plate index.
+     * Must be called while holding the history list lock.
+     *
+     * @param entry The record to index
+     */
+    private static void index(HistoryEntry entry) {
+        if (entry.getTimestamp() != null) {
+            historyByDay.computeIfAbsent(entry.getTimestamp().toLocalDate().toEpochDay(), day -> new ArrayList<>())
+                    .add(entry);
+        }
+        if (entry.getPlateCode() != PlateCode.NONE) {
+            historyByPlate.computeIfAbsent(entry.getPlateCode(), plate -> new ArrayList<>()).add(entry);
+        } else {
+            historyByOtherPlate.computeIfAbsent(entry.getLicensePlate(), plate -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    /**
+     * Returns all records of a single calendar day, served from that day's partition.
+     *
+     * @param date The day to look up
+     * @return List<HistoryEntry> with the day's records in the order they were added
+     */
+    public static List<HistoryEntry> getHistoryByDate(LocalDate date) {
+        synchronized (history) {
+            List<HistoryEntry> day = historyByDay.get(date.toEpochDay());
+            return day == null ? new ArrayList<>() : new ArrayList<>(day);
+        }
+    }
+
+    /**
+     * Returns all records from a range of calendar days. Only the partitions of the
+     * requested days are read.
+     *
+     * @param from The first day of the range (inclusive)
+     * @param to The last day of the range (inclusive)
+     * @return List<HistoryEntry> with the records of the range, ordered by day
+     */
+    public static List<HistoryEntry> getHistoryBetween(LocalDate from, LocalDate to) {
+        List<HistoryEntry> result = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        synchronized (history) {
+            for (List<HistoryEntry> day : historyByDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values()) {
+                result.addAll(day);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all records of a single vehicle, served from the license plate index.
+     *
+     * @param licensePlate The license plate to look up
+     * @return List<HistoryEntry> with the vehicle's records in the order they were added
+     */
+    public static List<HistoryEntry> getHistoryByPlate(String licensePlate) {
+        long plateCode = PlateCode.encode(licensePlate);
+        synchronized (history) {
+            List<HistoryEntry> records = plateCode != PlateCode.NONE
+                    ? historyByPlate.get(plateCode) : historyByOtherPlate.get(licensePlate);
+            return records == null ? new ArrayList<>() : new ArrayList<>(records);
+        }
     }
 
     /**
@@ -84,12 +312,24 @@ public class ParkingHistory {
      * @param vehicle The vehicle object containing entry information
      */
     public static void addEntryRecord(Vehicle vehicle) {
-        history.add(new HistoryEntry(
+        addEntryRecord(vehicle, 0);
+    }
+
+    /**
+     * Adds an entry record that also stores the slot the vehicle was parked in,
+     * so that slot occupancy can be rebuilt from the history after a restart.
+     *
+     * @param vehicle The vehicle object containing entry information
+     * @param slotId The slot the vehicle was parked in
+     */
+    public static void addEntryRecord(Vehicle vehicle, int slotId) {
+        record(new HistoryEntry(
                 vehicle.getLicensePlate(),
                 vehicle.getOwner(),
                 vehicle.getEntryTime(),
                 "ENTRY",
-                "Entered parking lot"
+                "Entered parking lot",
+                slotId
         ));
     }
 
@@ -101,12 +341,24 @@ public class ParkingHistory {
      * @param fee The calculated parking fee as a string
      */
     public static void addExitRecord(Vehicle vehicle, String fee) {
-        history.add(new HistoryEntry(
+        addExitRecord(vehicle, fee, 0);
+    }
+
+    /**
+     * Adds an exit record that also stores the slot the vehicle was released from.
+     *
+     * @param vehicle The vehicle object containing exit information
+     * @param fee The calculated parking fee as a string
+     * @param slotId The slot the vehicle was released from
+     */
+    public static void addExitRecord(Vehicle vehicle, String fee, int slotId) {
+        record(new HistoryEntry(
                 vehicle.getLicensePlate(),
                 vehicle.getOwner(),
                 vehicle.getExitTime(),
                 "EXIT",
-                "Exited parking lot - Fee: " + fee + " NIS"
+                "Exited parking lot - Fee: " + fee + " NIS",
+                slotId
         ));
     }
 
@@ -114,15 +366,19 @@ public class ParkingHistory {
      * Displays the parking history filtered by a specific date.
      * Shows all entry and exit records that occurred on the specified date,
      * formatted in a user-friendly manner with timestamps and details.
+     * The date is parsed once and only that day's partition is read.
      *
      * @param date The date to filter by in "dd-MM-yyyy" format
      */
     public static void displayHistoryByDate(String date) {
         System.out.println("\n📅 === History for Date: " + date + " === 📅");
 
-        List<HistoryEntry> filteredHistory = history.stream()
-                .filter(entry -> entry.getTimestamp().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")).equals(date))
-                .toList();
+        List<HistoryEntry> filteredHistory;
+        try {
+            filteredHistory = getHistoryByDate(LocalDate.parse(date, dateFormatter));
+        } catch (DateTimeParseException e) {
+            filteredHistory = new ArrayList<>(); // Not a valid dd-MM-yyyy date - nothing can match
+        }
 
         if (filteredHistory.isEmpty()) {
             System.out.println("No data found for this date.");
@@ -153,6 +409,8 @@ public class ParkingHistory {
      * @return List<HistoryEntry> containing all parking history records
      */
     public static List<HistoryEntry> getHistory() {
-        return new ArrayList<>(history);
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
     }
 }
\ No newline at end of file
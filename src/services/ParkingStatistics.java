@@ -2,7 +2,6 @@ package services;
 
 import core.Vehicle;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.math.BigDecimal;
@@ -13,6 +12,10 @@ import java.math.BigDecimal;
  * pattern to offer utility methods for calculating various metrics such as vehicle counts,
  * average stay times, and revenue calculations. This class serves as a centralized hub
  * for all statistical operations and business intelligence within the parking system.
+ *
+ * The list-based methods recompute every statistic from the full vehicle list. For a running
+ * lot, prefer displayStatistics(services.LiveStatistics), which reads the counters that
+ * core.ParkingLotManager keeps up to date on every check-in and check-out.
  */
 public class ParkingStatistics {
 
@@ -73,7 +76,7 @@ public class ParkingStatistics {
         }
 
         long totalMinutes = exitedVehicles.stream()
-                .mapToLong(v -> Duration.between(v.getEntryTime(), v.getExitTime()).toMinutes())
+                .mapToLong(v -> FeeCalculator.stayMinutes(v.getEntryTime(), v.getExitTime()))
                 .sum();
 
         return (double) totalMinutes / exitedVehicles.size();
@@ -89,12 +92,7 @@ public class ParkingStatistics {
      */
     public static BigDecimal getDailyRevenue(List<Vehicle> allVehicles) {
         LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-
-        return allVehicles.stream()
-                .filter(v -> v.getEntryTime() != null && v.getExitTime() != null)
-                .filter(v -> v.getExitTime().isAfter(startOfDay))
-                .map(FeeCalculator::calculateFee)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return sumFees(allVehicles, startOfDay);
     }
 
     /**
@@ -107,12 +105,23 @@ public class ParkingStatistics {
      */
     public static BigDecimal getWeeklyRevenue(List<Vehicle> allVehicles) {
         LocalDateTime startOfWeek = LocalDateTime.now().minusDays(7);
+        return sumFees(allVehicles, startOfWeek);
+    }
 
-        return allVehicles.stream()
-                .filter(v -> v.getEntryTime() != null && v.getExitTime() != null)
-                .filter(v -> v.getExitTime().isAfter(startOfWeek))
-                .map(FeeCalculator::calculateFee)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Sums the fees of all vehicles that exited after the given time. Fees are added as
+     * agorot and converted to NIS once, instead of creating a BigDecimal per vehicle.
+     */
+    private static BigDecimal sumFees(List<Vehicle> allVehicles, LocalDateTime since) {
+        long cents = 0;
+        boolean any = false;
+        for (Vehicle v : allVehicles) {
+            if (v.getEntryTime() != null && v.getExitTime() != null && v.getExitTime().isAfter(since)) {
+                cents += FeeCalculator.calculateFeeCents(v);
+                any = true;
+            }
+        }
+        return any ? FeeCalculator.toAmount(cents) : BigDecimal.ZERO;
     }
 
     /**
@@ -130,11 +139,31 @@ public class ParkingStatistics {
      * - Weekly revenue total
      */
     public static void displayStatistics(List<Vehicle> allVehicles) {
+        printStatistics(getVehiclesInLastHour(allVehicles), getVehiclesToday(allVehicles),
+                getAverageStayTime(allVehicles), getDailyRevenue(allVehicles), getWeeklyRevenue(allVehicles));
+    }
+
+    /**
+     * Displays the same statistics report from live counters. Every value is read in
+     * constant time, independent of how many vehicles have used the lot.
+     *
+     * @param statistics The live statistics maintained by the parking lot manager
+     */
+    public static void displayStatistics(LiveStatistics statistics) {
+        LocalDateTime now = LocalDateTime.now();
+        printStatistics(statistics.getVehiclesInLastHour(now), statistics.getVehiclesToday(now),
+                statistics.getAverageStayTime(), statistics.getDailyRevenue(now), statistics.getWeeklyRevenue(now));
+    }
+
+    /**
+     * Prints the statistics report with proper formatting and icons.
+     */
+    private static void printStatistics(long lastHour, long today, double avgStay,
+                                        BigDecimal dailyRevenue, BigDecimal weeklyRevenue) {
         System.out.println("\n📊 === Parking Lot Statistics === 📊");
-        System.out.println("🕐 Vehicles entered in the last hour: " + getVehiclesInLastHour(allVehicles));
-        System.out.println("📅 Vehicles entered today: " + getVehiclesToday(allVehicles));
+        System.out.println("🕐 Vehicles entered in the last hour: " + lastHour);
+        System.out.println("📅 Vehicles entered today: " + today);
 
-        double avgStay = getAverageStayTime(allVehicles);
         if (avgStay > 0) {
             long hours = (long) (avgStay / 60);
             long minutes = (long) (avgStay % 60);
@@ -144,9 +173,6 @@ public class ParkingStatistics {
         }
 
         // Revenue display
-        BigDecimal dailyRevenue = getDailyRevenue(allVehicles);
-        BigDecimal weeklyRevenue = getWeeklyRevenue(allVehicles);
-
         System.out.println("💰 Daily revenue: " + dailyRevenue + " NIS");
         System.out.println("💰 Weekly revenue: " + weeklyRevenue + " NIS");
         System.out.println("=====================================\n");
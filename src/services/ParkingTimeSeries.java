@@ -0,0 +1,304 @@
+package services;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * The services.ParkingTimeSeries class records per-minute occupancy, arrivals, departures and
+ * revenue of a parking lot for dashboards. Data is kept in three ring buffers of primitive
+ * arrays with decreasing resolution as it ages (downsampling):
+ * - Last 24 hours in 1-minute buckets
+ * - Last 7 days in 10-minute buckets
+ * - Last 90 days in 1-hour buckets
+ *
+ * Every check-in or check-out updates one bucket in each ring, so recording is O(1) and the
+ * memory footprint is fixed (about 4600 buckets) no matter how long the lot runs.
+ * Buckets are tagged with the period they hold, so stale buckets are recognised and reset
+ * lazily instead of being cleared by a timer. All methods are thread-safe.
+ */
+public class ParkingTimeSeries {
+
+    /**
+     * The value reported for each bucket of a series.
+     */
+    public enum Metric {
+        /** Number of vehicles that entered during the bucket. */
+        ARRIVALS,
+        /** Number of vehicles that left during the bucket. */
+        DEPARTURES,
+        /** Fees collected during the bucket, in agorot (cents). */
+        REVENUE_CENTS,
+        /** Number of occupied slots at the end of the bucket. */
+        OCCUPANCY,
+        /** Highest number of occupied slots during the bucket. */
+        PEAK_OCCUPANCY
+    }
+
+    /**
+     * The time span of a series and the bucket resolution it is served at.
+     */
+    public enum Window {
+        LAST_24_HOURS(1, 24 * 60),
+        LAST_7_DAYS(10, 7 * 24 * 6),
+        LAST_90_DAYS(60, 90 * 24);
+
+        private final int bucketMinutes;
+        private final int buckets;
+
+        Window(int bucketMinutes, int buckets) {
+            this.bucketMinutes = bucketMinutes;
+            this.buckets = buckets;
+        }
+
+        /**
+         * Returns the length of one bucket.
+         * @return int bucket length in minutes
+         */
+        public int getBucketMinutes() { return bucketMinutes; }
+
+        /**
+         * Returns the number of buckets in the window.
+         * @return int bucket count
+         */
+        public int getBuckets() { return buckets; }
+    }
+
+    /**
+     * One ring of equally sized buckets stored column by column in primitive arrays.
+     */
+    private static final class Ring {
+        final int bucketMinutes;
+        final long[] period;        // Absolute bucket number held by each slot (-1 = empty)
+        final long[] arrivals;
+        final long[] departures;
+        final long[] revenueCents;
+        final int[] openOccupancy;  // Occupancy when the bucket started
+        final int[] lastOccupancy;
+        final int[] peakOccupancy;
+        long newestBucket = Long.MIN_VALUE;
+
+        Ring(Window window) {
+            int size = window.buckets;
+            this.bucketMinutes = window.bucketMinutes;
+            this.period = new long[size];
+            this.arrivals = new long[size];
+            this.departures = new long[size];
+            this.revenueCents = new long[size];
+            this.openOccupancy = new int[size];
+            this.lastOccupancy = new int[size];
+            this.peakOccupancy = new int[size];
+            Arrays.fill(period, -1);
+        }
+
+        /**
+         * Returns the array index of the given bucket, resetting the slot if it held an older bucket.
+         */
+        int slotFor(long bucket, int occupancyBefore) {
+            int index = (int) Math.floorMod(bucket, (long) period.length);
+            if (period[index] != bucket) {
+                period[index] = bucket;
+                arrivals[index] = 0;
+                departures[index] = 0;
+                revenueCents[index] = 0;
+                openOccupancy[index] = occupancyBefore;
+                lastOccupancy[index] = occupancyBefore;
+                peakOccupancy[index] = occupancyBefore;
+            }
+            return index;
+        }
+
+        void record(long minute, int occupancyBefore, int occupancyAfter,
+                    long arrived, long departed, long cents) {
+            long bucket = Math.floorDiv(minute, bucketMinutes);
+            if (newestBucket != Long.MIN_VALUE && bucket <= newestBucket - period.length) {
+                return; // Older than the ring covers
+            }
+            int index = slotFor(bucket, occupancyBefore);
+            arrivals[index] += arrived;
+            departures[index] += departed;
+            revenueCents[index] += cents;
+            if (bucket >= newestBucket) {
+                lastOccupancy[index] = occupancyAfter;
+                newestBucket = bucket;
+            }
+            peakOccupancy[index] = Math.max(peakOccupancy[index], occupancyAfter);
+        }
+    }
+
+    private final Ring[] rings = {
+            new Ring(Window.LAST_24_HOURS), new Ring(Window.LAST_7_DAYS), new Ring(Window.LAST_90_DAYS)
+    };
+    private int occupancy; // Current number of occupied slots
+
+    /**
+     * Records a vehicle entering the lot.
+     *
+     * @param time The entry time
+     * @param occupancyAfter The number of occupied slots after the vehicle parked
+     */
+    public synchronized void recordArrival(LocalDateTime time, int occupancyAfter) {
+        record(time, occupancyAfter, 1, 0, 0);
+    }
+
+    /**
+     * Records a vehicle leaving the lot.
+     *
+     * @param time The exit time
+     * @param occupancyAfter The number of occupied slots after the slot was released
+     * @param feeCents The fee paid, in agorot (cents)
+     */
+    public synchronized void recordDeparture(LocalDateTime time, int occupancyAfter, long feeCents) {
+        record(time, occupancyAfter, 0, 1, feeCents);
+    }
+
+    private void record(LocalDateTime time, int occupancyAfter, long arrived, long departed, long cents) {
+        if (time == null) {
+            return;
+        }
+        long minute = TimeUtil.toEpochMinute(time);
+        int before = occupancy;
+        for (Ring ring : rings) {
+            ring.record(minute, before, occupancyAfter, arrived, departed, cents);
+        }
+        occupancy = occupancyAfter;
+    }
+
+    /**
+     * Returns a series of values for the window ending at the given time, one value per bucket,
+     * oldest first. Buckets without any check-in or check-out report zero counts and carry the
+     * occupancy forward.
+     *
+     * @param metric The value to report
+     * @param window The time span and resolution
+     * @param now The end of the window (its bucket is the last element)
+     * @return long[] with window.getBuckets() values
+     */
+    public synchronized long[] getSeries(Metric metric, Window window, LocalDateTime now) {
+        Ring ring = rings[window.ordinal()];
+        int size = window.buckets;
+        long last = Math.floorDiv(TimeUtil.toEpochMinute(now), window.bucketMinutes);
+        long first = last - size + 1;
+        long[] series = new long[size];
+
+        // Occupancy before the first recorded bucket of the window is the occupancy that bucket opened with
+        long carry = occupancy;
+        for (long b = first; b <= last; b++) {
+            int index = (int) Math.floorMod(b, (long) size);
+            if (ring.period[index] == b) {
+                carry = ring.openOccupancy[index];
+                break;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            long bucket = first + i;
+            int index = (int) Math.floorMod(bucket, (long) size);
+            boolean recorded = ring.period[index] == bucket;
+            switch (metric) {
+                case ARRIVALS:
+                    series[i] = recorded ? ring.arrivals[index] : 0;
+                    break;
+                case DEPARTURES:
+                    series[i] = recorded ? ring.departures[index] : 0;
+                    break;
+                case REVENUE_CENTS:
+                    series[i] = recorded ? ring.revenueCents[index] : 0;
+                    break;
+                case OCCUPANCY:
+                    if (recorded) {
+                        carry = ring.lastOccupancy[index];
+                    }
+                    series[i] = carry;
+                    break;
+                case PEAK_OCCUPANCY:
+                default:
+                    series[i] = recorded ? ring.peakOccupancy[index] : carry;
+                    if (recorded) {
+                        carry = ring.lastOccupancy[index];
+                    }
+                    break;
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Returns the sum of a counting metric (arrivals, departures or revenue) over a window.
+     *
+     * @param metric ARRIVALS, DEPARTURES or REVENUE_CENTS
+     * @param window The time span
+     * @param now The end of the window
+     * @return long total over the window
+     * @throws IllegalArgumentException if metric is an occupancy metric
+     */
+    public long getTotal(Metric metric, Window window, LocalDateTime now) {
+        if (metric == Metric.OCCUPANCY || metric == Metric.PEAK_OCCUPANCY) {
+            throw new IllegalArgumentException("Occupancy cannot be summed over a window");
+        }
+        long total = 0;
+        for (long value : getSeries(metric, window, now)) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the occupancy after the most recent check-in or check-out.
+     *
+     * @return int number of occupied slots
+     */
+    public synchronized int getCurrentOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * Writes the current occupancy and every ring to a lot snapshot.
+     *
+     * @param out The snapshot stream
+     * @throws IOException if writing fails
+     */
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(occupancy);
+        for (Ring ring : rings) {
+            out.writeInt(ring.period.length);
+            out.writeLong(ring.newestBucket);
+            for (int i = 0; i < ring.period.length; i++) {
+                out.writeLong(ring.period[i]);
+                out.writeLong(ring.arrivals[i]);
+                out.writeLong(ring.departures[i]);
+                out.writeLong(ring.revenueCents[i]);
+                out.writeInt(ring.openOccupancy[i]);
+                out.writeInt(ring.lastOccupancy[i]);
+                out.writeInt(ring.peakOccupancy[i]);
+            }
+        }
+    }
+
+    /**
+     * Replaces all buckets with the ones written by writeTo.
+     *
+     * @param in The snapshot buffer, positioned at the time series
+     * @throws IllegalArgumentException if the snapshot holds rings of another size
+     */
+    public synchronized void readFrom(ByteBuffer in) {
+        occupancy = in.getInt();
+        for (Ring ring : rings) {
+            if (in.getInt() != ring.period.length) {
+                throw new IllegalArgumentException("Time series window does not match the snapshot");
+            }
+            ring.newestBucket = in.getLong();
+            for (int i = 0; i < ring.period.length; i++) {
+                ring.period[i] = in.getLong();
+                ring.arrivals[i] = in.getLong();
+                ring.departures[i] = in.getLong();
+                ring.revenueCents[i] = in.getLong();
+                ring.openOccupancy[i] = in.getInt();
+                ring.lastOccupancy[i] = in.getInt();
+                ring.peakOccupancy[i] = in.getInt();
+            }
+        }
+    }
+}
@@ -2,6 +2,13 @@ package services;
 
 import core.ParkingLotManager;
 import core.ParkingSlot;
+import core.Vehicle;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
 
 /**
  * The services.Report class provides static factory methods for generating various types of parking reports.
@@ -11,6 +18,23 @@ import core.ParkingSlot;
  * in a user-friendly manner.
  */
 public class Report {
+    private static final ReportWriter.Column[] SLOT_COLUMNS = {
+            new ReportWriter.Column("slot", "Slot "), new ReportWriter.Column("plate", " - ")};
+    private static final ReportWriter.Column[] SUMMARY_COLUMNS = {
+            new ReportWriter.Column("occupied", "\nSummary: "),
+            new ReportWriter.Column("total", "/"),
+            new ReportWriter.Column("available", " slots occupied\nAvailable slots: ")};
+    private static final ReportWriter.Column[] VALUE_COLUMNS = {
+            new ReportWriter.Column("name", ""), new ReportWriter.Column("value", ": ")};
+    private static final ReportWriter.Column[] LATENCY_COLUMNS = {
+            new ReportWriter.Column("name", ""),
+            new ReportWriter.Column("count", ": count "),
+            new ReportWriter.Column("meanNanos", ", mean "),
+            new ReportWriter.Column("p50Nanos", ", p50 "),
+            new ReportWriter.Column("p90Nanos", ", p90 "),
+            new ReportWriter.Column("p99Nanos", ", p99 "),
+            new ReportWriter.Column("p999Nanos", ", p99.9 "),
+            new ReportWriter.Column("maxNanos", ", max ")};
 
     /**
      * Prints the current parking lot status showing which slots are occupied and by which vehicles.
@@ -38,25 +62,78 @@ public class Report {
      * parking lot utilization and available capacity.
      */
     public static void printStatus(ParkingLotManager manager) {
-        System.out.println("\n--- Current Parking Lot Status ---");
+        printStatus(manager, ReportWriter.stdout());
+    }
+
+    /**
+     * Writes the current parking lot status to a report writer, one row per slot followed by
+     * a summary row. The text format is the one of printStatus(manager).
+     *
+     * @param manager The parking lot manager instance containing the list of all parking slots
+     * @param out The report writer (text, CSV or JSON); it is flushed but not closed
+     */
+    public static void printStatus(ParkingLotManager manager, ReportWriter out) {
+        out.beginReport("status").textLine("\n--- Current Parking Lot Status ---");
 
+        out.beginTable("slots", "Empty", SLOT_COLUMNS);
         for (ParkingSlot slot : manager.getSlots()) {
-            if (slot.isOccupied()) {
-                // If slot is occupied - display the license plate of the vehicle in it
-                System.out.println("Slot " + slot.getId() + " - " + slot.getCurrentVehicle().getLicensePlate());
-            } else {
-                // If slot is empty - display "Empty"
-                System.out.println("Slot " + slot.getId() + " - Empty");
-            }
+            Vehicle vehicle = slot.getCurrentVehicle();
+            // Occupied slots show the license plate of the vehicle in it, empty slots "Empty"
+            out.cell(slot.getId()).cell(vehicle != null ? vehicle.getLicensePlate() : null).endRow();
         }
+        out.endTable();
+
+        // Summary statistics (a popcount over the lot's occupancy bitset)
+        long occupiedSlots = manager.getOccupiedSlots();
 
-        // Display summary statistics
-        long occupiedSlots = manager.getSlots().stream()
-                .filter(ParkingSlot::isOccupied)
-                .count();
+        out.beginTable("summary", "", SUMMARY_COLUMNS)
+                .cell(occupiedSlots).cell(manager.getTotalSlots()).cell(manager.getTotalSlots() - occupiedSlots)
+                .endRow().endTable();
+        out.textLine("===================================").endReport();
+    }
 
-        System.out.println("\nSummary: " + occupiedSlots + "/" + manager.getTotalSlots() + " slots occupied");
-        System.out.println("Available slots: " + (manager.getTotalSlots() - occupiedSlots));
-        System.out.println("===================================");
+    /**
+     * Prints all metrics of a registry to the console: counters, gauges and latency
+     * percentiles of the instrumented gate, observer, fee and history operations.
+     *
+     * @param registry The metrics registry, e.g. metrics.MetricsRegistry.global()
+     */
+    public static void printMetrics(MetricsRegistry registry) {
+        printMetrics(registry, ReportWriter.stdout());
+    }
+
+    /**
+     * Writes all metrics of a registry to a report writer: a table of counters, a table of
+     * gauges (evaluated now) and a table of latencies in nanoseconds.
+     *
+     * @param registry The metrics registry
+     * @param out The report writer (text, CSV or JSON); it is flushed but not closed
+     */
+    public static void printMetrics(MetricsRegistry registry, ReportWriter out) {
+        out.beginReport("metrics").textLine("\n--- Metrics" + (registry.isEnabled() ? "" : " (recording disabled)") + " ---");
+
+        out.beginTable("counters", "", VALUE_COLUMNS);
+        for (Map.Entry<String, Counter> counter : registry.getCounters().entrySet()) {
+            out.cell(counter.getKey()).cell(counter.getValue().getCount()).endRow();
+        }
+        out.endTable();
+
+        out.beginTable("gauges", "", VALUE_COLUMNS);
+        for (Map.Entry<String, LongSupplier> gauge : registry.getGauges().entrySet()) {
+            out.cell(gauge.getKey()).cell(gauge.getValue().getAsLong()).endRow();
+        }
+        out.endTable();
+
+        out.textLine("Latencies (ns):");
+        out.beginTable("latencies", "", LATENCY_COLUMNS);
+        for (Map.Entry<String, LatencyHistogram> entry : registry.getHistograms().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            out.cell(entry.getKey()).cell(histogram.getCount()).cell(histogram.getMean())
+                    .cell(histogram.getValueAtPercentile(50)).cell(histogram.getValueAtPercentile(90))
+                    .cell(histogram.getValueAtPercentile(99)).cell(histogram.getValueAtPercentile(99.9))
+                    .cell(histogram.getMax()).endRow();
+        }
+        out.endTable();
+        out.textLine("===================================").endReport();
     }
 }
\ No newline at end of file
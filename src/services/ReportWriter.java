@@ -0,0 +1,459 @@
+package services;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * The services.ReportWriter class streams reports into a buffered sink (stdout, a file or any
+ * OutputStream, e.g. of a socket) in one of three formats: human readable text, CSV or JSON.
+ *
+ * A report is written as tables of rows. Every column has a name (the CSV header and JSON
+ * key) and a text prefix, so the text rendering of a row is simply each prefix followed by
+ * its cell, e.g. the columns ("slot", "Slot ") and ("plate", " - ") render "Slot 4 - ABC123".
+ * Numbers and timestamps are written digit by digit into the buffer and strings are copied
+ * as they are, so writing a row creates no intermediate Strings or formatters.
+ *
+ * A writer is not thread-safe but may be reused for any number of reports; stdout returns one
+ * writer per thread for that purpose. I/O errors are thrown as UncheckedIOException.
+ */
+public final class ReportWriter implements Flushable, Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    // Writes to whatever System.out is at the time of writing and never closes it
+    private static final ThreadLocal<ReportWriter> STDOUT = ThreadLocal.withInitial(() ->
+            new ReportWriter(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    System.out.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    System.out.write(b, off, len);
+                }
+
+                @Override
+                public void flush() {
+                    System.out.flush();
+                }
+            }, Format.TEXT, true));
+
+    /**
+     * Output format of a report writer.
+     */
+    public enum Format {
+        /** Human readable lines, laid out by the column text prefixes. */
+        TEXT,
+        /** One header line and one comma-separated line per row for every table. */
+        CSV,
+        /** One JSON object per report with an array of row objects per table. */
+        JSON
+    }
+
+    /**
+     * A column of a report table.
+     */
+    public static final class Column {
+        private final String name;
+        private final String textPrefix;
+
+        /**
+         * Creates a column.
+         *
+         * @param name Name of the column in CSV headers and JSON objects
+         * @param textPrefix Text written before the cell in the text format
+         */
+        public Column(String name, String textPrefix) {
+            this.name = name;
+            this.textPrefix = textPrefix;
+        }
+    }
+
+    private final Writer out;
+    private final Format format;
+    private final boolean shared;  // The per-thread stdout writer: close only flushes
+    private final char[] digits = new char[20];
+
+    private Column[] columns;      // Columns of the open table, or null
+    private String emptyText;      // Text of null cells in the text format
+    private int column;            // Index of the next cell of the current row
+    private boolean firstTable;
+    private boolean firstRow;
+
+    /**
+     * Creates a writer that streams into an output stream, encoded as UTF-8.
+     *
+     * @param out The output stream, e.g. of a file or socket
+     * @param format The report format
+     */
+    public ReportWriter(OutputStream out, Format format) {
+        this(out, format, false);
+    }
+
+    private ReportWriter(OutputStream out, Format format, boolean shared) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.format = format;
+        this.shared = shared;
+    }
+
+    /**
+     * Returns this thread's text writer on System.out. Closing it only flushes.
+     *
+     * @return services.ReportWriter writing text to System.out
+     */
+    public static ReportWriter stdout() {
+        return STDOUT.get();
+    }
+
+    /**
+     * Creates a writer that writes a new file (or replaces an existing one).
+     *
+     * @param file The file to write
+     * @param format The report format
+     * @return services.ReportWriter on the file; close it when done
+     * @throws IOException if the file cannot be created
+     */
+    public static ReportWriter toFile(Path file, Format format) throws IOException {
+        return new ReportWriter(Files.newOutputStream(file), format);
+    }
+
+    /** @return services.ReportWriter.Format of this writer */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Starts a report.
+     *
+     * @param name Name of the report (the "report" value in JSON)
+     * @return this writer
+     */
+    public ReportWriter beginReport(String name) {
+        if (format == Format.JSON) {
+            write("{\"report\":");
+            jsonString(name);
+        }
+        firstTable = true;
+        return this;
+    }
+
+    /**
+     * Writes a line that only belongs to the text format, such as a heading or a separator.
+     * The line is skipped in CSV and JSON.
+     *
+     * @param line The line, without line separator
+     * @return this writer
+     */
+    public ReportWriter textLine(String line) {
+        if (format == Format.TEXT) {
+            write(line);
+            write(LINE_SEPARATOR);
+        }
+        return this;
+    }
+
+    /**
+     * Starts a table.
+     *
+     * @param name Name of the table (the JSON key of its rows)
+     * @param emptyText Text written for null cells in the text format
+     * @param columns The columns of every row
+     * @return this writer
+     */
+    public ReportWriter beginTable(String name, String emptyText, Column... columns) {
+        this.columns = columns;
+        this.emptyText = emptyText;
+        this.column = 0;
+        this.firstRow = true;
+        if (format == Format.CSV) {
+            if (!firstTable) {
+                write('\n');
+            }
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    write(',');
+                }
+                csvString(columns[i].name);
+            }
+            write('\n');
+        } else if (format == Format.JSON) {
+            write(',');
+            jsonString(name);
+            write(":[");
+        }
+        firstTable = false;
+        return this;
+    }
+
+    /**
+     * Writes the next cell of the current row.
+     *
+     * @param value The text of the cell, or null
+     * @return this writer
+     */
+    public ReportWriter cell(CharSequence value) {
+        if (startCell(value == null)) {
+            if (format == Format.CSV) {
+                csvString(value);
+            } else if (format == Format.JSON) {
+                jsonString(value);
+            } else {
+                write(value);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes the next cell of the current row.
+     *
+     * @param value The number
+     * @return this writer
+     */
+    public ReportWriter cell(long value) {
+        startCell(false);
+        number(value);
+        return this;
+    }
+
+    /**
+     * Writes the next cell of the current row. Timestamps are written as dd-MM-yyyy HH:mm:ss
+     * in text and as ISO-8601 (yyyy-MM-ddTHH:mm:ss) in CSV and JSON.
+     *
+     * @param value The timestamp, or null
+     * @return this writer
+     */
+    public ReportWriter cell(LocalDateTime value) {
+        if (startCell(value == null)) {
+            if (format == Format.JSON) {
+                write('"');
+            }
+            if (format == Format.TEXT) {
+                twoDigits(value.getDayOfMonth());
+                write('-');
+                twoDigits(value.getMonthValue());
+                write('-');
+                year(value.getYear());
+                write(' ');
+            } else {
+                year(value.getYear());
+                write('-');
+                twoDigits(value.getMonthValue());
+                write('-');
+                twoDigits(value.getDayOfMonth());
+                write('T');
+            }
+            twoDigits(value.getHour());
+            write(':');
+            twoDigits(value.getMinute());
+            write(':');
+            twoDigits(value.getSecond());
+            if (format == Format.JSON) {
+                write('"');
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Ends the current row. Columns without a cell are left empty.
+     *
+     * @return this writer
+     */
+    public ReportWriter endRow() {
+        if (format == Format.JSON) {
+            write(column == 0 ? "{}" : "}");
+        } else {
+            write(format == Format.TEXT ? LINE_SEPARATOR : "\n");
+        }
+        column = 0;
+        firstRow = false;
+        return this;
+    }
+
+    /**
+     * Ends the current table.
+     *
+     * @return this writer
+     */
+    public ReportWriter endTable() {
+        if (format == Format.JSON) {
+            write(']');
+        }
+        columns = null;
+        return this;
+    }
+
+    /**
+     * Ends the report and flushes it to the sink.
+     */
+    public void endReport() {
+        if (format == Format.JSON) {
+            write("}\n");
+        }
+        flush();
+    }
+
+    /**
+     * Writes all buffered output to the sink.
+     */
+    @Override
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write report", e);
+        }
+    }
+
+    /**
+     * Flushes and closes the sink (only flushes the stdout writer).
+     */
+    @Override
+    public void close() {
+        if (shared) {
+            flush();
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write report", e);
+        }
+    }
+
+    /**
+     * Writes the separator and text prefix of the next cell, and the null marker if isNull.
+     *
+     * @return boolean true if the caller has to write the value
+     */
+    private boolean startCell(boolean isNull) {
+        Column c = columns[column];
+        if (format == Format.TEXT) {
+            write(c.textPrefix);
+        } else if (format == Format.CSV) {
+            if (column > 0) {
+                write(',');
+            }
+        } else {
+            write(column == 0 ? (firstRow ? "{" : ",{") : ",");
+            jsonString(c.name);
+            write(':');
+        }
+        column++;
+        if (isNull) {
+            if (format == Format.TEXT) {
+                write(emptyText);
+            } else if (format == Format.JSON) {
+                write("null");
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void number(long value) {
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+        int start = digits.length;
+        do {
+            digits[--start] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        try {
+            out.write(digits, start, digits.length - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write report", e);
+        }
+    }
+
+    private void twoDigits(int value) {
+        write((char) ('0' + value / 10));
+        write((char) ('0' + value % 10));
+    }
+
+    private void year(int year) {
+        if (year >= 0 && year < 1000) {
+            twoDigits(year / 100);
+            twoDigits(year % 100);
+        } else {
+            number(year);
+        }
+    }
+
+    private void csvString(CharSequence value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            write(value);
+            return;
+        }
+        write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                write('"');
+            }
+            write(c);
+        }
+        write('"');
+    }
+
+    private void jsonString(CharSequence value) {
+        if (value == null) {
+            write("null");
+            return;
+        }
+        write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                write('\\');
+                write(c);
+            } else if (c < 0x20) {
+                write("\\u00");
+                write(Character.forDigit(c >> 4, 16));
+                write(Character.forDigit(c & 15, 16));
+            } else {
+                write(c);
+            }
+        }
+        write('"');
+    }
+
+    private void write(CharSequence text) {
+        try {
+            out.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write report", e);
+        }
+    }
+
+    private void write(char c) {
+        try {
+            out.write(c);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write report", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package services;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The services.RollingCounter class sums values over a sliding window of whole minutes,
+ * for example "vehicles that entered in the last 60 minutes". Values are kept in a
+ * ring of per-minute buckets in a primitive array together with a running total, so
+ * adding a value and reading the window total are O(1) (expiring old minutes costs at
+ * most one step per elapsed minute, bounded by the window size).
+ *
+ * Minutes are absolute minute numbers (for example epoch minutes). The class is not
+ * thread-safe; callers synchronize externally.
+ */
+class RollingCounter {
+    private final long[] buckets;
+    private long headMinute = Long.MIN_VALUE; // Newest minute the ring has advanced to
+    private long total;
+
+    /**
+     * Creates a counter covering the given number of minutes.
+     *
+     * @param windowMinutes Length of the window in minutes (at least 1)
+     */
+    RollingCounter(int windowMinutes) {
+        if (windowMinutes < 1) {
+            throw new IllegalArgumentException("Window must be at least one minute");
+        }
+        this.buckets = new long[windowMinutes];
+    }
+
+    /**
+     * Adds a value to the bucket of the given minute. Values older than the window are ignored.
+     *
+     * @param minute The minute the value belongs to
+     * @param amount The value to add
+     */
+    void add(long minute, long amount) {
+        advance(minute);
+        if (minute <= headMinute - buckets.length) {
+            return; // Already outside the window
+        }
+        buckets[(int) Math.floorMod(minute, (long) buckets.length)] += amount;
+        total += amount;
+    }
+
+    /**
+     * Returns the sum of the window ending at the given minute (inclusive).
+     *
+     * @param nowMinute The current minute
+     * @return long sum of the last windowMinutes minutes
+     */
+    long sum(long nowMinute) {
+        advance(nowMinute);
+        return total;
+    }
+
+    /**
+     * Moves the head of the ring forward, clearing the buckets of minutes that left the window.
+     */
+    private void advance(long minute) {
+        if (headMinute == Long.MIN_VALUE) {
+            headMinute = minute;
+            return;
+        }
+        if (minute <= headMinute) {
+            return;
+        }
+        long steps = Math.min(minute - headMinute, buckets.length);
+        for (long i = 1; i <= steps; i++) {
+            int index = (int) Math.floorMod(headMinute + i, (long) buckets.length);
+            total -= buckets[index];
+            buckets[index] = 0;
+        }
+        headMinute = minute;
+    }
+
+    /**
+     * Writes the window length, position, total and buckets, for a lot snapshot.
+     *
+     * @param out The snapshot stream
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(buckets.length);
+        out.writeLong(headMinute);
+        out.writeLong(total);
+        for (long bucket : buckets) {
+            out.writeLong(bucket);
+        }
+    }
+
+    /**
+     * Restores the state written by writeTo.
+     *
+     * @param in The snapshot buffer, positioned at the counter
+     * @throws IllegalArgumentException if the counter was written with another window length
+     */
+    void readFrom(ByteBuffer in) {
+        if (in.getInt() != buckets.length) {
+            throw new IllegalArgumentException("Counter window does not match the snapshot");
+        }
+        headMinute = in.getLong();
+        total = in.getLong();
+        in.asLongBuffer().get(buckets);
+        in.position(in.position() + buckets.length * 8);
+    }
+}
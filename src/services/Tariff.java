@@ -0,0 +1,275 @@
+package services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The services.Tariff class is the compiled price list of one vehicle class. Every started hour
+ * of a stay is charged at the rate in force when that hour starts:
+ * - The first hour of the stay costs the first-hour rate, if one is set
+ * - Hours starting on a weekend day cost the weekend rate, if one is set
+ * - Otherwise hours starting inside the night window cost the night rate, if one is set
+ * - All other hours cost the regular hourly rate
+ * The charges of each calendar day are limited by the daily cap, and stays no longer than the
+ * grace period are free.
+ *
+ * The tariff is compiled once into a table of rate intervals covering one week (split at every
+ * midnight and every night window edge) and into the capped price of a whole week for each of
+ * the 60 possible minute offsets of the hourly grid. A fee is therefore computed per interval
+ * crossed, and whole weeks of a long stay cost one multiplication, instead of walking the stay
+ * hour by hour. The computation works on primitive values and allocates nothing.
+ *
+ * Instances are immutable and can be shared by any number of gates.
+ * All amounts are in agorot (cents); -1 means that an optional rate or cap is not set.
+ */
+public final class Tariff {
+    /** Marks an optional rate or cap that is not set. */
+    public static final long NONE = -1;
+
+    private static final int MINUTES_PER_DAY = 1440;
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    private static final int EPOCH_DAY_OF_WEEK = 3; // 1970-01-01 was a Thursday (Monday = 0)
+
+    private final long graceMinutes;
+    private final long firstHourCents;
+    private final long hourlyCents;
+    private final long nightHourlyCents;
+    private final int nightStartMinute;
+    private final int nightEndMinute;
+    private final long weekendHourlyCents;
+    private final boolean[] weekendDays = new boolean[7];
+    private final long dailyCapCents;
+
+    // Compiled form
+    private final boolean flat;       // Plain hourly rate: fee = hours * hourlyCents
+    private final int[] boundaries;   // Start minute (within the week) of each rate interval, ascending
+    private final long[] rates;       // Hourly rate of each interval
+    private final long[] weekCents;   // Capped price of one whole week, by minute offset of the hourly grid
+
+    /**
+     * Creates and compiles a tariff.
+     *
+     * @param graceMinutes Stays of at most this many minutes are free (0 for none)
+     * @param firstHourCents Price of the first hour of a stay, or NONE
+     * @param hourlyCents Regular price of every started hour
+     * @param nightHourlyCents Price of hours starting in the night window, or NONE
+     * @param nightStart Start of the night window (ignored without a night rate)
+     * @param nightEnd End of the night window, may be earlier than nightStart to span midnight
+     * @param weekendHourlyCents Price of hours starting on a weekend day, or NONE
+     * @param weekendDays The days that count as weekend (ignored without a weekend rate)
+     * @param dailyCapCents Maximum charged per calendar day, or NONE
+     * @throws IllegalArgumentException if a value is negative or the night window is empty
+     */
+    public Tariff(long graceMinutes, long firstHourCents, long hourlyCents,
+                  long nightHourlyCents, LocalTime nightStart, LocalTime nightEnd,
+                  long weekendHourlyCents, Set<DayOfWeek> weekendDays, long dailyCapCents) {
+        if (graceMinutes < 0 || hourlyCents < 0) {
+            throw new IllegalArgumentException("Grace period and hourly rate cannot be negative");
+        }
+        if (firstHourCents < NONE || nightHourlyCents < NONE || weekendHourlyCents < NONE || dailyCapCents < NONE) {
+            throw new IllegalArgumentException("Tariff rates cannot be negative");
+        }
+        this.graceMinutes = graceMinutes;
+        this.firstHourCents = firstHourCents;
+        this.hourlyCents = hourlyCents;
+        this.nightHourlyCents = nightHourlyCents;
+        this.weekendHourlyCents = weekendHourlyCents;
+        this.dailyCapCents = dailyCapCents;
+
+        if (nightHourlyCents != NONE) {
+            if (nightStart == null || nightEnd == null || nightStart.equals(nightEnd)) {
+                throw new IllegalArgumentException("Night rate needs a non-empty night window");
+            }
+            this.nightStartMinute = nightStart.getHour() * 60 + nightStart.getMinute();
+            this.nightEndMinute = nightEnd.getHour() * 60 + nightEnd.getMinute();
+        } else {
+            this.nightStartMinute = 0;
+            this.nightEndMinute = 0;
+        }
+        if (weekendHourlyCents != NONE && weekendDays != null) {
+            for (DayOfWeek day : weekendDays) {
+                this.weekendDays[day.getValue() - 1] = true;
+            }
+        }
+
+        this.flat = graceMinutes == 0 && firstHourCents == NONE && nightHourlyCents == NONE
+                && weekendHourlyCents == NONE && dailyCapCents == NONE;
+        this.boundaries = compileBoundaries();
+        this.rates = new long[boundaries.length];
+        for (int i = 0; i < boundaries.length; i++) {
+            rates[i] = rateAt(boundaries[i]);
+        }
+        this.weekCents = new long[60];
+        for (int phase = 0; phase < 60; phase++) {
+            weekCents[phase] = priceOfWeek(phase);
+        }
+    }
+
+    /**
+     * Creates a tariff that charges the same price for every started hour.
+     *
+     * @param hourlyCents Price of every started hour in agorot
+     * @return services.Tariff with a single hourly rate
+     */
+    public static Tariff hourly(long hourlyCents) {
+        return new Tariff(0, NONE, hourlyCents, NONE, null, null, NONE, null, NONE);
+    }
+
+    /**
+     * Calculates the fee of a stay in agorot.
+     *
+     * @param entry The entry time
+     * @param exit The exit time
+     * @return long fee in agorot
+     */
+    public long calculateFeeCents(LocalDateTime entry, LocalDateTime exit) {
+        long minutes = FeeCalculator.stayMinutes(entry, exit);
+        if (flat) {
+            return ((minutes + 59) / 60) * hourlyCents; // Same rounding as the original calculation
+        }
+        if (minutes <= graceMinutes) {
+            return 0;
+        }
+        return priceOfHours(TimeUtil.toEpochMinute(entry), (minutes + 59) / 60);
+    }
+
+    /**
+     * Prices the hours starting at start, start + 60, ... (count of them), walking the
+     * rate intervals of the week and skipping whole weeks with the precompiled week prices.
+     */
+    private long priceOfHours(long start, long hours) {
+        long end = start + hours * 60;           // Every charged hour starts before end
+        long weekStart = start - minuteOfWeek(start);
+        int interval = intervalOf(minuteOfWeek(start));
+        long total = 0;
+        long today = 0;
+
+        while (weekStart + boundaries[interval] < end) {
+            long from = weekStart + boundaries[interval];
+            long to = weekStart + (interval + 1 < boundaries.length ? boundaries[interval + 1] : MINUTES_PER_WEEK);
+            if (boundaries[interval] % MINUTES_PER_DAY == 0 && from > start) {
+                total += capped(today); // A new calendar day starts
+                today = 0;
+            }
+
+            long first = ceilDiv(Math.max(from, start) - start, 60);
+            long count = ceilDiv(Math.min(to, end) - start, 60) - first;
+            if (count > 0) {
+                if (first == 0 && firstHourCents != NONE) {
+                    today += firstHourCents;
+                    count--;
+                }
+                today += count * rates[interval];
+            }
+
+            if (++interval == boundaries.length) {
+                interval = 0;
+                weekStart += MINUTES_PER_WEEK;
+                long wholeWeeks = (end - weekStart) / MINUTES_PER_WEEK;
+                if (wholeWeeks > 0) {
+                    total += capped(today);
+                    today = 0;
+                    total += wholeWeeks * weekCents[(int) Math.floorMod(start - weekStart, 60L)];
+                    weekStart += wholeWeeks * MINUTES_PER_WEEK;
+                }
+            }
+        }
+        return total + capped(today);
+    }
+
+    /**
+     * Returns the capped price of one whole week whose hourly grid starts at the given minute.
+     */
+    private long priceOfWeek(int phase) {
+        long total = 0;
+        long today = 0;
+        int day = 0;
+        for (int minute = phase; minute < MINUTES_PER_WEEK; minute += 60) {
+            if (minute / MINUTES_PER_DAY != day) {
+                total += capped(today);
+                today = 0;
+                day = minute / MINUTES_PER_DAY;
+            }
+            today += rateAt(minute);
+        }
+        return total + capped(today);
+    }
+
+    private int[] compileBoundaries() {
+        TreeSet<Integer> starts = new TreeSet<>();
+        for (int day = 0; day < 7; day++) {
+            int midnight = day * MINUTES_PER_DAY;
+            starts.add(midnight);
+            if (nightHourlyCents != NONE) {
+                starts.add(midnight + nightStartMinute);
+                starts.add(midnight + nightEndMinute);
+            }
+        }
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private long rateAt(int minuteOfWeek) {
+        if (weekendHourlyCents != NONE && weekendDays[minuteOfWeek / MINUTES_PER_DAY]) {
+            return weekendHourlyCents;
+        }
+        if (nightHourlyCents != NONE && isNight(minuteOfWeek % MINUTES_PER_DAY)) {
+            return nightHourlyCents;
+        }
+        return hourlyCents;
+    }
+
+    private boolean isNight(int minuteOfDay) {
+        if (nightStartMinute < nightEndMinute) {
+            return minuteOfDay >= nightStartMinute && minuteOfDay < nightEndMinute;
+        }
+        return minuteOfDay >= nightStartMinute || minuteOfDay < nightEndMinute; // Spans midnight
+    }
+
+    private int intervalOf(int minuteOfWeek) {
+        int index = Arrays.binarySearch(boundaries, minuteOfWeek);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private long capped(long cents) {
+        return dailyCapCents != NONE ? Math.min(cents, dailyCapCents) : cents;
+    }
+
+    private static int minuteOfWeek(long epochMinute) {
+        return (int) Math.floorMod(epochMinute + EPOCH_DAY_OF_WEEK * MINUTES_PER_DAY, (long) MINUTES_PER_WEEK);
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    /**
+     * Returns the regular hourly rate.
+     *
+     * @return long price of a regular hour in agorot
+     */
+    public long getHourlyCents() {
+        return hourlyCents;
+    }
+
+    /**
+     * Returns the grace period.
+     *
+     * @return long length of the grace period in minutes
+     */
+    public long getGraceMinutes() {
+        return graceMinutes;
+    }
+
+    /**
+     * Returns the daily cap.
+     *
+     * @return long maximum charge per calendar day in agorot, or NONE
+     */
+    public long getDailyCapCents() {
+        return dailyCapCents;
+    }
+}
\ No newline at end of file
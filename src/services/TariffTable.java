@@ -0,0 +1,169 @@
+package services;
+
+import core.Vehicle;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The services.TariffTable class holds the compiled tariffs of all vehicle classes. A table is
+ * immutable: reloading the tariff file builds and compiles a complete new table, which
+ * services.FeeCalculator then swaps in with a single reference assignment, so gates keep
+ * computing fees with the old table until the new one is ready and never see a mix of both.
+ *
+ * The tariff file is a properties file with one group of keys per vehicle class:
+ *
+ * tariff.standard.hourly=5.00
+ * tariff.standard.first.hour=8.00
+ * tariff.standard.grace.minutes=15
+ * tariff.standard.night.hourly=3.00
+ * tariff.standard.night.start=22:00
+ * tariff.standard.night.end=06:00
+ * tariff.standard.weekend.hourly=4.00
+ * tariff.standard.weekend.days=FRIDAY,SATURDAY
+ * tariff.standard.daily.cap=40.00
+ *
+ * Amounts are in NIS. Only the hourly rate is required. Vehicles of a class without its own
+ * tariff are charged with the tariff of the default class (core.Vehicle.DEFAULT_CLASS).
+ */
+public final class TariffTable {
+    /** Vehicle class whose tariff applies to classes without their own tariff. */
+    public static final String DEFAULT_CLASS = Vehicle.DEFAULT_CLASS;
+
+    private static final String PREFIX = "tariff.";
+
+    private final Map<String, Tariff> tariffs;
+    private final Tariff defaultTariff;
+
+    private TariffTable(Map<String, Tariff> tariffs) {
+        this.tariffs = Map.copyOf(tariffs);
+        this.defaultTariff = tariffs.getOrDefault(DEFAULT_CLASS, Tariff.hourly(FeeCalculator.HOURLY_RATE_CENTS));
+    }
+
+    /**
+     * Returns the built-in table: 5 NIS per started hour for every vehicle class.
+     *
+     * @return services.TariffTable with the standard tariff only
+     */
+    public static TariffTable standard() {
+        return new TariffTable(Map.of(DEFAULT_CLASS, Tariff.hourly(FeeCalculator.HOURLY_RATE_CENTS)));
+    }
+
+    /**
+     * Reads and compiles a tariff file.
+     *
+     * @param file Path of the properties file
+     * @return services.TariffTable compiled from the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains an invalid or unknown setting
+     */
+    public static TariffTable load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return parse(properties);
+    }
+
+    /**
+     * Compiles tariffs from properties in the tariff file format.
+     *
+     * @param properties The tariff settings
+     * @return services.TariffTable compiled from the settings
+     * @throws IllegalArgumentException if a setting is invalid or unknown
+     */
+    public static TariffTable parse(Properties properties) {
+        Map<String, Map<String, String>> settingsByClass = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            int dot = key.indexOf('.', PREFIX.length());
+            if (!key.startsWith(PREFIX) || dot < 0) {
+                throw new IllegalArgumentException("Unknown tariff setting: " + key);
+            }
+            settingsByClass.computeIfAbsent(key.substring(PREFIX.length(), dot), c -> new HashMap<>())
+                    .put(key.substring(dot + 1), properties.getProperty(key).trim());
+        }
+
+        Map<String, Tariff> tariffs = new HashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : settingsByClass.entrySet()) {
+            tariffs.put(entry.getKey(), compile(entry.getKey(), new HashMap<>(entry.getValue())));
+        }
+        return new TariffTable(tariffs);
+    }
+
+    private static Tariff compile(String vehicleClass, Map<String, String> settings) {
+        try {
+            String hourly = settings.remove("hourly");
+            if (hourly == null) {
+                throw new IllegalArgumentException("missing hourly rate");
+            }
+            String grace = settings.remove("grace.minutes");
+            Tariff tariff = new Tariff(
+                    grace == null ? 0 : Long.parseLong(grace),
+                    cents(settings.remove("first.hour")),
+                    cents(hourly),
+                    cents(settings.remove("night.hourly")),
+                    time(settings.remove("night.start")),
+                    time(settings.remove("night.end")),
+                    cents(settings.remove("weekend.hourly")),
+                    days(settings.remove("weekend.days")),
+                    cents(settings.remove("daily.cap")));
+            if (!settings.isEmpty()) {
+                throw new IllegalArgumentException("unknown settings " + settings.keySet());
+            }
+            return tariff;
+        } catch (IllegalArgumentException | ArithmeticException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid tariff for '" + vehicleClass + "': " + e.getMessage(), e);
+        }
+    }
+
+    private static long cents(String amount) {
+        return amount == null ? Tariff.NONE : new BigDecimal(amount).movePointRight(2).longValueExact();
+    }
+
+    private static LocalTime time(String text) {
+        return text == null ? null : LocalTime.parse(text);
+    }
+
+    private static Set<DayOfWeek> days(String text) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        if (text != null) {
+            for (String day : text.split(",")) {
+                days.add(DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Returns the tariff of a vehicle class, or the default tariff if the class has none.
+     *
+     * @param vehicleClass The vehicle class, may be null
+     * @return services.Tariff to charge vehicles of that class with
+     */
+    public Tariff getTariff(String vehicleClass) {
+        Tariff tariff = vehicleClass == null ? null : tariffs.get(vehicleClass);
+        return tariff != null ? tariff : defaultTariff;
+    }
+
+    /**
+     * Returns the vehicle classes that have their own tariff.
+     *
+     * @return Set<String> of vehicle class names
+     */
+    public Set<String> getVehicleClasses() {
+        return tariffs.keySet();
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package services;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.Date;
 
 /**
@@ -66,6 +67,21 @@ public class TimeUtil {
         return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
     }
 
+    /**
+     * Converts a LocalDateTime to a minute number on a continuous local time line
+     * (minutes since 01-01-1970 00:00 local time). Used as a cheap primitive key for
+     * per-minute buckets in statistics and time series.
+     *
+     * @param ldt The LocalDateTime to convert
+     * @return long number of whole minutes since the local epoch
+     *
+     * Usage Example:
+     * long minute = services.TimeUtil.toEpochMinute(LocalDateTime.now());
+     */
+    public static long toEpochMinute(LocalDateTime ldt) {
+        return Math.floorDiv(ldt.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
     /**
      * Formats a LocalDateTime object to a standard string representation
      * suitable for display in reports and user interfaces.
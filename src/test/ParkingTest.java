@@ -1,17 +1,72 @@
 package test;
 
 import core.ParkingLotManager;
+import core.LotRegistry;
+import core.OwnerTable;
 import core.ParkingSlot;
+import core.PlateCode;
+import core.PlateFormat;
+import core.PlateFormats;
+import core.SessionArchive;
+import core.SlotAllocator;
+import core.SlotAttributes;
+import core.SlotRequest;
 import core.Vehicle;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import observer.AsyncObserverDispatcher;
+import observer.BackpressurePolicy;
+import observer.DataReplication;
+import observer.ParkingEvent;
+import observer.ParkingLog;
+import observer.ParkingReplica;
 import org.junit.jupiter.api.Test;
 import services.FeeCalculator;
+import services.HistoryJournal;
+import services.LiveStatistics;
 import services.ParkingHistory;
 import services.ParkingStatistics;
+import services.ParkingTimeSeries;
+import services.Report;
+import services.ReportWriter;
+import services.Tariff;
+import services.TariffTable;
 import services.TimeUtil;
+import server.GateClient;
+import server.GateServer;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
 import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -68,6 +123,137 @@ public class ParkingTest {
         assertEquals(BigDecimal.valueOf(10.0), fee);
     }
 
+    /**
+     * Tests that the agorot based calculation returns exactly the same BigDecimal (value and
+     * scale) as the original Duration and double calculation, including sub-second times,
+     * negative stays and amounts large enough for scientific notation.
+     */
+    @Test
+    void calculateFee_ShouldMatchOriginalCalculation() {
+        LocalDateTime entry = LocalDateTime.of(2024, 3, 31, 1, 59, 59, 999_999_999);
+        long[] offsetsSeconds = {0, 1, 59, 60, 61, 3599, 3600, 3601, 7200, 86_399, -1, -61, -3600, -7201,
+                2_000_000L * 3600, 2_000_001L * 3600 + 1, -2_000_001L * 3600};
+        int[] nanos = {0, 1, 999_999_999};
+        for (long offset : offsetsSeconds) {
+            for (int nano : nanos) {
+                Vehicle v = new Vehicle("PAR1234", "Test");
+                v.setEntryTime(entry);
+                v.setExitTime(entry.plusSeconds(offset).withNano(nano));
+
+                long minutes = java.time.Duration.between(v.getEntryTime(), v.getExitTime()).toMinutes();
+                BigDecimal expected = BigDecimal.valueOf(((minutes + 59) / 60) * 5.0);
+                BigDecimal actual = FeeCalculator.calculateFee(v);
+                assertEquals(expected, actual, "offset " + offset + "s, nano " + nano);
+                assertEquals(expected.toString(), actual.toString());
+            }
+        }
+    }
+
+    /**
+     * Tests that computing a fee in agorot does not allocate any objects. A few bytes may be
+     * allocated by the measurement itself, so the test allows less than one byte per call.
+     */
+    @Test
+    void calculateFeeCents_ShouldNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        Vehicle v = new Vehicle("ALLOC12", "Test");
+        v.setEntryTime(LocalDateTime.of(2024, 1, 1, 8, 0));
+        v.setExitTime(LocalDateTime.of(2024, 1, 1, 10, 30));
+
+        long sum = 0;
+        for (int i = 0; i < 20_000; i++) { // Warm up
+            sum += FeeCalculator.calculateFeeCents(v);
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100_000; i++) {
+            sum += FeeCalculator.calculateFeeCents(v);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertEquals(120_000L * 1500, sum);
+        assertTrue(allocated < 100_000, "allocated " + allocated + " bytes for 100000 fees");
+    }
+
+    // === Tests for services.Tariff ===
+
+    /**
+     * Tests that the compiled tariff charges exactly what pricing the stay hour by hour
+     * charges, for stays of up to five weeks starting at many different times.
+     */
+    @Test
+    void tariff_ShouldMatchHourByHourPricing() {
+        java.util.Properties settings = new java.util.Properties();
+        settings.setProperty("tariff.standard.hourly", "6.00");
+        settings.setProperty("tariff.standard.first.hour", "9.50");
+        settings.setProperty("tariff.standard.grace.minutes", "10");
+        settings.setProperty("tariff.standard.night.hourly", "2.00");
+        settings.setProperty("tariff.standard.night.start", "22:00");
+        settings.setProperty("tariff.standard.night.end", "06:30");
+        settings.setProperty("tariff.standard.weekend.hourly", "4.00");
+        settings.setProperty("tariff.standard.weekend.days", "friday, saturday");
+        settings.setProperty("tariff.standard.daily.cap", "70.00");
+        Tariff tariff = TariffTable.parse(settings).getTariff("any class");
+
+        java.util.Random random = new java.util.Random(12);
+        LocalDateTime base = LocalDateTime.of(2024, 6, 3, 0, 0);
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime entry = base.plusMinutes(random.nextInt(7 * 1440)).withSecond(random.nextInt(60));
+            LocalDateTime exit = entry.plusMinutes(random.nextInt(i % 10 == 0 ? 35 * 1440 : 3 * 1440));
+
+            long minutes = java.time.Duration.between(entry, exit).toMinutes();
+            long expected = 0;
+            if (minutes > 10) {
+                java.util.Map<LocalDate, Long> perDay = new java.util.HashMap<>();
+                LocalDateTime hour = entry.withSecond(0);
+                for (long h = 0; h < (minutes + 59) / 60; h++, hour = hour.plusHours(1)) {
+                    boolean weekend = hour.getDayOfWeek() == java.time.DayOfWeek.FRIDAY
+                            || hour.getDayOfWeek() == java.time.DayOfWeek.SATURDAY;
+                    int minuteOfDay = hour.getHour() * 60 + hour.getMinute();
+                    boolean night = minuteOfDay >= 22 * 60 || minuteOfDay < 6 * 60 + 30;
+                    long rate = h == 0 ? 950 : weekend ? 400 : night ? 200 : 600;
+                    perDay.merge(hour.toLocalDate(), rate, Long::sum);
+                }
+                for (long day : perDay.values()) {
+                    expected += Math.min(day, 7000);
+                }
+            }
+            assertEquals(expected, tariff.calculateFeeCents(entry, exit), "entry " + entry + ", exit " + exit);
+        }
+    }
+
+    /**
+     * Tests that a tariff file is applied per vehicle class, and that an invalid file is
+     * rejected while the tariffs in use stay unchanged.
+     */
+    @Test
+    void feeCalculator_ShouldLoadTariffsPerVehicleClass() throws Exception {
+        Path file = Files.createTempFile("tariffs", ".properties");
+        try {
+            Files.writeString(file, "tariff.standard.hourly=5.00\ntariff.motorcycle.hourly=2.50\n");
+            FeeCalculator.loadTariffs(file);
+
+            Vehicle car = new Vehicle("TAR1111", "Test");
+            Vehicle bike = new Vehicle("TAR2222", "Test");
+            bike.setVehicleClass("motorcycle");
+            for (Vehicle v : new Vehicle[] {car, bike}) {
+                v.setEntryTime(LocalDateTime.of(2024, 1, 1, 8, 0));
+                v.setExitTime(LocalDateTime.of(2024, 1, 1, 10, 15));
+            }
+            assertEquals(1500, FeeCalculator.calculateFeeCents(car));
+            assertEquals(new BigDecimal("7.5"), FeeCalculator.calculateFee(bike));
+
+            TariffTable inUse = FeeCalculator.getTariffs();
+            Files.writeString(file, "tariff.motorcycle.hourly=cheap\n");
+            assertThrows(IllegalArgumentException.class, () -> FeeCalculator.loadTariffs(file));
+            assertSame(inUse, FeeCalculator.getTariffs());
+        } finally {
+            FeeCalculator.setTariffs(TariffTable.standard());
+            Files.deleteIfExists(file);
+        }
+    }
+
     // === Tests for core.Vehicle ===
 
     /**
@@ -99,6 +285,80 @@ public class ParkingTest {
         assertTrue(v.isAvailable());
     }
 
+    /**
+     * Tests that the constructor accepts and rejects exactly the same plates and owner names
+     * as the original regular expressions, on random strings near the valid formats.
+     */
+    @Test
+    void vehicle_ShouldValidateLikeOriginalRegex() {
+        String alphabet = "aZ09 _-\t\nÄ٣";
+        java.util.Random random = new java.util.Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(11);
+            for (int j = 0; j < length; j++) {
+                text.append(random.nextInt(3) == 0 ? alphabet.charAt(random.nextInt(alphabet.length()))
+                        : (char) ('A' + random.nextInt(26)));
+            }
+            String value = text.toString();
+            boolean plateValid = value.matches("^[A-Za-z0-9]{5,8}$");
+            boolean ownerValid = value.matches("^[A-Za-z\\s]+$");
+
+            boolean created;
+            try {
+                new Vehicle(value, "Owner");
+                created = true;
+            } catch (IllegalArgumentException e) {
+                created = false;
+            }
+            assertEquals(plateValid, created, "plate '" + value + "'");
+            try {
+                new Vehicle("ABC123", value);
+                created = true;
+            } catch (IllegalArgumentException e) {
+                created = false;
+            }
+            assertEquals(ownerValid, created, "owner '" + value + "'");
+        }
+    }
+
+    /**
+     * Tests that plates are packed into distinct codes that decode to the same plate, that
+     * plates which do not fit have no code, and that equal owner names share one instance.
+     */
+    @Test
+    void plateCode_ShouldRoundTripAndInternOwners() {
+        Set<Long> codes = new HashSet<>();
+        for (String plate : new String[] {"1", "0", "00", "A", "a", "ABC12", "abc12", "zzzzzzzz", "99999999", "Z0"}) {
+            long code = PlateCode.encode(plate);
+            assertTrue(code > 0);
+            assertTrue(codes.add(code), plate);
+            assertEquals(plate, PlateCode.decode(code));
+        }
+        assertEquals(PlateCode.NONE, PlateCode.encode("123456789"));
+        assertEquals(PlateCode.NONE, PlateCode.encode("AB-123"));
+        assertEquals(PlateCode.NONE, PlateCode.encode(""));
+
+        Vehicle first = new Vehicle("CODE123", new String("Shared Owner"));
+        Vehicle second = new Vehicle("CODE123", new String("Shared Owner"));
+        assertSame(first.getOwner(), second.getOwner());
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals("Shared Owner", OwnerTable.nameOf(OwnerTable.idOf("Shared Owner")));
+    }
+
+    /**
+     * Tests that plates are validated with the format of the given country.
+     */
+    @Test
+    void vehicle_ShouldValidatePlateByCountry() {
+        assertEquals("12345678", new Vehicle("12345678", "Dana", PlateFormats.forCountry("il")).getLicensePlate());
+        assertThrows(IllegalArgumentException.class, () -> new Vehicle("ABC1234", "Dana", PlateFormats.forCountry("IL")));
+        assertNotNull(new Vehicle("AB12CDE", "Dana", PlateFormats.forCountry("GB")));
+        assertThrows(IllegalArgumentException.class, () -> new Vehicle("AB12CD", "Dana", PlateFormats.forCountry("GB")));
+        assertThrows(IllegalArgumentException.class, () -> PlateFormats.forCountry("XX"));
+    }
+
     // === Tests for core.ParkingSlot ===
 
     /**
@@ -173,6 +433,876 @@ public class ParkingTest {
         assertTrue(vehicles.contains(v));
     }
 
+    // === Tests for core.SlotAllocator ===
+
+    /**
+     * Tests that the allocator always hands out the lowest numbered free slot,
+     * including after slots in the middle of the lot are released.
+     */
+    @Test
+    void slotAllocator_ShouldReturnLowestFreeSlot() {
+        SlotAllocator allocator = new SlotAllocator(200);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, allocator.lowestFree());
+            allocator.markOccupied(i);
+        }
+        assertEquals(-1, allocator.lowestFree());
+
+        allocator.markFree(150);
+        allocator.markFree(70);
+        assertEquals(70, allocator.lowestFree());
+        assertEquals(2, allocator.getFreeCount());
+    }
+
+    /**
+     * Tests that assigning and removing vehicles on slots of a lot keeps the
+     * allocator free-slot count in sync with the slot state.
+     */
+    @Test
+    void parkingLotManager_ShouldTrackAvailableSlots() {
+        ParkingLotManager manager = ParkingLotManager.getInstance();
+        int before = manager.getAvailableSlots();
+        Vehicle v = new Vehicle("ALLOC12", "TestUser");
+
+        assertTrue(manager.parkVehicle(v));
+        assertEquals(before - 1, manager.getAvailableSlots());
+
+        for (ParkingSlot slot : manager.getSlots()) {
+            if (v.equals(slot.getCurrentVehicle())) {
+                slot.removeVehicle();
+            }
+        }
+        assertEquals(before, manager.getAvailableSlots());
+    }
+
+    /**
+     * Tests that the license plate index follows parking and slot removal,
+     * and that a plate already in the lot cannot be parked twice.
+     */
+    @Test
+    void parkingLotManager_ShouldIndexParkedPlates() {
+        ParkingLotManager manager = ParkingLotManager.getInstance();
+        Vehicle v = new Vehicle("INDEX12", "TestUser");
+
+        assertTrue(manager.parkVehicle(v));
+        ParkingSlot slot = manager.findSlotByPlate("INDEX12");
+        assertNotNull(slot);
+        assertSame(v, slot.getCurrentVehicle());
+        assertFalse(manager.parkVehicle(new Vehicle("INDEX12", "OtherUser")));
+
+        slot.removeVehicle();
+        assertNull(manager.findSlotByPlate("INDEX12"));
+    }
+
+    /**
+     * Tests that occupancy counts and the list of parked vehicles, which are read from the
+     * lot's slot arrays, agree with the individual slots across several bitset words.
+     */
+    @Test
+    void parkingLotManager_ShouldCountOccupancyFromSlotStore() {
+        ParkingLotManager manager = ParkingLotManager.createLot(200);
+        for (int i = 0; i < 150; i++) {
+            assertTrue(manager.parkVehicle(new Vehicle("SOA" + (1000 + i), "TestUser")));
+        }
+        for (int i = 0; i < 150; i += 3) {
+            manager.findSlotByPlate("SOA" + (1000 + i)).removeVehicle();
+        }
+
+        List<Vehicle> expected = new ArrayList<>();
+        for (ParkingSlot slot : manager.getSlots()) {
+            if (slot.isOccupied()) {
+                expected.add(slot.getCurrentVehicle());
+            }
+        }
+        assertEquals(100, manager.getOccupiedSlots());
+        assertEquals(expected, manager.getVehicles());
+        assertEquals(manager.getTotalSlots() - manager.getAvailableSlots(), manager.getOccupiedSlots());
+        assertFalse(manager.getSlots().get(0).isOccupied());
+        assertTrue(manager.getSlots().get(149).isOccupied());
+    }
+
+    /**
+     * Stress test for concurrent gates. Many threads check vehicles in (more vehicles than
+     * slots) and then check them out again, with every plate checked out by two gates at once.
+     * Validates that no slot is given to two vehicles, no plate is parked twice,
+     * and every parked vehicle leaves exactly once.
+     */
+    @Test
+    void parkingLotManager_ShouldHandleConcurrentGates() throws Exception {
+        int capacity = 500;
+        int gates = 16;
+        int vehiclesPerGate = 50;
+        ParkingLotManager manager = ParkingLotManager.createLot(capacity, gates);
+        ExecutorService pool = Executors.newFixedThreadPool(gates);
+        AtomicInteger parked = new AtomicInteger();
+        AtomicInteger exited = new AtomicInteger();
+
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int g = 0; g < gates; g++) {
+                int gate = g;
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < vehiclesPerGate; i++) {
+                        Vehicle v = new Vehicle(String.format("S%02d%03d", gate, i), "Gate");
+                        if (manager.checkInVehicle(v, gate)) {
+                            parked.incrementAndGet();
+                        }
+                        // A second gate trying the same plate must be rejected
+                        manager.checkInVehicle(new Vehicle(v.getLicensePlate(), "Gate"), gate + 1);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+
+            assertEquals(capacity, parked.get());
+            assertEquals(0, manager.getAvailableSlots());
+            Set<String> plates = new HashSet<>();
+            for (ParkingSlot slot : manager.getSlots()) {
+                assertTrue(slot.isOccupied());
+                assertTrue(plates.add(slot.getCurrentVehicle().getLicensePlate()), "Plate parked twice");
+                assertSame(slot, manager.findSlotByPlate(slot.getCurrentVehicle().getLicensePlate()));
+            }
+
+            // Every plate is checked out by two gates at the same time
+            CountDownLatch exitStart = new CountDownLatch(1);
+            tasks.clear();
+            for (int g = 0; g < gates; g++) {
+                int gate = g;
+                tasks.add(pool.submit(() -> {
+                    exitStart.await();
+                    for (int other = 0; other < 2; other++) {
+                        int owner = (gate + other) % gates;
+                        for (int i = 0; i < vehiclesPerGate; i++) {
+                            if (manager.checkOutVehicle(String.format("S%02d%03d", owner, i))) {
+                                exited.incrementAndGet();
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            exitStart.countDown();
+            for (Future<?> task : tasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(parked.get(), exited.get());
+        assertEquals(capacity, manager.getAvailableSlots());
+        assertTrue(manager.getVehicles().isEmpty());
+    }
+
+    /**
+     * Tests that vehicles with a slot request are parked in the matching slot with the least
+     * waste nearest to their gate, and that plain check-ins keep taking the lowest free slot.
+     */
+    @Test
+    void parkingLotManager_ShouldAllocateBySlotTypeNearestToGate() {
+        ParkingLotManager manager = ParkingLotManager.createLot(8, 2);
+        SlotAttributes.Size standard = SlotAttributes.Size.STANDARD;
+        manager.configureSlots(List.of(
+                new SlotAttributes(0, 0, 10, standard, false, false),
+                new SlotAttributes(0, 0, 20, standard, false, false),
+                new SlotAttributes(0, 0, 30, standard, false, false),
+                new SlotAttributes(0, 1, 40, standard, false, false),
+                new SlotAttributes(0, 0, 5, standard, true, false),
+                new SlotAttributes(0, 1, 50, standard, false, true),
+                new SlotAttributes(0, 0, 15, SlotAttributes.Size.LARGE, false, false),
+                new SlotAttributes(1, 1, 0, SlotAttributes.Size.COMPACT, false, false)), 0, 45);
+        SlotRequest car = new SlotRequest(standard, false, false);
+
+        assertTrue(manager.checkInVehicle(new Vehicle("TYPE001", "Ada"), car, 1));
+        assertEquals(4, manager.findSlotByPlate("TYPE001").getId());
+        assertTrue(manager.checkInVehicle(new Vehicle("TYPE002", "Ben"), car, 0));
+        assertEquals(1, manager.findSlotByPlate("TYPE002").getId()); // Charger slot 5 is nearer but kept free
+        assertTrue(manager.checkInVehicle(new Vehicle("TYPE003", "Cy"), new SlotRequest(standard, true, false), 1));
+        assertEquals(5, manager.findSlotByPlate("TYPE003").getId());
+        assertTrue(manager.checkInVehicle(new Vehicle("TYPE004", "Di"), SlotRequest.ANY, 0));
+        assertEquals(8, manager.findSlotByPlate("TYPE004").getId());
+        SlotRequest van = new SlotRequest(SlotAttributes.Size.LARGE, false, false);
+        assertTrue(manager.checkInVehicle(new Vehicle("TYPE005", "Ed"), van, 0));
+        assertEquals(7, manager.findSlotByPlate("TYPE005").getId());
+        assertFalse(manager.checkInVehicle(new Vehicle("TYPE006", "Fay"), van, 0));
+        assertTrue(manager.checkInVehicle(new Vehicle("TYPE007", "Gus"), new SlotRequest(standard, false, true), 0));
+        assertEquals(6, manager.findSlotByPlate("TYPE007").getId());
+        assertTrue(manager.findSlotByPlate("TYPE007").getAttributes().hasDisabledAccess());
+
+        assertTrue(manager.checkOutVehicle("TYPE001"));
+        assertTrue(manager.checkInVehicle(new Vehicle("TYPE008", "Hal"), car, 1));
+        assertEquals(4, manager.findSlotByPlate("TYPE008").getId());
+        assertTrue(manager.checkInVehicle(new Vehicle("TYPE009", "Ivy")));
+        assertEquals(2, manager.findSlotByPlate("TYPE009").getId());
+        assertTrue(manager.checkInVehicle(new Vehicle("TYPE010", "Jo"), car, 1));
+        assertEquals(3, manager.findSlotByPlate("TYPE010").getId()); // Slot 2 was taken by the plain check-in
+        assertThrows(IllegalArgumentException.class, () -> manager.checkInVehicle(new Vehicle("TYPE011", "Kim"), car, 2));
+    }
+
+    /**
+     * Tests that the free-slot queues of a gate that never claims stay bounded while another
+     * gate keeps checking vehicles in and out (stale entries must be dropped per gate).
+     */
+    @Test
+    void parkingLotManager_ShouldKeepQuietGateQueuesBounded() throws Exception {
+        ParkingLotManager manager = ParkingLotManager.createLot(4, 1);
+        SlotAttributes.Size standard = SlotAttributes.Size.STANDARD;
+        List<SlotAttributes> attributes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            attributes.add(new SlotAttributes(0, 0, i * 10, standard, false, false));
+        }
+        manager.configureSlots(attributes, 0, 100);
+        SlotRequest car = new SlotRequest(standard, false, false);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(manager.checkInVehicle(new Vehicle("QUIET01", "Quiet Gate"), car, 0));
+                assertTrue(manager.checkOutVehicle("QUIET01"));
+            }
+        } finally {
+            System.setOut(console);
+        }
+
+        java.lang.reflect.Field field = ParkingLotManager.class.getDeclaredField("typedAllocator");
+        field.setAccessible(true);
+        Object typed = field.get(manager);
+        java.lang.reflect.Method queued = typed.getClass().getDeclaredMethod("getQueuedEntries", int.class);
+        queued.setAccessible(true);
+        assertTrue((int) queued.invoke(typed, 0) <= 2 * 4 + 1);
+        assertTrue((int) queued.invoke(typed, 1) <= 2 * 4 + 1);
+    }
+
+    /**
+     * Tests that gates checking typed requests in and out concurrently never share a slot and
+     * leave every slot free and claimable again, now that each gate queue has its own lock.
+     */
+    @Test
+    void parkingLotManager_ShouldServeTypedRequestsFromConcurrentGates() throws Exception {
+        ParkingLotManager manager = ParkingLotManager.createLot(8, 2);
+        SlotAttributes.Size standard = SlotAttributes.Size.STANDARD;
+        List<SlotAttributes> attributes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            attributes.add(new SlotAttributes(i / 4, 0, i % 4 * 10, standard, i % 2 == 0, false));
+        }
+        manager.configureSlots(attributes, 0, 30);
+        Set<Integer> taken = ConcurrentHashMap.newKeySet();
+        AtomicInteger conflicts = new AtomicInteger();
+        Thread[] gates = new Thread[4];
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int g = 0; g < gates.length; g++) {
+                int gate = g;
+                gates[g] = new Thread(() -> {
+                    SlotRequest request = new SlotRequest(standard, gate % 2 == 0, false);
+                    for (int i = 0; i < 2_000; i++) {
+                        String plate = "TYPE" + gate + (i % 2);
+                        if (manager.checkInVehicle(new Vehicle(plate, "Typed"), request, gate % 2)) {
+                            int slot = manager.findSlotByPlate(plate).getId();
+                            if (!taken.add(slot)) {
+                                conflicts.incrementAndGet();
+                            }
+                            taken.remove(slot);
+                            manager.checkOutVehicle(plate);
+                        }
+                    }
+                });
+                gates[g].start();
+            }
+            for (Thread gate : gates) {
+                gate.join(60_000);
+            }
+        } finally {
+            System.setOut(console);
+        }
+
+        assertEquals(0, conflicts.get());
+        assertEquals(8, manager.getAvailableSlots());
+        SlotRequest ev = new SlotRequest(standard, true, false);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(manager.checkInVehicle(new Vehicle("EVAGAIN" + i, "Typed"), ev, 0));
+        }
+        assertFalse(manager.checkInVehicle(new Vehicle("EVAGAIN9", "Typed"), ev, 1));
+    }
+
+    // === Tests for core.LotRegistry ===
+
+    /**
+     * Tests that a registry of independent lots answers plate lookups and occupancy totals
+     * over all lots, and that every lot charges with its own tariffs.
+     */
+    @Test
+    void lotRegistry_ShouldFanOutQueriesAcrossLots() {
+        LotRegistry registry = new LotRegistry();
+        java.util.Properties cheap = new java.util.Properties();
+        cheap.setProperty("tariff.standard.hourly", "1.00");
+        for (int i = 0; i < 8; i++) {
+            registry.createLot("lot-" + i, 10 + i, 2, i == 3 ? TariffTable.parse(cheap) : null);
+        }
+        assertThrows(IllegalArgumentException.class, () -> registry.createLot("lot-0", 5, 1, null));
+
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j <= i; j++) {
+                assertTrue(registry.getLot("lot-" + i).checkInVehicle(new Vehicle("REG" + i + "0" + j, "Fleet")));
+            }
+        }
+        assertEquals(36, registry.getTotalOccupiedSlots());
+        assertEquals(108, registry.getTotalSlots());
+        assertEquals(72, registry.getTotalAvailableSlots());
+        assertEquals(36, registry.getParkedVehicles().size());
+
+        LotRegistry.Location location = registry.findPlate("REG503");
+        assertEquals("lot-5", location.getLotId());
+        assertEquals(4, location.getSlot().getId());
+        assertNull(registry.findPlate("REG099"));
+
+        for (String plate : new String[] {"REG300", "REG400"}) { // Parked for 90 minutes
+            Vehicle v = registry.findPlate(plate).getSlot().getCurrentVehicle();
+            v.setEntryTime(v.getEntryTime().minusMinutes(90));
+        }
+        assertTrue(registry.getLot("lot-3").checkOutVehicle("REG300"));
+        assertTrue(registry.getLot("lot-4").checkOutVehicle("REG400"));
+        assertArrayEquals(new long[] {200}, registry.getLot("lot-3").getSessionArchive().getFeesCents());
+        assertArrayEquals(new long[] {1000}, registry.getLot("lot-4").getSessionArchive().getFeesCents());
+        assertEquals(34, registry.getTotalOccupiedSlots());
+    }
+
+    /**
+     * Tests that a snapshot written while gates keep working restores parked vehicles,
+     * statistics, archived sessions and the event numbering into a new lot, and that
+     * damaged snapshots are rejected.
+     */
+    @Test
+    void parkingLotManager_ShouldRestartFromSnapshot() throws Exception {
+        ParkingLotManager lot = ParkingLotManager.createLot(30, 3);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(lot.checkInVehicle(new Vehicle("SNAP" + (10 + i), "Snap Owner")));
+        }
+        for (String plate : new String[] {"SNAP10", "SNAP11"}) {
+            Vehicle v = lot.findSlotByPlate(plate).getCurrentVehicle();
+            v.setEntryTime(v.getEntryTime().minusMinutes(125));
+            assertTrue(lot.checkOutVehicle(plate));
+        }
+        Path file = Files.createTempFile("lot", ".snapshot");
+        try {
+            java.util.concurrent.CompletableFuture<Path> saving = lot.saveSnapshotInBackground(file);
+            assertTrue(lot.checkInVehicle(new Vehicle("SNAP90", "Late")));
+            assertEquals(file, saving.get(10, TimeUnit.SECONDS));
+            lot.saveSnapshot(file);
+
+            ParkingLotManager restored = ParkingLotManager.loadSnapshot(file);
+            assertEquals(30, restored.getTotalSlots());
+            assertEquals(lot.getOccupiedSlots(), restored.getOccupiedSlots());
+            assertEquals(lot.getAvailableSlots(), restored.getAvailableSlots());
+            for (ParkingSlot slot : lot.getSlots()) {
+                Vehicle expected = slot.getCurrentVehicle();
+                Vehicle actual = restored.getSlots().get(slot.getId() - 1).getCurrentVehicle();
+                assertEquals(expected == null ? null : expected.getLicensePlate(),
+                        actual == null ? null : actual.getLicensePlate());
+                assertEquals(expected == null ? null : expected.getEntryTime(),
+                        actual == null ? null : actual.getEntryTime());
+            }
+            assertEquals(6, restored.findSlotByPlate("SNAP15").getId());
+            assertEquals(lot.getStatistics().getTotalArrivals(), restored.getStatistics().getTotalArrivals());
+            assertEquals(lot.getStatistics().getAverageStayTime(), restored.getStatistics().getAverageStayTime());
+            assertEquals(lot.getStatistics().getDailyRevenue(LocalDateTime.now()),
+                    restored.getStatistics().getDailyRevenue(LocalDateTime.now()));
+            assertArrayEquals(lot.getSessionArchive().getFeesCents(), restored.getSessionArchive().getFeesCents());
+            assertEquals("SNAP11", restored.getAllVehicles().get(1).getLicensePlate());
+            assertEquals(lot.getAllVehicles().get(1).getExitTime(), restored.getAllVehicles().get(1).getExitTime());
+            assertEquals(lot.getTimeSeries().getCurrentOccupancy(), restored.getTimeSeries().getCurrentOccupancy());
+            assertArrayEquals(lot.getTimeSeries().getSeries(ParkingTimeSeries.Metric.ARRIVALS,
+                            ParkingTimeSeries.Window.LAST_24_HOURS, LocalDateTime.now()),
+                    restored.getTimeSeries().getSeries(ParkingTimeSeries.Metric.ARRIVALS,
+                            ParkingTimeSeries.Window.LAST_24_HOURS, LocalDateTime.now()));
+
+            List<ParkingEvent> events = new ArrayList<>();
+            restored.addEventListener(events::add);
+            assertTrue(restored.checkOutVehicle("SNAP90"));
+            assertEquals(12, events.get(0).getSequence());
+
+            try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+                raw.seek(60);
+                raw.write(raw.read() ^ 1);
+            }
+            assertThrows(java.io.IOException.class, () -> ParkingLotManager.loadSnapshot(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Tests that snapshots taken while gates check vehicles in and out are consistent:
+     * every vehicle that arrived is either parked or archived, never both or neither.
+     */
+    @Test
+    void parkingLotManager_ShouldSnapshotOneConsistentEpoch() throws Exception {
+        ParkingLotManager lot = ParkingLotManager.createLot(64, 4);
+        java.util.concurrent.atomic.AtomicBoolean running = new java.util.concurrent.atomic.AtomicBoolean(true);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        List<Thread> gates = new ArrayList<>();
+        for (int g = 0; g < 4; g++) {
+            int gate = g;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; running.get(); i++) {
+                    String plate = String.format("E%d%06d", gate, i);
+                    lot.checkInVehicle(new Vehicle(plate, "Epoch"));
+                    lot.checkOutVehicle(plate);
+                }
+            });
+            gates.add(thread);
+            thread.start();
+        }
+        Path file = Files.createTempFile("lot", ".snapshot");
+        try {
+            for (int s = 0; s < 20; s++) {
+                lot.saveSnapshot(file);
+                ParkingLotManager restored = ParkingLotManager.loadSnapshot(file);
+                assertEquals(restored.getStatistics().getTotalArrivals(),
+                        restored.getOccupiedSlots() + restored.getSessionArchive().size());
+            }
+        } finally {
+            running.set(false);
+            for (Thread thread : gates) {
+                thread.join();
+            }
+            System.setOut(console);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // === Tests for core.SessionArchive ===
+
+    /**
+     * Tests that archived sessions are read back in order, with the same plates, owners,
+     * times (to the nanosecond) and fees, whether their segment is still in memory or was
+     * spilled to disk, also when another lot spills into the same directory.
+     */
+    @Test
+    void sessionArchive_ShouldReadAcrossMemoryAndDisk() throws Exception {
+        Path directory = Files.createTempDirectory("sessions");
+        try {
+            SessionArchive archive = new SessionArchive(2);
+            archive.enableSpill(directory, "lot-1", 1);
+            SessionArchive neighbour = new SessionArchive(2);
+            neighbour.enableSpill(directory, "lot-2", 0);
+
+            LocalDateTime start = LocalDateTime.of(2024, 5, 1, 8, 0, 0, 250_000_123);
+            for (int i = 0; i < 7; i++) {
+                Vehicle v = new Vehicle("ARC" + (i % 3) + "00", i % 2 == 0 ? "Dana" : "Eli");
+                v.setEntryTime(start.plusMinutes(i));
+                v.setExitTime(start.plusHours(i + 1).plusNanos(999_999));
+                archive.add(v, (i + 1) * 500L);
+                Vehicle other = new Vehicle("NBR" + i + "00", "Gil");
+                other.setEntryTime(start);
+                other.setExitTime(start.plusHours(1));
+                neighbour.add(other, 1);
+            }
+
+            assertEquals(7, archive.size());
+            assertEquals(2, archive.getSpilledSegments()); // 3 sealed segments, 1 kept in memory
+            int i = 0;
+            for (Vehicle v : archive) {
+                assertEquals("ARC" + (i % 3) + "00", v.getLicensePlate());
+                assertEquals(i % 2 == 0 ? "Dana" : "Eli", v.getOwner());
+                assertEquals(start.plusMinutes(i), v.getEntryTime());
+                assertEquals(start.plusHours(i + 1).plusNanos(999_999), v.getExitTime());
+                i++;
+            }
+            assertEquals(7, i);
+            assertArrayEquals(new long[] {500, 1000, 1500, 2000, 2500, 3000, 3500}, archive.getFeesCents());
+            assertEquals(3, neighbour.getSpilledSegments());
+            assertArrayEquals(new long[] {1, 1, 1, 1, 1, 1, 1}, neighbour.getFeesCents());
+        } finally {
+            try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Tests that the complete vehicle list contains exited vehicles from the archive
+     * followed by the vehicles that are still parked.
+     */
+    @Test
+    void parkingLotManager_ShouldListExitedAndParkedVehicles() {
+        ParkingLotManager manager = ParkingLotManager.createLot(3);
+        manager.checkInVehicle(new Vehicle("ALL111", "Ann"));
+        manager.checkInVehicle(new Vehicle("ALL222", "Ben"));
+        manager.checkOutVehicle("ALL111");
+
+        List<Vehicle> all = manager.getAllVehicles();
+        assertEquals(2, all.size());
+        assertEquals("ALL111", all.get(0).getLicensePlate());
+        assertNotNull(all.get(0).getExitTime());
+        assertEquals("ALL222", all.get(1).getLicensePlate());
+        assertNull(all.get(1).getExitTime());
+        assertEquals(1, manager.getSessionArchive().size());
+    }
+
+    // === Tests for observer.DataReplication ===
+
+    /**
+     * Tests that an in-process replica catches up from a snapshot, follows the deltas of
+     * check-ins, check-outs and moves, and converges with periodic snapshots in between.
+     */
+    @Test
+    void dataReplication_ShouldMirrorPrimaryOnReplica() throws Exception {
+        ParkingLotManager primary = ParkingLotManager.createLot(40, 4);
+        ParkingLotManager standby = ParkingLotManager.createLot(40, 4);
+        DataReplication replication = new DataReplication(primary, 512, 25);
+        primary.addEventListener(replication);
+        for (int i = 0; i < 5; i++) {
+            primary.checkInVehicle(new Vehicle("REPL" + (100 + i), "Before"));
+        }
+
+        java.nio.channels.Pipe pipe = java.nio.channels.Pipe.open();
+        ParkingReplica replica = new ParkingReplica(standby);
+        Thread reader = new Thread(() -> {
+            try {
+                replica.readFrom(pipe.source());
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+        reader.start();
+        replication.addReplica(pipe.sink());
+
+        for (int i = 0; i < 30; i++) {
+            primary.checkInVehicle(new Vehicle("REPL" + (200 + i), "After"));
+        }
+        primary.checkOutVehicle("REPL101");
+        primary.checkOutVehicle("REPL210");
+        assertTrue(primary.moveVehicle("REPL103", 40));
+        replication.close();
+        reader.join(10_000);
+
+        assertEquals(primary.getOccupiedSlots(), standby.getOccupiedSlots());
+        for (ParkingSlot slot : primary.getSlots()) {
+            Vehicle expected = slot.getCurrentVehicle();
+            Vehicle actual = standby.getSlots().get(slot.getId() - 1).getCurrentVehicle();
+            assertEquals(expected == null ? null : expected.getLicensePlate(),
+                    actual == null ? null : actual.getLicensePlate());
+        }
+        assertEquals(40, standby.findSlotByPlate("REPL103").getId());
+        assertEquals(primary.findSlotByPlate("REPL229").getCurrentVehicle().getEntryTime(),
+                standby.findSlotByPlate("REPL229").getCurrentVehicle().getEntryTime());
+        assertTrue(replica.getSnapshotsApplied() >= 1);
+        assertEquals(38, replica.getLastSequence());
+    }
+
+    /**
+     * Tests that a replica that would miss an event (e.g. one dropped by asynchronous
+     * notification) is resynchronized with a snapshot as soon as the gap is seen.
+     */
+    @Test
+    void dataReplication_ShouldResyncReplicaAfterSequenceGap() throws Exception {
+        ParkingLotManager primary = ParkingLotManager.createLot(10);
+        ParkingLotManager standby = ParkingLotManager.createLot(10);
+        DataReplication replication = new DataReplication(primary);
+        primary.addEventListener(event -> {
+            if (!"GAP002".equals(event.getLicensePlate())) { // This event is lost on its way
+                replication.onEvent(event);
+            }
+        });
+        java.nio.channels.Pipe pipe = java.nio.channels.Pipe.open();
+        ParkingReplica replica = new ParkingReplica(standby);
+        Thread reader = new Thread(() -> {
+            try {
+                replica.readFrom(pipe.source());
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+        reader.start();
+        replication.addReplica(pipe.sink());
+
+        primary.checkInVehicle(new Vehicle("GAP001", "Gap"));
+        primary.checkInVehicle(new Vehicle("GAP002", "Gap"));
+        primary.checkInVehicle(new Vehicle("GAP003", "Gap"));
+        replication.close();
+        reader.join(10_000);
+
+        assertEquals(1, replication.getSequenceGaps());
+        assertEquals(3, standby.getOccupiedSlots());
+        assertNotNull(standby.findSlotByPlate("GAP002"));
+        assertEquals(3, replica.getLastSequence());
+    }
+
+    /**
+     * Tests that a replica following deltas only (no snapshot after the first) has exactly
+     * the primary's slots whenever the gates pause, while in between one gate checks a plate
+     * out, another gate checks the same plate in again as soon as it is released, and a third
+     * gate checks a second plate out, in and moves it.
+     */
+    @Test
+    void dataReplication_ShouldConvergeUnderConcurrentGates() throws Exception {
+        ParkingLotManager primary = ParkingLotManager.createLot(3);
+        ParkingLotManager standby = ParkingLotManager.createLot(3);
+        DataReplication replication = new DataReplication(primary, 1 << 22, Integer.MAX_VALUE);
+        primary.addEventListener(replication);
+        AtomicLong lastSequence = new AtomicLong();
+        primary.addEventListener(event -> lastSequence.set(event.getSequence()));
+        java.nio.channels.Pipe pipe = java.nio.channels.Pipe.open();
+        ParkingReplica replica = new ParkingReplica(standby);
+        Thread reader = new Thread(() -> {
+            try {
+                replica.readFrom(pipe.source());
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+        reader.start();
+        replication.addReplica(pipe.sink());
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            primary.checkInVehicle(new Vehicle("CONV001", "Conv"));
+            for (int round = 0; round < 1_000; round++) {
+                Thread entryGate = new Thread(() -> {
+                    while (!primary.checkInVehicle(new Vehicle("CONV001", "Conv"))) {
+                        Thread.onSpinWait(); // Rejected while the plate is still parked
+                    }
+                });
+                Thread exitGate = new Thread(() -> primary.checkOutVehicle("CONV001"));
+                int target = round % 3 + 1;
+                Thread moveGate = new Thread(() -> {
+                    primary.checkOutVehicle("CONV002");
+                    primary.checkInVehicle(new Vehicle("CONV002", "Conv"));
+                    primary.moveVehicle("CONV002", target);
+                });
+                entryGate.start();
+                exitGate.start();
+                moveGate.start();
+                exitGate.join(60_000);
+                entryGate.join(60_000);
+                moveGate.join(60_000);
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (replica.getLastSequence() < lastSequence.get() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+                for (ParkingSlot slot : primary.getSlots()) {
+                    Vehicle expected = slot.getCurrentVehicle();
+                    Vehicle actual = standby.getSlots().get(slot.getId() - 1).getCurrentVehicle();
+                    assertEquals(expected == null ? null : expected.getLicensePlate(),
+                            actual == null ? null : actual.getLicensePlate(), "Slot " + slot.getId() + " in round " + round);
+                }
+            }
+        } finally {
+            System.setOut(console);
+            replication.close();
+            reader.join(10_000);
+        }
+        assertEquals(0, replication.getDroppedDeltas());
+        assertEquals(0, replication.getSequenceGaps());
+        assertEquals(1, replica.getSnapshotsApplied());
+    }
+
+    // === Tests for observer.AsyncObserverDispatcher ===
+
+    /**
+     * Tests that asynchronous notifications do not make the gate wait for a slow observer,
+     * that bursts are coalesced into fewer updates, and that the last update delivered
+     * reflects the final parking state.
+     */
+    @Test
+    void asyncNotifications_ShouldCoalesceBurstsForSlowObserver() throws Exception {
+        ParkingLotManager manager = ParkingLotManager.createLot(50);
+        AtomicInteger updates = new AtomicInteger();
+        List<Integer> lastSize = new ArrayList<>(List.of(-1));
+        manager.addObserver(vehicles -> {
+            try {
+                Thread.sleep(20); // Slow observer
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            updates.incrementAndGet();
+            synchronized (lastSize) {
+                lastSize.set(0, vehicles.size());
+            }
+        });
+        manager.enableAsyncNotifications(4, BackpressurePolicy.COALESCE);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 40; i++) {
+            manager.checkInVehicle(new Vehicle(String.format("ASYNC%02d", i), "Gate"));
+        }
+        long gateMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        AsyncObserverDispatcher dispatcher = manager.getNotificationDispatcher();
+        assertTrue(dispatcher.awaitIdle(10_000));
+        manager.disableAsyncNotifications();
+
+        assertTrue(gateMillis < 40 * 20, "Gate waited for the observer");
+        assertTrue(updates.get() < 40, "Events were not coalesced");
+        assertTrue(dispatcher.getCoalescedEvents() > 0);
+        synchronized (lastSize) {
+            assertEquals(40, (int) lastSize.get(0));
+        }
+    }
+
+    /**
+     * Tests that a gate does not wait while another gate is stuck in a slow synchronous
+     * listener, and that the listener still receives all events in sequence order.
+     */
+    @Test
+    void synchronousListeners_ShouldNotSerializeGatesBehindSlowListener() throws Exception {
+        ParkingLotManager manager = ParkingLotManager.createLot(10, 2);
+        CountDownLatch inListener = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> sequences = new CopyOnWriteArrayList<>();
+        manager.addEventListener(event -> {
+            if ("SLOW001".equals(event.getLicensePlate())) {
+                inListener.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sequences.add(event.getSequence());
+        });
+
+        Thread slowGate = new Thread(() -> manager.checkInVehicle(new Vehicle("SLOW001", "Slow")));
+        slowGate.start();
+        assertTrue(inListener.await(5, TimeUnit.SECONDS));
+        Thread fastGate = new Thread(() -> manager.checkInVehicle(new Vehicle("FAST001", "Fast")));
+        fastGate.start();
+        fastGate.join(5_000);
+        boolean fastGateWaited = fastGate.isAlive();
+        release.countDown();
+        slowGate.join(5_000);
+        fastGate.join(5_000);
+
+        assertFalse(fastGateWaited, "Gate waited for another gate's listener");
+        assertEquals(List.of(1L, 2L), sequences);
+    }
+
+    /**
+     * Tests that when gates check the same plate in and out concurrently, the events of that
+     * plate are numbered in the order the changes were applied: they alternate between entry
+     * and exit of the same slot, and the last one matches the final state of the lot.
+     */
+    @Test
+    void parkingLotManager_ShouldNumberConcurrentChangesOfOnePlateInOrder() throws Exception {
+        ParkingLotManager manager = ParkingLotManager.createLot(2);
+        List<ParkingEvent> events = new CopyOnWriteArrayList<>();
+        manager.addEventListener(events::add);
+        Thread[] gates = new Thread[4];
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int g = 0; g < gates.length; g++) {
+                gates[g] = new Thread(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        manager.checkInVehicle(new Vehicle("RACE001", "Race"));
+                        manager.checkOutVehicle("RACE001");
+                    }
+                });
+                gates[g].start();
+            }
+            for (Thread gate : gates) {
+                gate.join(60_000);
+            }
+        } finally {
+            System.setOut(console);
+        }
+
+        ParkingEvent previous = null;
+        for (ParkingEvent event : events) {
+            if (previous == null) {
+                assertEquals(ParkingEvent.Type.ENTERED, event.getType());
+            } else {
+                assertEquals(previous.getSequence() + 1, event.getSequence());
+                assertNotEquals(previous.getType(), event.getType(), "Events out of order at " + event.getSequence());
+                if (event.getType() == ParkingEvent.Type.EXITED) {
+                    assertEquals(previous.getSlotId(), event.getSlotId());
+                }
+            }
+            previous = event;
+        }
+        ParkingSlot slot = manager.findSlotByPlate("RACE001");
+        if (previous.getType() == ParkingEvent.Type.ENTERED) {
+            assertEquals(previous.getSlotId(), slot.getId());
+        } else {
+            assertNull(slot);
+        }
+    }
+
+    /**
+     * Tests that under COALESCE a slow event listener, which applies deltas, still receives
+     * every event in sequence order instead of losing the events that did not fit its queue.
+     */
+    @Test
+    void asyncNotifications_ShouldNotCoalesceDeltaListeners() throws Exception {
+        ParkingLotManager manager = ParkingLotManager.createLot(30);
+        List<Long> sequences = new CopyOnWriteArrayList<>();
+        manager.addEventListener(event -> {
+            try {
+                Thread.sleep(2); // Slow listener
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sequences.add(event.getSequence());
+        });
+        manager.enableAsyncNotifications(2, BackpressurePolicy.COALESCE);
+        for (int i = 0; i < 20; i++) {
+            manager.checkInVehicle(new Vehicle(String.format("DELTA%02d", i), "Gate"));
+        }
+        AsyncObserverDispatcher dispatcher = manager.getNotificationDispatcher();
+        assertTrue(dispatcher.awaitIdle(10_000));
+        manager.disableAsyncNotifications();
+
+        assertEquals(0, dispatcher.getCoalescedEvents());
+        assertEquals(20, sequences.size());
+        for (int i = 1; i < sequences.size(); i++) {
+            assertEquals(sequences.get(i - 1) + 1, (long) sequences.get(i));
+        }
+    }
+
+    /**
+     * Tests that event listeners receive one numbered event per change carrying
+     * the slot, plate and fee, and that legacy observers still get the vehicle list.
+     */
+    @Test
+    void eventListeners_ShouldReceiveDeltasAndLegacyObserversSnapshots() {
+        ParkingLotManager manager = ParkingLotManager.createLot(5);
+        List<ParkingEvent> events = new ArrayList<>();
+        List<Integer> snapshotSizes = new ArrayList<>();
+        manager.addEventListener(events::add);
+        manager.addObserver(vehicles -> snapshotSizes.add(vehicles.size()));
+
+        manager.checkInVehicle(new Vehicle("EVENT1", "Gate"));
+        manager.checkInVehicle(new Vehicle("EVENT2", "Gate"));
+        assertTrue(manager.moveVehicle("EVENT1", 5));
+        assertTrue(manager.checkOutVehicle("EVENT2"));
+
+        assertEquals(4, events.size());
+        assertEquals(ParkingEvent.Type.ENTERED, events.get(0).getType());
+        assertEquals(1, events.get(0).getSlotId());
+        assertEquals(ParkingEvent.Type.SLOT_CHANGED, events.get(2).getType());
+        assertEquals(1, events.get(2).getPreviousSlotId());
+        assertEquals(5, events.get(2).getSlotId());
+        assertEquals(ParkingEvent.Type.EXITED, events.get(3).getType());
+        assertEquals("EVENT2", events.get(3).getLicensePlate());
+        assertNotNull(events.get(3).getFee());
+        assertEquals(1, events.get(3).getOccupiedSlots());
+        assertEquals(4L, events.get(3).getSequence());
+        assertEquals(List.of(1, 2, 2, 1), snapshotSizes);
+    }
+
     // === Tests for services.ParkingStatistics ===
 
     /**
@@ -198,6 +1328,79 @@ public class ParkingTest {
         assertEquals(60.0, avgTime); // רק v1 יצא, שהה 60 דקות
     }
 
+    /**
+     * Tests that live statistics give the same results as recomputing from the vehicle list,
+     * including the scale of the revenue shown in reports, and that entries older than an hour
+     * drop out of the last-hour window.
+     */
+    @Test
+    void liveStatistics_ShouldMatchListBasedStatistics() {
+        LocalDateTime now = LocalDateTime.now();
+        Vehicle v1 = new Vehicle("LIVE111", "UserA");
+        v1.setEntryTime(now.minusHours(3));
+        v1.setExitTime(now.minusMinutes(90));
+
+        Vehicle v2 = new Vehicle("LIVE222", "UserB");
+        v2.setEntryTime(now.minusMinutes(20));
+
+        LiveStatistics live = new LiveStatistics();
+        live.recordVehicle(v1);
+        live.recordVehicle(v2);
+        List<Vehicle> vehicles = List.of(v1, v2);
+
+        assertEquals(ParkingStatistics.getVehiclesInLastHour(vehicles), live.getVehiclesInLastHour(now));
+        assertEquals(ParkingStatistics.getAverageStayTime(vehicles), live.getAverageStayTime());
+        assertEquals(ParkingStatistics.getWeeklyRevenue(vehicles), live.getWeeklyRevenue(now));
+        assertEquals(ParkingStatistics.getWeeklyRevenue(List.of(v2)), live.getWeeklyRevenue(now.plusDays(8)));
+        assertEquals(ParkingStatistics.getDailyRevenue(List.of()), new LiveStatistics().getDailyRevenue(now));
+        assertEquals(0, live.getVehiclesInLastHour(now.plusHours(2)));
+    }
+
+    /**
+     * Tests that the time series reports per-minute arrivals, departures, revenue and
+     * occupancy, carries occupancy across quiet minutes, and downsamples into coarser windows.
+     */
+    @Test
+    void parkingTimeSeries_ShouldRecordAndDownsample() {
+        ParkingTimeSeries series = new ParkingTimeSeries();
+        LocalDateTime start = LocalDateTime.of(2025, 7, 16, 10, 0);
+        series.recordArrival(start, 1);
+        series.recordArrival(start.plusSeconds(30), 2);
+        series.recordDeparture(start.plusMinutes(5), 1, 500);
+
+        LocalDateTime now = start.plusMinutes(9);
+        long[] arrivals = series.getSeries(ParkingTimeSeries.Metric.ARRIVALS, ParkingTimeSeries.Window.LAST_24_HOURS, now);
+        long[] occupancy = series.getSeries(ParkingTimeSeries.Metric.OCCUPANCY, ParkingTimeSeries.Window.LAST_24_HOURS, now);
+        int last = arrivals.length - 1;
+        assertEquals(2, arrivals[last - 9]);
+        assertEquals(2, occupancy[last - 7]);
+        assertEquals(1, occupancy[last]);
+        assertEquals(0, occupancy[last - 10]);
+
+        long[] tenMinutes = series.getSeries(ParkingTimeSeries.Metric.PEAK_OCCUPANCY, ParkingTimeSeries.Window.LAST_7_DAYS, now);
+        assertEquals(2, tenMinutes[tenMinutes.length - 1]);
+        assertEquals(500, series.getTotal(ParkingTimeSeries.Metric.REVENUE_CENTS, ParkingTimeSeries.Window.LAST_90_DAYS, now));
+        assertEquals(0, series.getTotal(ParkingTimeSeries.Metric.ARRIVALS, ParkingTimeSeries.Window.LAST_24_HOURS, now.plusDays(2)));
+    }
+
+    /**
+     * Tests that the time series of a lot records the occupancy after every check-in and
+     * check-out, so it always matches the number of occupied slots.
+     */
+    @Test
+    void parkingLotManager_ShouldRecordOccupancyAfterGateOperations() {
+        ParkingLotManager lot = ParkingLotManager.createLot(3);
+        assertTrue(lot.checkInVehicle(new Vehicle("SERIES1", "Time Series")));
+        assertTrue(lot.checkInVehicle(new Vehicle("SERIES2", "Time Series")));
+        assertEquals(2, lot.getTimeSeries().getCurrentOccupancy());
+
+        assertTrue(lot.checkOutVehicle("SERIES1"));
+        assertEquals(1, lot.getTimeSeries().getCurrentOccupancy());
+        assertTrue(lot.checkOutVehicle("SERIES2"));
+        assertEquals(0, lot.getOccupiedSlots());
+        assertEquals(0, lot.getTimeSeries().getCurrentOccupancy());
+    }
+
     /**
      * Tests that services.ParkingHistory correctly adds entry records.
      * Validates that entry records are properly stored with correct license plate and action type.
@@ -217,6 +1420,458 @@ public class ParkingTest {
         assertEquals("ENTRY", lastEntry.getAction());
     }
 
+    /**
+     * Tests that history records written to the journal are recovered after a restart,
+     * that a torn record at the end of the file is discarded, and that the recovered
+     * records rebuild slot occupancy in a new lot.
+     */
+    @Test
+    void historyJournal_ShouldRecoverRecordsAndSlots() throws Exception {
+        Path file = Files.createTempFile("parking-history", ".journal");
+        try {
+            LocalDateTime entry = LocalDateTime.of(2025, 7, 16, 9, 30, 15, 123_000_000);
+            try (HistoryJournal journal = HistoryJournal.open(file, HistoryJournal.Durability.GROUP_COMMIT, null)) {
+                journal.append(new ParkingHistory.HistoryEntry("JRN111", "Alice", entry, "ENTRY", "Entered parking lot", 3));
+                journal.append(new ParkingHistory.HistoryEntry("JRN222", "Bob", entry, "ENTRY", "Entered parking lot", 4));
+                journal.append(new ParkingHistory.HistoryEntry("JRN222", "Bob", entry.plusHours(2), "EXIT", "Fee: 10.0 NIS", 4));
+                assertEquals(3L, journal.getDurableCount());
+            }
+            try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+                raw.seek(raw.length());
+                raw.write(new byte[] {0, 0, 0, 40, 1, 2}); // Torn record from a crash
+            }
+
+            List<ParkingHistory.HistoryEntry> recovered = new ArrayList<>();
+            try (HistoryJournal journal = HistoryJournal.open(file, HistoryJournal.Durability.SYNC, recovered)) {
+                assertEquals(3, recovered.size());
+                assertEquals(entry, recovered.get(0).getTimestamp());
+                assertEquals(3, recovered.get(0).getSlotId());
+                assertEquals("EXIT", recovered.get(2).getAction());
+                journal.append(new ParkingHistory.HistoryEntry("JRN333", "Carol", entry, "ENTRY", "Entered parking lot", 1));
+            }
+
+            recovered.clear();
+            HistoryJournal.open(file, HistoryJournal.Durability.ASYNC, recovered).close();
+            assertEquals(4, recovered.size());
+
+            ParkingLotManager manager = ParkingLotManager.createLot(5);
+            assertEquals(2, manager.restoreFromHistory(recovered));
+            assertEquals(3, manager.findSlotByPlate("JRN111").getId());
+            assertEquals(1, manager.findSlotByPlate("JRN333").getId());
+            assertNull(manager.findSlotByPlate("JRN222"));
+            assertEquals(3, manager.getAllVehicles().size());
+            assertEquals(3, manager.getAvailableSlots());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Tests that a batch the flusher failed to write is not counted as durable and that the
+     * write error is reported to the waiting append and on close.
+     */
+    @Test
+    void historyJournal_ShouldNotCountFailedBatchAsDurable() throws Exception {
+        Path file = Files.createTempFile("parking-history", ".journal");
+        try {
+            HistoryJournal journal = HistoryJournal.open(file, HistoryJournal.Durability.GROUP_COMMIT, null);
+            java.lang.reflect.Field channel = HistoryJournal.class.getDeclaredField("channel");
+            channel.setAccessible(true);
+            ((java.nio.channels.FileChannel) channel.get(journal)).close(); // Every write now fails
+
+            LocalDateTime entry = LocalDateTime.of(2025, 7, 16, 9, 0);
+            assertThrows(java.io.UncheckedIOException.class, () -> journal.append(
+                    new ParkingHistory.HistoryEntry("LOST001", "Lost", entry, "ENTRY", "Entered parking lot", 1)));
+            assertEquals(1L, journal.getAppendedCount());
+            assertEquals(0L, journal.getDurableCount());
+            assertThrows(java.io.IOException.class, journal::close);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Tests that records added by concurrent gates while a journal is open are journaled in
+     * the same order as they are kept in memory.
+     */
+    @Test
+    void parkingHistory_ShouldJournalRecordsInMemoryOrder() throws Exception {
+        Path file = Files.createTempFile("parking-history", ".journal");
+        try {
+            ParkingHistory.openJournal(file, HistoryJournal.Durability.ASYNC);
+            try {
+                Thread[] gates = new Thread[4];
+                for (int g = 0; g < gates.length; g++) {
+                    int gate = g;
+                    gates[g] = new Thread(() -> {
+                        for (int i = 0; i < 1_000; i++) {
+                            Vehicle vehicle = new Vehicle(String.format("ORD%d%04d", gate, i), "Order");
+                            vehicle.setEntryTime(LocalDateTime.now());
+                            ParkingHistory.addEntryRecord(vehicle, gate + 1);
+                        }
+                    });
+                    gates[g].start();
+                }
+                for (Thread gate : gates) {
+                    gate.join(60_000);
+                }
+            } finally {
+                ParkingHistory.closeJournal();
+            }
+
+            List<ParkingHistory.HistoryEntry> recovered = new ArrayList<>();
+            HistoryJournal.open(file, HistoryJournal.Durability.ASYNC, recovered).close();
+            List<ParkingHistory.HistoryEntry> inMemory = ParkingHistory.getHistory();
+            assertEquals(4_000, recovered.size());
+            assertEquals(inMemory.size(), recovered.size());
+            for (int i = 0; i < recovered.size(); i++) {
+                assertEquals(inMemory.get(i).getLicensePlate(), recovered.get(i).getLicensePlate(), "Record " + i);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Tests that recovered exits keep the fee that was recorded when the driver paid, even if
+     * the current tariffs would charge a different amount.
+     */
+    @Test
+    void restoreFromHistory_ShouldUseRecordedFees() {
+        LocalDateTime entry = LocalDateTime.of(2025, 7, 16, 9, 0);
+        ParkingHistory.HistoryEntry exit = new ParkingHistory.HistoryEntry("FEE0001", "Payer", entry.plusHours(1),
+                "EXIT", "Exited parking lot - Fee: 7.5 NIS", 1);
+        assertEquals(750, exit.getFeeCents());
+        assertEquals(-1, new ParkingHistory.HistoryEntry("FEE0001", "Payer", entry, "ENTRY", "Entered parking lot", 1)
+                .getFeeCents());
+
+        ParkingLotManager manager = ParkingLotManager.createLot(2);
+        assertEquals(0, manager.restoreFromHistory(List.of(
+                new ParkingHistory.HistoryEntry("FEE0001", "Payer", entry, "ENTRY", "Entered parking lot", 1), exit)));
+        assertArrayEquals(new long[] {750}, manager.getSessionArchive().getFeesCents());
+        assertEquals(0, new BigDecimal("7.5").compareTo(manager.getStatistics().getDailyRevenue(entry.plusHours(2))));
+    }
+
+    /**
+     * Tests that vehicles checked in with a country plate format that the default format
+     * rejects are restored from history and listed from the session archive.
+     */
+    @Test
+    void restoreFromHistory_ShouldKeepPlatesOfOtherCountryFormats() {
+        PlateFormats.register("DE", PlateFormat.pattern("[A-Z]{1,3}-[A-Z]{1,2} [0-9]{1,4}",
+                "License plate must have the form B-MW 123"));
+        Vehicle parked = new Vehicle("B-MW 123", "Dieter", PlateFormats.forCountry("DE"));
+        assertThrows(IllegalArgumentException.class, () -> new Vehicle("B-MW 123", "Dieter"));
+        LocalDateTime entry = LocalDateTime.of(2025, 7, 16, 9, 0);
+        List<ParkingHistory.HistoryEntry> records = List.of(
+                new ParkingHistory.HistoryEntry(parked.getLicensePlate(), "Dieter", entry, "ENTRY", "Entered parking lot", 2),
+                new ParkingHistory.HistoryEntry("M-X 9", "Maria", entry, "ENTRY", "Entered parking lot", 1),
+                new ParkingHistory.HistoryEntry("M-X 9", "Maria", entry.plusHours(1), "EXIT", "Fee: 5.0 NIS", 1));
+
+        ParkingLotManager manager = ParkingLotManager.createLot(3);
+        assertEquals(1, manager.restoreFromHistory(records));
+        assertEquals(2, manager.findSlotByPlate("B-MW 123").getId());
+        List<Vehicle> all = manager.getAllVehicles();
+        assertEquals(2, all.size());
+        assertTrue(all.stream().anyMatch(v -> v.getLicensePlate().equals("M-X 9") && v.getExitTime() != null));
+    }
+
+    /**
+     * Tests that history can be queried by day, by day range and by license plate
+     * through the secondary indexes, including plates that have no core.PlateCode, and that
+     * an impossible date such as 31-02-2024 matches no records.
+     */
+    @Test
+    void parkingHistory_ShouldQueryByDateRangeAndPlate() {
+        Vehicle v = new Vehicle("DAYIDX1", "HistUser");
+        v.setEntryTime(LocalDateTime.of(2001, 3, 10, 23, 59));
+        ParkingHistory.addEntryRecord(v, 2);
+        v.setExitTime(LocalDateTime.of(2001, 3, 12, 0, 1));
+        ParkingHistory.addExitRecord(v, "245.0", 2);
+
+        LocalDate day = LocalDate.of(2001, 3, 10);
+        assertEquals(1, ParkingHistory.getHistoryByDate(day).size());
+        assertTrue(ParkingHistory.getHistoryByDate(day.plusDays(1)).isEmpty());
+        assertEquals(2, ParkingHistory.getHistoryBetween(day, day.plusDays(2)).size());
+        assertEquals("EXIT", ParkingHistory.getHistoryByPlate("DAYIDX1").get(1).getAction());
+
+        Vehicle leap = new Vehicle("DAYIDX3", "HistUser");
+        leap.setEntryTime(LocalDateTime.of(2024, 2, 29, 12, 0));
+        ParkingHistory.addEntryRecord(leap, 4);
+        PrintStream console = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+        try {
+            ParkingHistory.displayHistoryByDate("31-02-2024"); // Not a date: must not match Feb 29
+            ParkingHistory.displayHistoryByDate("29-02-2024");
+        } finally {
+            System.setOut(console);
+        }
+        String[] reports = printed.toString(StandardCharsets.UTF_8).split("=== History for Date: 29-02-2024");
+        assertTrue(reports[0].contains("No data found for this date."));
+        assertTrue(reports[1].contains("DAYIDX3"));
+
+        Vehicle other = new Vehicle("DAYIDX 2", "HistUser", PlateFormats.ANY); // No core.PlateCode
+        other.setEntryTime(LocalDateTime.of(2001, 3, 10, 8, 0));
+        ParkingHistory.addEntryRecord(other, 3);
+        assertEquals(1, ParkingHistory.getHistoryByPlate("DAYIDX 2").size());
+        assertEquals(2, ParkingHistory.getHistoryByPlate("DAYIDX1").size());
+    }
+
+    // === Tests for services.ReportWriter ===
+
+    /**
+     * Tests that the full report streams the same rows as text, CSV and JSON,
+     * with escaping and null handling for the machine-readable formats.
+     */
+    @Test
+    void reportWriter_ShouldRenderTextCsvAndJson() {
+        Vehicle parked = new Vehicle("REP001", "Jo Smith");
+        parked.setEntryTime(LocalDateTime.of(2024, 5, 1, 8, 5, 9));
+        Vehicle exited = new Vehicle("REP002", "Lee");
+        exited.setEntryTime(LocalDateTime.of(2024, 5, 1, 9, 0));
+        exited.setExitTime(LocalDateTime.of(2024, 5, 2, 10, 30));
+        List<Vehicle> vehicles = List.of(parked, exited);
+
+        String text = render(vehicles, ReportWriter.Format.TEXT);
+        assertTrue(text.contains("core.Vehicle: REP001 (Owner: Jo Smith), Entry: 01-05-2024 08:05:09, Exit: —, Status: 🚗 In Lot"));
+        assertTrue(text.contains("Currently Parked: 1 / 10\nTotal Vehicles Ever Parked: 2"));
+
+        String csv = render(vehicles, ReportWriter.Format.CSV);
+        assertTrue(csv.startsWith("plate,owner,entry,exit,status\nREP001,Jo Smith,2024-05-01T08:05:09,,IN_LOT\n"));
+        assertTrue(csv.endsWith("currentlyParked,totalSlots,totalVehicles\n1,10,2\n"));
+
+        String json = render(vehicles, ReportWriter.Format.JSON);
+        assertEquals("{\"report\":\"full\",\"vehicles\":["
+                + "{\"plate\":\"REP001\",\"owner\":\"Jo Smith\",\"entry\":\"2024-05-01T08:05:09\",\"exit\":null,\"status\":\"IN_LOT\"},"
+                + "{\"plate\":\"REP002\",\"owner\":\"Lee\",\"entry\":\"2024-05-01T09:00:00\",\"exit\":\"2024-05-02T10:30:00\",\"status\":\"EXITED\"}],"
+                + "\"summary\":[{\"currentlyParked\":1,\"totalSlots\":10,\"totalVehicles\":2}]}\n", json);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReportWriter out = new ReportWriter(bytes, ReportWriter.Format.CSV)) {
+            out.beginReport("escape").beginTable("cells", "", new ReportWriter.Column("value", ""))
+                    .cell("a,\"b\"").endRow().cell(-42).endRow().endTable().endReport();
+        }
+        assertEquals("value\n\"a,\"\"b\"\"\"\n-42\n", bytes.toString(java.nio.charset.StandardCharsets.UTF_8));
+    }
+
+    private static String render(List<Vehicle> vehicles, ReportWriter.Format format) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReportWriter out = new ReportWriter(bytes, format)) {
+            ParkingLog.displayFullReport(vehicles, 10, out);
+        }
+        return bytes.toString(java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    // === Tests for metrics.MetricsRegistry ===
+
+    /**
+     * Tests that a disabled registry ignores updates and that an enabled histogram reports
+     * mean and maximum exactly and percentiles within its bucket precision (about 3%).
+     */
+    @Test
+    void latencyHistogram_ShouldReportPercentilesWithinBucketPrecision() {
+        MetricsRegistry registry = new MetricsRegistry();
+        LatencyHistogram histogram = registry.histogram("test.latency");
+        Counter counter = registry.counter("test.count");
+
+        assertEquals(0, histogram.start());
+        histogram.record(1000);
+        counter.increment();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, counter.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        registry.setEnabled(true);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L); // 1 µs ... 1 ms
+            counter.increment();
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, counter.getCount());
+        assertEquals(500_500, histogram.getMean());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 / 32.0);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 / 32.0);
+        assertEquals(1000, histogram.getValueAtPercentile(0), 1000 / 32.0);
+        assertSame(histogram, registry.histogram("test.latency"));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter(" "));
+    }
+
+    /**
+     * Tests that check-in, check-out and observer delivery are timed in the global registry while
+     * it is enabled, that nested steps are not timed separately, and that the metrics dump as JSON.
+     */
+    @Test
+    void metrics_ShouldTimeGateOperationsAndDumpJson() {
+        MetricsRegistry registry = MetricsRegistry.global();
+        ParkingLotManager lot = ParkingLotManager.createLot(5);
+        lot.addEventListener(new ParkingLog());
+        lot.exposeMetrics(registry, "metricstest");
+        Map<String, LatencyHistogram> histograms = registry.getHistograms();
+        long checkIns = histograms.get("lot.checkin.latency").getCount();
+        long checkOuts = histograms.get("lot.checkout.latency").getCount();
+        long notFound = registry.counter("lot.checkout.notfound").getCount();
+
+        registry.setEnabled(true);
+        try {
+            assertTrue(lot.checkInVehicle(new Vehicle("MET001", "Metrics Owner")));
+            assertEquals(1, registry.getGauges().get("metricstest.occupied").getAsLong());
+            assertTrue(lot.checkOutVehicle("MET001"));
+            assertFalse(lot.checkOutVehicle("MET001"));
+        } finally {
+            registry.setEnabled(false);
+        }
+        lot.checkInVehicle(new Vehicle("MET002", "Metrics Owner")); // Not recorded
+
+        assertEquals(checkIns + 1, histograms.get("lot.checkin.latency").getCount());
+        assertEquals(checkOuts + 2, histograms.get("lot.checkout.latency").getCount());
+        assertFalse(histograms.containsKey("fee.latency"));
+        assertFalse(histograms.containsKey("history.append.latency"));
+        assertEquals(notFound + 1, registry.counter("lot.checkout.notfound").getCount());
+        assertTrue(histograms.get("observer.ParkingLog.latency").getCount() >= 2);
+        assertTrue(histograms.get("lot.checkin.latency").getMax() > 0);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReportWriter out = new ReportWriter(bytes, ReportWriter.Format.JSON)) {
+            Report.printMetrics(registry, out);
+        }
+        String json = bytes.toString(java.nio.charset.StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"report\":\"metrics\",\"counters\":["));
+        assertTrue(json.contains("{\"name\":\"metricstest.occupied\",\"value\":1}"));
+        assertTrue(json.contains("{\"name\":\"lot.checkin.latency\",\"count\":"));
+    }
+
+    // === Tests for flight recorder events ===
+
+    /**
+     * Tests that a flight recording contains a check-in, check-out, fee, history and observer
+     * event for every step of a vehicle's visit, with slot, plate hash and occupancy.
+     */
+    @Test
+    void flightRecorder_ShouldRecordGateEvents() throws Exception {
+        ParkingLotManager lot = ParkingLotManager.createLot(3);
+        lot.addEventListener(new ParkingLog());
+        int plateHash = PlateCode.hash("JFR001");
+        Path file = Files.createTempFile("parking", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("parking.CheckIn", "parking.CheckOut", "parking.FeeComputation",
+                    "parking.HistoryAppend", "parking.ObserverDispatch")) {
+                recording.enable(name);
+            }
+            recording.start();
+            assertTrue(lot.checkInVehicle(new Vehicle("JFR001", "Flight Recorder")));
+            assertTrue(lot.checkOutVehicle("JFR001"));
+            recording.stop();
+            recording.dump(file);
+        }
+        Map<String, List<RecordedEvent>> events;
+        try {
+            events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getInt("plateHash") == plateHash)
+                    .collect(Collectors.groupingBy(event -> event.getEventType().getName()));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        RecordedEvent checkIn = events.get("parking.CheckIn").get(0);
+        assertEquals(1, checkIn.getInt("slotId"));
+        assertEquals(1, checkIn.getInt("occupiedSlots"));
+        assertTrue(checkIn.getBoolean("parked"));
+        assertFalse(checkIn.getDuration().isNegative());
+
+        RecordedEvent checkOut = events.get("parking.CheckOut").get(0);
+        assertEquals(1, checkOut.getInt("slotId"));
+        assertEquals(0, checkOut.getInt("occupiedSlots"));
+        assertTrue(checkOut.getBoolean("found"));
+
+        assertEquals(1, events.get("parking.FeeComputation").get(0).getInt("slotId"));
+        assertEquals(List.of("ENTRY", "EXIT"), events.get("parking.HistoryAppend").stream()
+                .map(event -> event.getString("action")).collect(Collectors.toList()));
+        List<RecordedEvent> dispatches = events.get("parking.ObserverDispatch");
+        assertEquals(2, dispatches.size());
+        assertEquals("ParkingLog", dispatches.get(0).getString("observer"));
+        assertEquals(1, dispatches.get(0).getInt("events"));
+    }
+
+    // === Tests for server.GateServer ===
+
+    /**
+     * Tests that pipelined requests of a network gate are all executed and answered in order:
+     * check-ins until the lot is full, status, check-outs, statistics and an unknown command.
+     */
+    @Test
+    void gateServer_ShouldAnswerPipelinedRequestsInOrder() throws Exception {
+        ParkingLotManager lot = ParkingLotManager.createLot(2);
+        try (GateServer server = GateServer.start(lot, new InetSocketAddress("localhost", 0), 2);
+             GateClient client = new GateClient("localhost", server.getPort())) {
+            for (String request : List.of("IN NET001 Gate One", "IN NET002 Gate Two", "IN NET003 Gate Three",
+                    "STATUS", "OUT NET001", "OUT NET009", "STATS", "IN NET004 G4te", "BOGUS")) {
+                client.send(request);
+            }
+            client.flush();
+
+            assertTrue(client.readResponse().startsWith("OK slot="));
+            assertTrue(client.readResponse().startsWith("OK slot="));
+            assertEquals("REJECTED", client.readResponse());
+            assertEquals("OK occupied=2 total=2 available=0", client.readResponse());
+            assertEquals("OK fee=0", client.readResponse()); // A stay of zero whole minutes is free
+            assertEquals("NOTFOUND", client.readResponse());
+            String stats = client.readResponse();
+            assertTrue(stats.startsWith("OK lastHour=2 today=2"));
+            assertTrue(stats.endsWith(" dailyRevenue=0 weeklyRevenue=0")); // Agorot, like the fee
+            assertTrue(client.readResponse().startsWith("ERR "));
+            assertEquals("ERR Unknown command: BOGUS", client.readResponse());
+            assertEquals("OK", client.request("QUIT"));
+        }
+        assertEquals(1, lot.getOccupiedSlots());
+        assertNull(lot.findSlotByPlate("NET001"));
+    }
+
+    /**
+     * Tests that the gate server executes requests on its worker threads, not on the event
+     * loops, and that a check-in answers with the slot it parked the vehicle in.
+     */
+    @Test
+    void gateServer_ShouldExecuteRequestsOnWorkers() throws Exception {
+        ParkingLotManager lot = ParkingLotManager.createLot(3);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        lot.addEventListener(event -> threads.add(Thread.currentThread().getName()));
+        try (GateServer server = GateServer.start(lot, new InetSocketAddress("localhost", 0), 1, 2);
+             GateClient client = new GateClient("localhost", server.getPort())) {
+            assertEquals("OK slot=1", client.request("IN WRK001 Worker Owner"));
+            assertEquals("OK fee=0", client.request("OUT WRK001"));
+            assertEquals("OK slot=1", client.request("IN WRK002 Worker Owner"));
+        }
+        assertEquals(3, threads.size());
+        for (String thread : threads) {
+            assertTrue(thread.startsWith("gate-worker-"), thread);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> GateServer.start(lot, new InetSocketAddress("localhost", 0), 1, 0));
+    }
+
+    /**
+     * Tests that lower-case commands are understood whatever the default locale is, including
+     * Turkish, where "in".toUpperCase() is "İN".
+     */
+    @Test
+    void gateServer_ShouldAcceptLowerCaseCommandsInAnyLocale() throws Exception {
+        ParkingLotManager lot = ParkingLotManager.createLot(1);
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try (GateServer server = GateServer.start(lot, new InetSocketAddress("localhost", 0), 1);
+             GateClient client = new GateClient("localhost", server.getPort())) {
+            assertEquals("OK slot=1", client.request("in LOC001 Locale Owner"));
+            assertEquals("OK occupied=1 total=1 available=0", client.request("status"));
+            assertEquals("OK", client.request("quit"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
     // === Tests for services.TimeUtil ===
 
     /**
@@ -0,0 +1,75 @@
+package ui;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import metrics.MetricsRegistry;
+import services.Report;
+import services.ReportWriter;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * The ui.MetricsEndpoint class serves the metrics of a registry over HTTP on the loopback
+ * interface only, for local dashboards and scripts:
+ *     GET /metrics       plain text
+ *     GET /metrics.json  JSON
+ *     GET /metrics.csv   CSV
+ * Every request reads the registry at that moment (see services.Report.printMetrics).
+ */
+public class MetricsEndpoint implements AutoCloseable {
+    private final HttpServer server;
+    private final MetricsRegistry registry;
+
+    private MetricsEndpoint(HttpServer server, MetricsRegistry registry) {
+        this.server = server;
+        this.registry = registry;
+    }
+
+    /**
+     * Starts serving the metrics of a registry on 127.0.0.1.
+     *
+     * @param registry The registry to serve
+     * @param port The TCP port, or 0 for any free port
+     * @return ui.MetricsEndpoint that is running
+     * @throws IOException if the port cannot be bound
+     */
+    public static MetricsEndpoint start(MetricsRegistry registry, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        MetricsEndpoint endpoint = new MetricsEndpoint(server, registry);
+        server.createContext("/metrics", endpoint::handle);
+        server.start();
+        return endpoint;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            ReportWriter.Format format = path.equals("/metrics") ? ReportWriter.Format.TEXT
+                    : path.equals("/metrics.json") ? ReportWriter.Format.JSON
+                    : path.equals("/metrics.csv") ? ReportWriter.Format.CSV : null;
+            if (format == null || !exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", format == ReportWriter.Format.JSON
+                    ? "application/json" : format == ReportWriter.Format.CSV ? "text/csv" : "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0); // Length unknown: chunked
+            try (ReportWriter out = new ReportWriter(exchange.getResponseBody(), format)) {
+                Report.printMetrics(registry, out);
+            }
+        }
+    }
+
+    /** @return int TCP port the endpoint listens on */
+    public int getPort() { return server.getAddress().getPort(); }
+
+    /**
+     * Stops serving; requests in progress may finish for up to one second.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+    }
+}
\ No newline at end of file
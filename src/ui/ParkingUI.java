@@ -2,12 +2,19 @@ package ui;
 
 import core.ParkingLotManager;
 import core.Vehicle;
+import metrics.MetricsRegistry;
 import observer.DataReplication;
 import observer.ParkingLog;
+import services.FeeCalculator;
+import services.HistoryJournal;
 import services.ParkingHistory;
 import services.ParkingStatistics;
 import services.Report;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -17,6 +24,9 @@ import java.util.Scanner;
  * point between users and the parking system, offering intuitive menu-driven access to all system features.
  */
 public class ParkingUI {
+    private static final String HISTORY_JOURNAL = "parking-history.journal"; // Durable history file
+    private static final String TARIFF_FILE = "tariffs.properties";          // Optional tariff configuration
+    private static final String METRICS_PORT = "parking.metrics.port";        // System property enabling metrics
 
     /**
      * Runs the main parking system user interface loop.
@@ -38,9 +48,35 @@ public class ParkingUI {
     public static void runParkingSystem() {
         ParkingLotManager manager = ParkingLotManager.getInstance();
 
-        // Register observers for real-time monitoring and data backup
-        manager.addObserver(new ParkingLog());
-        manager.addObserver(new DataReplication());
+        // Register observers for real-time monitoring and data backup (one event per change)
+        manager.addEventListener(new ParkingLog());
+        manager.addEventListener(new DataReplication());
+
+        // Use the configured tariffs if a tariff file exists, otherwise 5 NIS per hour.
+        // Loaded before recovery, which prices exits that were journaled without a fee.
+        if (Files.exists(Path.of(TARIFF_FILE))) {
+            try {
+                FeeCalculator.loadTariffs(Path.of(TARIFF_FILE));
+                System.out.println("Loaded tariffs for " + FeeCalculator.getTariffs().getVehicleClasses());
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("⚠️ Tariff file ignored, using the standard tariff: " + e.getMessage());
+            }
+        }
+
+        // Recover history and slot occupancy from the durable journal of the previous run
+        try {
+            List<ParkingHistory.HistoryEntry> recovered =
+                    ParkingHistory.openJournal(Path.of(HISTORY_JOURNAL), HistoryJournal.Durability.GROUP_COMMIT);
+            int parked = manager.restoreFromHistory(recovered);
+            if (!recovered.isEmpty()) {
+                System.out.println("Recovered " + recovered.size() + " history records, "
+                        + parked + " vehicles still in the lot.");
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ History journal unavailable, history will not be saved: " + e.getMessage());
+        }
+
+        MetricsEndpoint metrics = startMetrics(manager);
 
         Scanner scanner = new Scanner(System.in);
         boolean running = true;
@@ -124,7 +160,7 @@ public class ParkingUI {
                  */
                 case "5":
                     System.out.println("\n--- Parking Statistics ---");
-                    ParkingStatistics.displayStatistics(manager.getAllVehicles());
+                    ParkingStatistics.displayStatistics(manager.getStatistics());
                     break;
 
                 /**
@@ -146,6 +182,14 @@ public class ParkingUI {
                  */
                 case "7":
                     System.out.println("\nSystem shutting down. Goodbye! 👋");
+                    try {
+                        ParkingHistory.closeJournal();
+                    } catch (IOException e) {
+                        System.out.println("⚠️ Could not save history journal: " + e.getMessage());
+                    }
+                    if (metrics != null) {
+                        metrics.close();
+                    }
                     running = false;
                     break;
 
@@ -161,4 +205,29 @@ public class ParkingUI {
 
         scanner.close();
     }
+
+    /**
+     * Enables metrics and serves them on http://127.0.0.1:<port>/metrics when the system
+     * property parking.metrics.port is set (e.g. -Dparking.metrics.port=9404).
+     *
+     * @param manager The parking lot whose occupancy is exposed
+     * @return ui.MetricsEndpoint that was started, or null if metrics are not enabled
+     */
+    private static MetricsEndpoint startMetrics(ParkingLotManager manager) {
+        String port = System.getProperty(METRICS_PORT);
+        if (port == null) {
+            return null;
+        }
+        try {
+            MetricsRegistry registry = MetricsRegistry.global();
+            manager.exposeMetrics(registry, "lot");
+            MetricsEndpoint endpoint = MetricsEndpoint.start(registry, Integer.parseInt(port.trim()));
+            registry.setEnabled(true);
+            System.out.println("Metrics available at http://127.0.0.1:" + endpoint.getPort() + "/metrics");
+            return endpoint;
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("⚠️ Metrics endpoint not started: " + e.getMessage());
+            return null;
+        }
+    }
 }
\ No newline at end of file